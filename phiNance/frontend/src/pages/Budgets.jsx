@@ -70,9 +70,9 @@ export default function Budgets() {
       
       // Current month budgets
       setBudgets(currentBudgetsRes.data.content);
-      setTotalPages(currentBudgetsRes.data.totalPages);
-      setTotalElements(currentBudgetsRes.data.totalElements);
-      setCurrentPage(currentBudgetsRes.data.number);
+      setTotalPages(currentBudgetsRes.data.totalPages ?? 0);
+      setTotalElements(currentBudgetsRes.data.totalElements ?? 0);
+      setCurrentPage(currentBudgetsRes.data.page);
       
       // Filter all budgets into past and future
       const allBudgets = allBudgetsRes.data.content || [];
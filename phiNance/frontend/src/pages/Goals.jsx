@@ -83,9 +83,9 @@ export default function Goals() {
       const response = await goalsApi.getAll({ page, size, sortBy: 'name', sortDirection: 'asc' });
       const goals = response.data.content.sort((a, b) => new Date(a.deadline) - new Date(b.deadline)); // sorted by target date ascending
       setGoals(goals);
-      setTotalPages(response.data.totalPages);
-      setTotalElements(response.data.totalElements);
-      setCurrentPage(response.data.number);
+      setTotalPages(response.data.totalPages ?? 0);
+      setTotalElements(response.data.totalElements ?? 0);
+      setCurrentPage(response.data.page);
     } catch (error) {
       toast.error('Failed to fetch goals');
     } finally {
@@ -4,7 +4,7 @@ import { toast } from 'react-hot-toast';
 import { format } from 'date-fns';
 import { useTransactionsStore } from '../stores/transactionsStore';
 import { useAccountsStore } from '../stores/accountsStore';
-import { categoriesApi, filesApi, transactionsApi, favoriteFiltersApi } from '../services/api';
+import { attachmentsApi, categoriesApi, filesApi, transactionsApi, favoriteFiltersApi } from '../services/api';
 import { useCurrencyFormatter } from '../utils/currency';
 import Modal from '../components/Modal';
 import ConfirmDialog from '../components/ConfirmDialog';
@@ -33,6 +33,11 @@ const transactionTypes = [
   { value: 'TRANSFER', label: 'Transfer', color: 'text-primary-600', bg: 'bg-primary-100' },
 ];
 
+const isImageAttachment = (fileUrl) => /\.(jpe?g|png|gif)(\?|$)/i.test(fileUrl);
+
+// The server falls back to the original while the thumbnail is generated
+const thumbnailUrl = (fileUrl) => `${fileUrl}${fileUrl.includes('?') ? '&' : '?'}size=thumb`;
+
 export default function Transactions() {
   const {
     transactions,
@@ -230,16 +235,26 @@ export default function Transactions() {
     setUploadingFiles(true);
     try {
       const response = await filesApi.upload(files);
-      const newUploadedFiles = [...uploadedFiles, ...response.data];
+      const storedUrls = response.data.filter(result => !result.error).map(result => result.url);
+      response.data
+        .filter(result => result.error)
+        .forEach(result => toast.error(`${result.originalFilename}: ${result.error}`));
+      e.target.value = ''; // Reset file input
+      if (storedUrls.length === 0) {
+        return;
+      }
+
+      const newUploadedFiles = [...uploadedFiles, ...storedUrls];
       setUploadedFiles(newUploadedFiles);
       
       // Track newly uploaded files only when creating (not editing)
       if (!editingTransaction) {
-        setNewlyUploadedFiles(prev => [...prev, ...response.data]);
+        setNewlyUploadedFiles(prev => [...prev, ...storedUrls]);
       }
       
-      toast.success('Files uploaded successfully');
-      e.target.value = ''; // Reset file input after success
+      toast.success(storedUrls.length === response.data.length
+        ? 'Files uploaded successfully'
+        : `${storedUrls.length} of ${response.data.length} files uploaded`);
       
       // If editing a transaction, automatically update it
       if (editingTransaction) {
@@ -268,7 +283,7 @@ export default function Transactions() {
   const removeFile = async (fileUrl) => {
     try {
       // Extract userId and filename from URL
-      // URL format: /api/files/{userId}/{filename}?token=xxx
+      // URL format: /api/files/{userId}/{filename}?expires=...&signature=...
       const urlMatch = fileUrl.match(/\/api\/files\/([^\\/]+)\/([^?]+)/);
       if (urlMatch) {
         const userId = urlMatch[1];
@@ -476,7 +491,7 @@ export default function Transactions() {
       const csvData = allTransactions.map(t => [
         format(new Date(t.date), 'yyyy-MM-dd'),
         t.type,
-        getAccountName(t.accountId),
+        getAccountName(t.accountId, t),
         getCategoryName(t.categoryId, t),
         t.description || '',
         t.amount
@@ -503,23 +518,47 @@ export default function Transactions() {
     }
   };
 
+  const exportAttachments = async () => {
+    try {
+      const params = buildQueryParams(0);
+      delete params.page;
+      delete params.size;
+
+      const response = await attachmentsApi.exportZip(params);
+      const link = document.createElement('a');
+      const url = URL.createObjectURL(response.data);
+      link.setAttribute('href', url);
+      link.setAttribute('download', `attachments_${format(new Date(), 'yyyy-MM-dd')}.zip`);
+      link.style.visibility = 'hidden';
+      document.body.appendChild(link);
+      link.click();
+      document.body.removeChild(link);
+      URL.revokeObjectURL(url);
+    } catch (error) {
+      toast.error('Failed to export attachments');
+      console.error('Export error:', error);
+    }
+  };
+
   const formatCurrency = useCurrencyFormatter();
 
   const getTransactionStyle = (type) => {
     return transactionTypes.find((t) => t.value === type) || transactionTypes[1];
   };
 
-  const getAccountName = (accountId) => {
-    return accounts.find((a) => a.id === accountId)?.name || 'Unknown';
+  // Rows carry a snapshot of the names; the lists are the fallback for rows without one
+  const getAccountName = (accountId, transaction) => {
+    return transaction?.accountName || accounts.find((a) => a.id === accountId)?.name || 'Unknown';
   };
 
   const getCategoryName = (categoryId, transaction) => {
     // For transfers, show "to {destination account name}"
     if (transaction?.type === 'TRANSFER' && transaction?.transferToAccountId) {
-      const destinationAccount = accounts.find((a) => a.id === transaction.transferToAccountId);
-      return destinationAccount ? `to ${destinationAccount.name}` : 'to Unknown';
+      const destinationName = transaction.transferToAccountName
+        || accounts.find((a) => a.id === transaction.transferToAccountId)?.name;
+      return destinationName ? `to ${destinationName}` : 'to Unknown';
     }
-    return categories.find((c) => c.id === categoryId)?.name || '-';
+    return transaction?.categoryName || categories.find((c) => c.id === categoryId)?.name || '-';
   };
 
   return (
@@ -542,6 +581,14 @@ export default function Transactions() {
             <ArrowDownTrayIcon className="h-5 w-5" />
             <span className="hidden sm:inline">Export</span>
           </button>
+          <button 
+            onClick={exportAttachments} 
+            className="btn-secondary flex items-center gap-2 text-sm sm:text-base"
+            disabled={transactions.length === 0}
+          >
+            <PaperClipIcon className="h-5 w-5" />
+            <span className="hidden sm:inline">Receipts</span>
+          </button>
           <button onClick={openCreateModal} className="btn-primary flex items-center gap-2 text-sm sm:text-base">
             <PlusIcon className="h-5 w-5" />
             <span className="hidden sm:inline">Add Transaction</span>
@@ -834,7 +881,7 @@ export default function Transactions() {
                         </span>
                       </td>
                       <td className="py-3 px-4 text-sm text-gray-900">
-                        {getAccountName(transaction.accountId)}
+                        {getAccountName(transaction.accountId, transaction)}
                       </td>
                       <td className="py-3 px-4 text-sm text-gray-600">
                         {getCategoryName(transaction.categoryId, transaction)}
@@ -1095,7 +1142,16 @@ export default function Transactions() {
                   {uploadedFiles.map((fileUrl, index) => (
                     <div key={index} className="flex items-center justify-between p-2 bg-gray-50 rounded-lg">
                       <div className="flex items-center gap-2">
-                        <PaperClipIcon className="h-4 w-4 text-gray-400" />
+                        {isImageAttachment(fileUrl) ? (
+                          <img
+                            src={thumbnailUrl(fileUrl)}
+                            alt=""
+                            loading="lazy"
+                            className="h-8 w-8 rounded object-cover"
+                          />
+                        ) : (
+                          <PaperClipIcon className="h-4 w-4 text-gray-400" />
+                        )}
                         <a
                           href={fileUrl}
                           target="_blank"
@@ -107,6 +107,8 @@ export const budgetsApi = {
   getById: (id) => api.get(`/budgets/${id}`),
   compare: (year1, month1, year2, month2) =>
     api.get('/budgets/compare', { params: { year1, month1, year2, month2 } }),
+  comparePeriods: (periods) =>
+    api.get('/budgets/comparison', { params: { periods: periods.join(',') } }),
   create: (data) => api.post('/budgets', data),
   update: (id, data) => api.put(`/budgets/${id}`, data),
   delete: (id) => api.delete(`/budgets/${id}`),
@@ -139,7 +141,8 @@ export const filesApi = {
     files.forEach((file) => {
       formData.append('files', file);
     });
-    return api.post('/files/upload', formData, {
+    // Returns one result per file: its url, or the error it was rejected with
+    return api.post('/files/upload/stream', formData, {
       headers: {
         'Content-Type': 'multipart/form-data',
       },
@@ -147,6 +150,13 @@ export const filesApi = {
   },
   delete: (userId, filename) => api.delete(`/files/${userId}/${filename}`),
 };
+
+// Attachments API
+export const attachmentsApi = {
+  getAll: (params) => api.get('/attachments', { params }),
+  getUsage: () => api.get('/attachments/usage'),
+  exportZip: (params) => api.get('/attachments/export', { params, responseType: 'blob' }),
+};
 // Favorite Filters API
 export const favoriteFiltersApi = {
   getAll: () => api.get('/favorite-filters'),
@@ -16,9 +16,9 @@ export const useAccountsStore = create((set, _get) => ({
       const response = await accountsApi.getAll({ page, size, sortBy, sortDirection });
       set({ 
         accounts: response.data.content, 
-        totalPages: response.data.totalPages,
-        totalElements: response.data.totalElements,
-        currentPage: response.data.number,
+        totalPages: response.data.totalPages ?? 0,
+        totalElements: response.data.totalElements ?? 0,
+        currentPage: response.data.page,
         pageSize: response.data.size,
         loading: false 
       });
@@ -38,10 +38,10 @@ export const useTransactionsStore = create((set, get) => ({
       set({
         transactions: response.data.content,
         pagination: {
-          page: response.data.number,
+          page: response.data.page,
           size: response.data.size,
-          totalElements: response.data.totalElements,
-          totalPages: response.data.totalPages,
+          totalElements: response.data.totalElements ?? 0,
+          totalPages: response.data.totalPages ?? 0,
         },
         loading: false,
       });
@@ -0,0 +1,27 @@
+package com.kerem.phinance.config;
+
+import com.kerem.phinance.dto.PageResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Serializes the rows of a {@link PageResponse} with only the fields the
+ * request selected.
+ */
+@RestControllerAdvice
+public class FieldSelectionResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+            MethodParameter returnType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (bodyContainer.getValue() instanceof PageResponse<?> page
+                && page.getFields() != null && !page.getFields().isAll()) {
+            bodyContainer.setFilters(page.getFields().filters());
+        }
+    }
+}
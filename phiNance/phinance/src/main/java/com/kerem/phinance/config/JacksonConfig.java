@@ -2,6 +2,7 @@ package com.kerem.phinance.config;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
@@ -14,6 +15,8 @@ public class JacksonConfig {
         ObjectMapper objectMapper = builder.build();
         // Allow empty strings to be deserialized as null for enum types
         objectMapper.configure(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT, true);
+        // DTOs with selectable fields serialize in full unless a response narrows them
+        objectMapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
         return objectMapper;
     }
 }
@@ -1,13 +1,15 @@
 package com.kerem.phinance.controller;
 
 import com.kerem.phinance.dto.AccountDto;
+import com.kerem.phinance.dto.AccountLedgerDto;
 import com.kerem.phinance.dto.UpdateAccountDto;
+import com.kerem.phinance.dto.PageResponse;
 import com.kerem.phinance.service.AccountService;
+import com.kerem.phinance.util.FieldSelection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -28,15 +30,19 @@ public class AccountController {
 
     @GetMapping
     @Operation(summary = "Get all accounts")
-    public ResponseEntity<Page<AccountDto>> getAllAccounts(
+    public ResponseEntity<PageResponse<AccountDto>> getAllAccounts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection) {
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            @RequestParam(required = false) String fields) {
 
         Sort.Direction direction = sortDirection.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(accountService.getAccountsPaginated(pageable));
+        FieldSelection selection = FieldSelection.parse(fields, AccountService.LIST_FIELDS);
+        return ResponseEntity.ok(PageResponse.of(
+                accountService.getAccountsPaginated(pageable, includeTotal, selection), selection));
     }
 
     @GetMapping("/{id}")
@@ -46,6 +52,18 @@ public class AccountController {
         return ResponseEntity.ok(accountService.getAccountById(id));
     }
 
+    @GetMapping("/{id}/ledger")
+    @Operation(summary = "Get the account ledger with the running balance after each transaction")
+    public ResponseEntity<AccountLedgerDto> getLedger(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "desc") String sortDirection) {
+
+        Sort.Direction direction = sortDirection.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return ResponseEntity.ok(accountService.getLedger(id, cursor, size, direction));
+    }
+
     @PostMapping
     @Operation(summary = "Create a new account")
     public ResponseEntity<AccountDto> createAccount(
@@ -0,0 +1,90 @@
+package com.kerem.phinance.controller;
+
+import com.kerem.phinance.dto.AttachmentCleanupReport;
+import com.kerem.phinance.dto.BalanceReconciliationReport;
+import com.kerem.phinance.dto.BudgetRebuildReport;
+import com.kerem.phinance.dto.BudgetRolloverReport;
+import com.kerem.phinance.service.AttachmentCleanupService;
+import com.kerem.phinance.service.BalanceLedgerService;
+import com.kerem.phinance.service.BalanceReconciliationService;
+import com.kerem.phinance.service.BudgetRebuildService;
+import com.kerem.phinance.service.BudgetRolloverService;
+import com.kerem.phinance.service.BudgetService;
+import com.kerem.phinance.service.DisplaySnapshotService;
+import com.kerem.phinance.service.GoalService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Admin", description = "Maintenance jobs, restricted to administrators")
+public class AdminController {
+
+    private final BalanceLedgerService balanceLedgerService;
+    private final BalanceReconciliationService balanceReconciliationService;
+    private final BudgetRebuildService budgetRebuildService;
+    private final BudgetRolloverService budgetRolloverService;
+    private final BudgetService budgetService;
+    private final GoalService goalService;
+    private final DisplaySnapshotService displaySnapshotService;
+    private final AttachmentCleanupService attachmentCleanupService;
+
+    @PostMapping("/balances/reconcile")
+    @Operation(summary = "Recompute all account balances from transactions and report or repair drift")
+    public ResponseEntity<BalanceReconciliationReport> reconcileBalances(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(balanceReconciliationService.reconcile(repair));
+    }
+
+    @PostMapping("/balances/checkpoint")
+    @Operation(summary = "Checkpoint the balance ledger of all accounts")
+    public ResponseEntity<Map<String, Integer>> checkpointBalances() {
+        return ResponseEntity.ok(Map.of("checkpoints", balanceLedgerService.checkpointAll()));
+    }
+
+    @PostMapping("/budgets/rebuild")
+    @Operation(summary = "Recompute the spent amount of all budgets in a period from transactions")
+    public ResponseEntity<BudgetRebuildReport> rebuildBudgets(
+            @RequestParam int year,
+            @RequestParam int month) {
+        return ResponseEntity.ok(budgetRebuildService.rebuild(year, month));
+    }
+
+    @PostMapping("/budgets/rollover")
+    @Operation(summary = "Copy all budgets of a month into the next month")
+    public ResponseEntity<BudgetRolloverReport> rolloverBudgets(
+            @RequestParam int year,
+            @RequestParam int month,
+            @RequestParam(defaultValue = "false") boolean carryForward) {
+        return ResponseEntity.ok(budgetRolloverService.rollover(year, month, carryForward));
+    }
+
+    @PostMapping("/sort-fields/backfill")
+    @Operation(summary = "Materialize the sortable fields of budgets and goals saved before they existed")
+    public ResponseEntity<Map<String, Long>> backfillSortFields() {
+        return ResponseEntity.ok(Map.of(
+                "budgets", budgetService.backfillDerivedFields(),
+                "goals", goalService.backfillDerivedFields()));
+    }
+
+    @PostMapping("/display-snapshots/backfill")
+    @Operation(summary = "Copy account and category display fields onto all of their transactions in the background")
+    public ResponseEntity<Map<String, Integer>> backfillDisplaySnapshots() {
+        return ResponseEntity.ok(Map.of("requested", displaySnapshotService.requestBackfill()));
+    }
+
+    @PostMapping("/attachments/cleanup")
+    @Operation(summary = "Delete stored files that no transaction has used for the grace period")
+    public ResponseEntity<AttachmentCleanupReport> cleanupAttachments() {
+        return ResponseEntity.ok(attachmentCleanupService.sweep());
+    }
+}
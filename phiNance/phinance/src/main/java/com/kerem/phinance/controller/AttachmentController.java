@@ -0,0 +1,59 @@
+package com.kerem.phinance.controller;
+
+import com.kerem.phinance.dto.AttachmentDto;
+import com.kerem.phinance.dto.AttachmentUsageDto;
+import com.kerem.phinance.dto.PageResponse;
+import com.kerem.phinance.dto.TransactionFilterDto;
+import com.kerem.phinance.service.AttachmentExportService;
+import com.kerem.phinance.service.AttachmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/attachments")
+@RequiredArgsConstructor
+@Tag(name = "Attachments", description = "Uploaded file listing and storage quota APIs")
+public class AttachmentController {
+
+    private final AttachmentService attachmentService;
+    private final AttachmentExportService attachmentExportService;
+
+    @GetMapping
+    @Operation(summary = "Get uploaded attachments, newest first")
+    public ResponseEntity<PageResponse<AttachmentDto>> getAttachments(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(PageResponse.of(attachmentService.getAttachments(
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")))));
+    }
+
+    @GetMapping("/usage")
+    @Operation(summary = "Get attachment storage used and the quota")
+    public ResponseEntity<AttachmentUsageDto> getUsage() {
+        return ResponseEntity.ok(attachmentService.getUsage());
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Download the attachments of all transactions matching filters as a ZIP with a CSV manifest")
+    public ResponseEntity<StreamingResponseBody> exportAttachments(
+            @ModelAttribute TransactionFilterDto filter) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("attachments.zip").build().toString())
+                .body(attachmentExportService.exportAttachments(filter));
+    }
+}
@@ -1,12 +1,15 @@
 package com.kerem.phinance.controller;
 
+import com.kerem.phinance.dto.BudgetComparisonDto;
 import com.kerem.phinance.dto.BudgetDto;
+import com.kerem.phinance.dto.BudgetFilterDto;
+import com.kerem.phinance.dto.PageResponse;
 import com.kerem.phinance.service.BudgetService;
+import com.kerem.phinance.util.FieldSelection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -27,24 +30,30 @@ public class BudgetController {
 
     @GetMapping
     @Operation(summary = "Get budgets by month")
-    public ResponseEntity<Page<BudgetDto>> getBudgetsByMonth(
+    public ResponseEntity<PageResponse<BudgetDto>> getBudgetsByMonth(
             @RequestParam(required = false) Integer year,
             @RequestParam(required = false) Integer month,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "allocatedAmount") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDirection) {
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            @RequestParam(required = false) String fields,
+            @ModelAttribute BudgetFilterDto filter) {
 
         Sort.Direction direction = sortDirection.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        FieldSelection selection = FieldSelection.parse(fields, BudgetService.LIST_FIELDS);
 
         // If year and month are provided, filter by them
         if (year != null && month != null) {
-            return ResponseEntity.ok(budgetService.getBudgetsByMonthPaginated(year, month, pageable));
+            return ResponseEntity.ok(PageResponse.of(budgetService.getBudgetsByMonthPaginated(
+                    year, month, filter, pageable, includeTotal, selection), selection));
         }
 
         // Otherwise, return all budgets
-        return ResponseEntity.ok(budgetService.getAllBudgetsPaginated(pageable));
+        return ResponseEntity.ok(PageResponse.of(
+                budgetService.getAllBudgetsPaginated(filter, pageable, includeTotal, selection), selection));
     }
 
     @GetMapping("/{id}")
@@ -65,6 +74,13 @@ public class BudgetController {
                 year1, month1, year2, month2));
     }
 
+    @GetMapping("/comparison")
+    @Operation(summary = "Compare budgets per category across periods")
+    public ResponseEntity<BudgetComparisonDto> comparePeriods(
+            @RequestParam List<String> periods) {
+        return ResponseEntity.ok(budgetService.comparePeriods(periods));
+    }
+
     @PostMapping
     @Operation(summary = "Create a new budget")
     public ResponseEntity<BudgetDto> createBudget(
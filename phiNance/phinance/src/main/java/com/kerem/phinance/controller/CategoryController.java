@@ -1,13 +1,14 @@
 package com.kerem.phinance.controller;
 
 import com.kerem.phinance.dto.CategoryDto;
+import com.kerem.phinance.dto.PageResponse;
 import com.kerem.phinance.model.Category;
 import com.kerem.phinance.service.CategoryService;
+import com.kerem.phinance.util.FieldSelection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -28,15 +29,19 @@ public class CategoryController {
 
     @GetMapping
     @Operation(summary = "Get all categories")
-    public ResponseEntity<Page<CategoryDto>> getAllCategories(
+    public ResponseEntity<PageResponse<CategoryDto>> getAllCategories(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection) {
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            @RequestParam(required = false) String fields) {
 
         Sort.Direction direction = sortDirection.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(categoryService.getCategoriesPaginated(pageable));
+        FieldSelection selection = FieldSelection.parse(fields, CategoryService.LIST_FIELDS);
+        return ResponseEntity.ok(PageResponse.of(
+                categoryService.getCategoriesPaginated(pageable, includeTotal, selection), selection));
     }
 
     @GetMapping("/type/{type}")
@@ -1,15 +1,23 @@
 package com.kerem.phinance.controller;
 
 import com.kerem.phinance.dto.DashboardDto;
+import com.kerem.phinance.dto.NetWorthHistoryDto;
+import com.kerem.phinance.dto.TimeSeriesDto;
+import com.kerem.phinance.service.AnalyticsService;
 import com.kerem.phinance.service.DashboardService;
+import com.kerem.phinance.service.NetWorthHistoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @RequiredArgsConstructor
@@ -17,10 +25,30 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final AnalyticsService analyticsService;
+    private final NetWorthHistoryService netWorthHistoryService;
 
     @GetMapping
     @Operation(summary = "Get dashboard data")
     public ResponseEntity<DashboardDto> getDashboard() {
         return ResponseEntity.ok(dashboardService.getDashboard());
     }
+
+    @GetMapping("/time-series")
+    @Operation(summary = "Get income, expense and net series for a date range")
+    public ResponseEntity<TimeSeriesDto> getTimeSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "MONTH") TimeSeriesDto.Granularity granularity,
+            @RequestParam(defaultValue = "NONE") TimeSeriesDto.GroupBy groupBy) {
+        return ResponseEntity.ok(analyticsService.getTimeSeries(startDate, endDate, granularity, groupBy));
+    }
+
+    @GetMapping("/net-worth")
+    @Operation(summary = "Get daily net worth and account balances for a date range")
+    public ResponseEntity<NetWorthHistoryDto> getNetWorthHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(netWorthHistoryService.getNetWorthHistory(startDate, endDate));
+    }
 }
@@ -1,10 +1,15 @@
 package com.kerem.phinance.controller;
 
+import com.kerem.phinance.dto.AttachmentFile;
+import com.kerem.phinance.dto.FileUploadResult;
+import com.kerem.phinance.security.FileUrlSigner;
 import com.kerem.phinance.security.SecurityUtils;
 import com.kerem.phinance.service.FileService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +17,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
 import java.util.List;
 
 @Slf4j
@@ -20,6 +26,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FileController {
 
+    // Stored files are named by their content hash, so a URL never changes content
+    private static final Duration IMMUTABLE_MAX_AGE = Duration.ofDays(365);
+
+    private static final String THUMBNAIL_SIZE = "thumb";
+
     private final FileService fileService;
 
     @PostMapping("/upload")
@@ -30,19 +41,34 @@ public class FileController {
         return ResponseEntity.ok(fileUrls);
     }
 
+    /**
+     * Same form as /upload, read part by part from the request body. Files
+     * are reported one by one, including those that were rejected.
+     */
+    @PostMapping(value = "/upload/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<FileUploadResult>> streamUploads(HttpServletRequest request) {
+        return ResponseEntity.ok(fileService.streamUploads(request));
+    }
+
     @GetMapping("/{userId}/{filename:.+}")
     public ResponseEntity<Resource> downloadFile(
             @PathVariable String userId,
             @PathVariable String filename,
-            @RequestParam(required = false) String token,
+            @RequestParam(name = FileUrlSigner.EXPIRES_PARAM, required = false) String expires,
+            @RequestParam(name = FileUrlSigner.SIGNATURE_PARAM, required = false) String signature,
+            @RequestParam(required = false) String size,
             Authentication authentication) {
 
+        if (size != null && !THUMBNAIL_SIZE.equals(size)) {
+            return ResponseEntity.badRequest().build();
+        }
+
         // SECURITY: Prevent path traversal attacks
         if (filename.contains("..") || filename.contains("//") || filename.contains("\\\\")) {
             return ResponseEntity.badRequest().build();
         }
 
-        // Security: Get userId from authenticated session or validate token
+        // Security: Get userId from authenticated session or validate the signature
         String currentUserId = null;
 
         // Try to get from authenticated session first
@@ -51,23 +77,30 @@ public class FileController {
             try {
                 currentUserId = SecurityUtils.getCurrentUserId();
             } catch (Exception e) {
-                // Not authenticated via session, will try token
+                // Not authenticated via session, will try the signature
                 log.debug("Could not get userId from session", e);
             }
         }
 
-        Resource resource = fileService.getFileWithAuth(userId, filename, token, currentUserId);
+        AttachmentFile file = fileService.getFileWithAuth(userId, filename, expires, signature, currentUserId,
+                THUMBNAIL_SIZE.equals(size));
 
-        if (resource == null) {
+        if (file == null) {
             return ResponseEntity.notFound().build();
         }
 
-        String contentType = fileService.getContentType(userId, filename);
-
+        // A matching If-None-Match or If-Modified-Since is answered with 304
+        // before the body is opened, and a Range header is served as 206
+        // regions of the file
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+                .contentType(MediaType.parseMediaType(file.getContentType()))
+                .eTag(file.getEtag())
+                .lastModified(file.getLastModified())
+                .cacheControl(file.isImmutable()
+                        ? CacheControl.maxAge(IMMUTABLE_MAX_AGE).cachePrivate().immutable()
+                        : CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getFilename() + "\"")
+                .body(file.getResource());
     }
 
     @DeleteMapping("/{userId}/{filename:.+}")
@@ -2,12 +2,14 @@ package com.kerem.phinance.controller;
 
 import com.kerem.phinance.dto.GoalContributionDto;
 import com.kerem.phinance.dto.GoalDto;
+import com.kerem.phinance.dto.GoalFilterDto;
+import com.kerem.phinance.dto.PageResponse;
 import com.kerem.phinance.service.GoalService;
+import com.kerem.phinance.util.FieldSelection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -28,15 +30,20 @@ public class GoalController {
 
     @GetMapping
     @Operation(summary = "Get all goals")
-    public ResponseEntity<Page<GoalDto>> getAllGoals(
+    public ResponseEntity<PageResponse<GoalDto>> getAllGoals(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection) {
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            @RequestParam(required = false) String fields,
+            @ModelAttribute GoalFilterDto filter) {
 
         Sort.Direction direction = sortDirection.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(goalService.getGoalsPaginated(pageable));
+        FieldSelection selection = FieldSelection.parse(fields, GoalService.LIST_FIELDS);
+        return ResponseEntity.ok(PageResponse.of(
+                goalService.getGoalsPaginated(filter, pageable, includeTotal, selection), selection));
     }
 
     @GetMapping("/active")
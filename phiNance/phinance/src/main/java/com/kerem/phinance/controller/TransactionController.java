@@ -2,12 +2,13 @@ package com.kerem.phinance.controller;
 
 import com.kerem.phinance.dto.TransactionDto;
 import com.kerem.phinance.dto.TransactionFilterDto;
+import com.kerem.phinance.dto.PageResponse;
 import com.kerem.phinance.service.TransactionService;
+import com.kerem.phinance.util.FieldSelection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -27,9 +28,10 @@ public class TransactionController {
 
     @GetMapping
     @Operation(summary = "Get all transactions with pagination and filters")
-    public ResponseEntity<Page<TransactionDto>> getTransactions(
+    public ResponseEntity<PageResponse<TransactionDto>> getTransactions(
             @ModelAttribute TransactionFilterDto filter) {
-        return ResponseEntity.ok(transactionService.getTransactions(filter));
+        FieldSelection selection = FieldSelection.parse(filter.getFields(), TransactionService.LIST_FIELDS);
+        return ResponseEntity.ok(PageResponse.of(transactionService.getTransactions(filter, selection), selection));
     }
 
     @GetMapping("/export")
@@ -0,0 +1,22 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Net balance change of an account, either over a whole range (date is null)
+ * or on a single day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceDelta {
+
+    private String accountId;
+    private LocalDate date;
+    private BigDecimal delta;
+}
@@ -1,6 +1,8 @@
 package com.kerem.phinance.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.kerem.phinance.model.Account;
+import com.kerem.phinance.util.FieldSelection;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -10,6 +12,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Data
+@JsonFilter(FieldSelection.FILTER_ID)
 @NoArgsConstructor
 @AllArgsConstructor
 public class AccountDto {
@@ -0,0 +1,43 @@
+package com.kerem.phinance.dto;
+
+import com.kerem.phinance.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountLedgerDto {
+
+    private String accountId;
+    private List<Entry> entries;
+    private boolean hasNext;
+    // Opaque keyset cursor for the next page, null on the last page
+    private String nextCursor;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+
+        private String transactionId;
+        private LocalDate date;
+        private Transaction.TransactionType type;
+        private String categoryId;
+        private String description;
+        // Other side of a transfer, null for income and expenses
+        private String counterpartyAccountId;
+        // Signed effect on this account's balance
+        private BigDecimal amount;
+        // Account balance right after this transaction
+        private BigDecimal balance;
+    }
+}
@@ -0,0 +1,22 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentCleanupReport {
+
+    private long durationMs;
+    private long filesScanned;
+    private long filesDeleted;
+    private long bytesReclaimed;
+    // Spool files left behind by interrupted uploads and thumbnails
+    private long tempFilesDeleted;
+    // Files uploaded before attachment records existed, which are kept
+    private long untrackedFiles;
+}
@@ -0,0 +1,20 @@
+package com.kerem.phinance.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class AttachmentDto {
+
+    private String filename;
+    private String url;
+    // Set for images; serves the original until the thumbnail is ready
+    private String thumbnailUrl;
+    private long size;
+    private String contentType;
+    private String hash;
+    private LocalDateTime createdAt;
+    private List<String> transactionIds;
+}
@@ -0,0 +1,30 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+import java.time.Instant;
+
+/**
+ * A stored attachment and the validators it is served with, taken from its
+ * record (or one stat of files uploaded before records existed) so
+ * conditional requests never open the file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentFile {
+
+    private Resource resource;
+    private String filename;
+    private String contentType;
+    // -1 when not recorded, as for thumbnails
+    private long size;
+    private Instant lastModified;
+    // Strong validator, quoted as sent in the ETag header
+    private String etag;
+    // False while the response stands in for content that is still coming
+    private boolean immutable;
+}
@@ -0,0 +1,16 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentUsageDto {
+
+    private long fileCount;
+    // Distinct stored bytes, so content uploaded more than once counts once
+    private long usedBytes;
+    private long quotaBytes;
+}
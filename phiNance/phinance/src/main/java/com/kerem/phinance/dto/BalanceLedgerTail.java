@@ -0,0 +1,21 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of an account's ledger entries after its checkpoint, and the newest
+ * entry included in that sum.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceLedgerTail {
+
+    private String accountId;
+    private BigDecimal total;
+    private String lastEntryId;
+}
@@ -0,0 +1,43 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceReconciliationReport {
+
+    private LocalDateTime startedAt;
+    private long durationMs;
+    private boolean repair;
+    private int partitions;
+    private int accountsChecked;
+    // Accounts written to during the run are left for the next one
+    private int accountsSkipped;
+    private int balanceDrifts;
+    private int ledgerDrifts;
+    private int repaired;
+    // First drifted accounts only, see BalanceReconciliationService.MAX_REPORTED_DRIFTS
+    private List<Drift> drifts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Drift {
+
+        private String accountId;
+        private String userId;
+        private BigDecimal expectedBalance;
+        private BigDecimal currentBalance;
+        private BigDecimal ledgerBalance;
+    }
+}
@@ -0,0 +1,35 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A user's budgets of one category across the requested periods, with the
+ * category's display fields joined in.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetCategoryPeriods {
+
+    private String categoryId;
+    private String categoryName;
+    private String categoryColor;
+    private String categoryIcon;
+    private List<PeriodAmounts> periods;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PeriodAmounts {
+
+        private int year;
+        private int month;
+        private BigDecimal allocatedAmount;
+        private BigDecimal spentAmount;
+    }
+}
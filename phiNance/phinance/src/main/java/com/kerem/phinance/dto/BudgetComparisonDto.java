@@ -0,0 +1,52 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Budgets of several periods side by side: one row per category, with one
+ * cell per requested period in {@link #periods} order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetComparisonDto {
+
+    // yyyy-MM labels
+    private List<String> periods;
+    private List<Row> rows;
+    private List<Cell> totals;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+
+        private String categoryId;
+        private String categoryName;
+        private String categoryColor;
+        private String categoryIcon;
+        private List<Cell> cells;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cell {
+
+        private boolean budgeted;
+        private BigDecimal allocatedAmount;
+        private BigDecimal spentAmount;
+        private BigDecimal remainingAmount;
+        // Change in spent amount against the previous requested period, null for the first
+        private BigDecimal spentDelta;
+    }
+}
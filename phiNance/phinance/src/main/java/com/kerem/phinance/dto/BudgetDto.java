@@ -1,5 +1,7 @@
 package com.kerem.phinance.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.kerem.phinance.util.FieldSelection;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -9,6 +11,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Data
+@JsonFilter(FieldSelection.FILTER_ID)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BudgetDto {
@@ -0,0 +1,21 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional inclusive ranges on the materialized budget fields.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetFilterDto {
+
+    private Double minSpentPercentage;
+    private Double maxSpentPercentage;
+    private BigDecimal minRemainingAmount;
+    private BigDecimal maxRemainingAmount;
+}
@@ -0,0 +1,22 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetRebuildReport {
+
+    private int year;
+    private int month;
+    private long durationMs;
+    private int partitions;
+    private int budgetsChecked;
+    private int budgetsCorrected;
+    // Budgets written to during the run, or changed again before the write-back
+    private int budgetsSkipped;
+}
@@ -0,0 +1,24 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetRolloverReport {
+
+    // yyyy-MM
+    private String sourcePeriod;
+    private String targetPeriod;
+    private boolean carryForward;
+    private long durationMs;
+    private int partitions;
+    private int budgetsRead;
+    private int budgetsCreated;
+    // Target budgets the user had already created are left as they are
+    private int budgetsExisting;
+}
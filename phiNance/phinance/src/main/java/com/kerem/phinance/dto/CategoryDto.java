@@ -1,6 +1,8 @@
 package com.kerem.phinance.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.kerem.phinance.model.Category;
+import com.kerem.phinance.util.FieldSelection;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -8,6 +10,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
+@JsonFilter(FieldSelection.FILTER_ID)
 @NoArgsConstructor
 @AllArgsConstructor
 public class CategoryDto {
@@ -0,0 +1,20 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of a user's expenses in one category over a date range.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryExpenseTotal {
+
+    private String userId;
+    private String categoryId;
+    private BigDecimal total;
+}
@@ -22,6 +22,10 @@ public class DashboardDto {
     private List<MonthlyData> monthlyData;
     private List<TransactionDto> recentTransactions;
 
+    // Set when some sections could not be loaded before the request deadline
+    private boolean partial;
+    private List<String> unavailableSections;
+
     @Data
     @Builder
     @NoArgsConstructor
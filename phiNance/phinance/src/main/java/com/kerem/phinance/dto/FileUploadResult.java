@@ -0,0 +1,28 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one file of an upload: its signed URL, or why it was rejected.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileUploadResult {
+
+    private String originalFilename;
+    private String url;
+    private long size;
+    private String error;
+
+    public static FileUploadResult failed(String originalFilename, String error) {
+        return FileUploadResult.builder()
+                .originalFilename(originalFilename)
+                .error(error)
+                .build();
+    }
+}
@@ -1,6 +1,8 @@
 package com.kerem.phinance.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.kerem.phinance.model.Goal;
+import com.kerem.phinance.util.FieldSelection;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -13,6 +15,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Data
+@JsonFilter(FieldSelection.FILTER_ID)
 @NoArgsConstructor
 @AllArgsConstructor
 public class GoalDto {
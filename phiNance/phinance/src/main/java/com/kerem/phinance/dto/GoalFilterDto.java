@@ -0,0 +1,17 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional inclusive range on the materialized goal progress.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GoalFilterDto {
+
+    private Double minProgressPercentage;
+    private Double maxProgressPercentage;
+}
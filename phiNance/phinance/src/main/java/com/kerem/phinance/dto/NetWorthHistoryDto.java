@@ -0,0 +1,39 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily closing balances over a date range. Every array is aligned with
+ * {@link #dates}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetWorthHistoryDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<LocalDate> dates;
+    private List<BigDecimal> netWorth;
+    private List<AccountHistory> accounts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AccountHistory {
+
+        private String accountId;
+        private String name;
+        private String color;
+        private List<BigDecimal> balances;
+    }
+}
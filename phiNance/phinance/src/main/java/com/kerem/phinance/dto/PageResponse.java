@@ -0,0 +1,53 @@
+package com.kerem.phinance.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kerem.phinance.util.FieldSelection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Compact page envelope for list endpoints. The totals are only present
+ * when they were asked for.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageResponse<T> {
+
+    private List<T> content;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasNext;
+
+    private Long totalElements;
+
+    private Integer totalPages;
+
+    @JsonIgnore
+    private FieldSelection fields;
+
+    public static <T> PageResponse<T> of(Slice<T> slice) {
+        return of(slice, FieldSelection.all());
+    }
+
+    public static <T> PageResponse<T> of(Slice<T> slice, FieldSelection fields) {
+        Long totalElements = null;
+        Integer totalPages = null;
+        if (slice instanceof Page<T> page) {
+            totalElements = page.getTotalElements();
+            totalPages = page.getTotalPages();
+        }
+        return new PageResponse<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(),
+                totalElements, totalPages, fields);
+    }
+}
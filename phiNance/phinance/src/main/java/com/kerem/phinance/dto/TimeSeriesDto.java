@@ -0,0 +1,57 @@
+package com.kerem.phinance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Income/expense series over a date range. Values are returned as flat arrays
+ * aligned with {@link #buckets}, one array entry per bucket, so long ranges
+ * stay compact on the wire.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Granularity granularity;
+    private GroupBy groupBy;
+    private List<String> buckets;
+    private List<Series> series;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Series {
+
+        // Category or account id; null for the overall series and for uncategorized
+        private String key;
+        private String name;
+        private List<BigDecimal> income;
+        private List<BigDecimal> expense;
+        private List<BigDecimal> net;
+    }
+
+    public enum Granularity {
+        DAY,
+        WEEK,
+        MONTH,
+        QUARTER,
+        YEAR
+    }
+
+    public enum GroupBy {
+        NONE,
+        CATEGORY,
+        ACCOUNT
+    }
+}
@@ -1,6 +1,9 @@
 package com.kerem.phinance.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.util.FieldSelection;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -13,6 +16,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Data
+@JsonFilter(FieldSelection.FILTER_ID)
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -48,4 +52,23 @@ public class TransactionDto {
     private String transferToAccountId;
 
     private List<String> attachmentUrls;
+
+    // Display snapshot of the account and category, read-only
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String accountName;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String accountColor;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String transferToAccountName;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String categoryName;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String categoryColor;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String categoryIcon;
 }
@@ -24,4 +24,8 @@ public class TransactionFilterDto {
     private String sortDirection = "desc";
     private int page = 0;
     private int size = 20;
+    // Count the matches; without it the page only tells whether a next page exists
+    private boolean includeTotal = true;
+    // Comma separated response fields; all fields when absent
+    private String fields;
 }
@@ -0,0 +1,22 @@
+package com.kerem.phinance.dto;
+
+import com.kerem.phinance.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Transaction as seen from one account: its signed effect on the account
+ * balance and the cumulative sum of those effects within the fetched page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionLedgerRow {
+
+    private Transaction transaction;
+    private BigDecimal delta;
+    private BigDecimal runningTotal;
+}
@@ -0,0 +1,23 @@
+package com.kerem.phinance.dto;
+
+import com.kerem.phinance.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of transaction amounts of one type within a period bucket, optionally
+ * split by a grouping key (category or account id).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPeriodTotal {
+
+    private String bucket;
+    private String key;
+    private Transaction.TransactionType type;
+    private BigDecimal total;
+}
@@ -1,11 +1,13 @@
 package com.kerem.phinance.model;
 
+import com.kerem.phinance.util.SortingUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -15,6 +17,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "accounts")
+@CompoundIndex(name = "user_archived_name_ci_idx", def = "{'userId': 1, 'archived': 1, 'name': 1}",
+        collation = SortingUtils.CASE_INSENSITIVE_COLLATION)
 public class Account {
 
     @Id
@@ -40,6 +44,8 @@ public class Account {
 
     private boolean archived = false;
 
+    private LocalDateTime archivedAt;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
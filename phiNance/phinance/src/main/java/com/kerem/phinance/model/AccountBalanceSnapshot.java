@@ -0,0 +1,44 @@
+package com.kerem.phinance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Closing balance of an account at the end of a day. Stored as Decimal128 so
+ * later transaction writes can shift snapshots with {@code $inc}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "account_balance_snapshots")
+@CompoundIndexes({
+    @CompoundIndex(name = "account_date_idx", def = "{'accountId': 1, 'date': 1}", unique = true),
+    @CompoundIndex(name = "user_date_idx", def = "{'userId': 1, 'date': 1}")
+})
+public class AccountBalanceSnapshot {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String accountId;
+
+    private LocalDate date;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal balance;
+
+    private LocalDateTime updatedAt;
+}
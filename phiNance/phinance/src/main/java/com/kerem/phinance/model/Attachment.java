@@ -0,0 +1,71 @@
+package com.kerem.phinance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A stored upload, identified by the SHA-256 of its content within the
+ * owner's space. Uploading the same content again adds a reference to the
+ * existing file instead of writing another copy, and the file is removed
+ * when its last reference is deleted. Downloads are served from this record
+ * without touching the file's metadata on disk.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "attachments")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_filename_idx", def = "{'userId': 1, 'filename': 1}"),
+    @CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1}"),
+    @CompoundIndex(name = "user_transactions_idx", def = "{'userId': 1, 'transactionIds': 1}")
+})
+public class Attachment {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    // Hex SHA-256 of the stored bytes
+    private String hash;
+
+    private String filename;
+
+    private long size;
+
+    private String contentType;
+
+    private int refCount;
+
+    // Downscaled copy stored next to the original, for images only
+    private ThumbnailStatus thumbnailStatus;
+
+    private String thumbnailFilename;
+
+    // Transactions whose attachmentUrls include this file; missing on
+    // records written before links were tracked, until they are backfilled
+    private List<String> transactionIds;
+
+    private LocalDateTime createdAt;
+
+    // Last upload, link or unlink; unlinked files are kept for a grace period after it
+    private LocalDateTime lastReferencedAt;
+
+    public static String idOf(String userId, String hash) {
+        return userId + ":" + hash;
+    }
+
+    public enum ThumbnailStatus {
+        PENDING,
+        READY,
+        FAILED
+    }
+}
@@ -0,0 +1,35 @@
+package com.kerem.phinance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger balance of an account summed up to and including lastEntryId. The
+ * current ledger balance is this balance plus the entries after it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "balance_checkpoints")
+public class BalanceCheckpoint {
+
+    @Id
+    private String accountId;
+
+    private String userId;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal balance;
+
+    private String lastEntryId;
+
+    private LocalDateTime updatedAt;
+}
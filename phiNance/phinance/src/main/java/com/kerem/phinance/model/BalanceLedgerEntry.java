@@ -0,0 +1,50 @@
+package com.kerem.phinance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only record of every change applied to an account balance. Entries
+ * are never updated or deleted; corrections are appended as new entries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "balance_ledger")
+@CompoundIndex(name = "account_id_idx", def = "{'accountId': 1, '_id': 1}")
+public class BalanceLedgerEntry {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String accountId;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal amount;
+
+    // Account.currentBalance right after the change, for auditing only
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal balanceAfter;
+
+    private EntrySource source;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    public enum EntrySource {
+        BALANCE_UPDATE,
+        RECONCILIATION
+    }
+}
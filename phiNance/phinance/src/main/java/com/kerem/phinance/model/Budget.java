@@ -1,14 +1,21 @@
 package com.kerem.phinance.model;
 
+import com.kerem.phinance.util.SortingUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.AccessType;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 
@@ -16,6 +23,19 @@ import java.time.YearMonth;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "budgets")
+@CompoundIndexes({
+    @CompoundIndex(name = "period_id_idx", def = "{'year': 1, 'month': 1, '_id': 1}"),
+    // One budget per category and month; renamed from the non-unique user_category_period_idx
+    @CompoundIndex(name = "user_category_period_uniq_idx", def = "{'userId': 1, 'categoryId': 1, 'year': 1, 'month': 1}",
+            unique = true),
+    // Paged budget lists, sorted or range-filtered; they query with the shared collation
+    @CompoundIndex(name = "user_period_allocated_ci_idx", def = "{'userId': 1, 'year': 1, 'month': 1, 'allocatedAmount': 1}",
+            collation = SortingUtils.CASE_INSENSITIVE_COLLATION),
+    @CompoundIndex(name = "user_period_spent_pct_ci_idx", def = "{'userId': 1, 'year': 1, 'month': 1, 'spentPercentage': 1}",
+            collation = SortingUtils.CASE_INSENSITIVE_COLLATION),
+    @CompoundIndex(name = "user_period_remaining_ci_idx", def = "{'userId': 1, 'year': 1, 'month': 1, 'remainingAmount': 1}",
+            collation = SortingUtils.CASE_INSENSITIVE_COLLATION)
+})
 public class Budget {
 
     @Id
@@ -25,6 +45,8 @@ public class Budget {
 
     private String categoryId;
 
+    // Decimal, not the default string, so the sort indexes order it numerically
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal allocatedAmount;
 
     private BigDecimal spentAmount = BigDecimal.ZERO;
@@ -39,6 +61,15 @@ public class Budget {
 
     private boolean alertAt100Sent = false;
 
+    // Derived from allocated and spent; persisted through the getters on every
+    // save so the database can sort and filter on them
+    @AccessType(AccessType.Type.PROPERTY)
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal remainingAmount;
+
+    @AccessType(AccessType.Type.PROPERTY)
+    private double spentPercentage;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -46,17 +77,25 @@ public class Budget {
     private LocalDateTime updatedAt;
 
     public BigDecimal getRemainingAmount() {
+        return remainingAmount(allocatedAmount, spentAmount);
+    }
+
+    public double getSpentPercentage() {
+        return spentPercentage(allocatedAmount, spentAmount);
+    }
+
+    public static BigDecimal remainingAmount(BigDecimal allocatedAmount, BigDecimal spentAmount) {
         if (allocatedAmount == null) {
             return BigDecimal.ZERO;
         }
         return allocatedAmount.subtract(spentAmount != null ? spentAmount : BigDecimal.ZERO);
     }
 
-    public double getSpentPercentage() {
-        if (allocatedAmount == null || allocatedAmount.compareTo(BigDecimal.ZERO) == 0) {
+    public static double spentPercentage(BigDecimal allocatedAmount, BigDecimal spentAmount) {
+        if (allocatedAmount == null || allocatedAmount.compareTo(BigDecimal.ZERO) == 0 || spentAmount == null) {
             return 0.0;
         }
-        return spentAmount.divide(allocatedAmount, 4, java.math.RoundingMode.HALF_UP)
+        return spentAmount.divide(allocatedAmount, 4, RoundingMode.HALF_UP)
                 .multiply(BigDecimal.valueOf(100))
                 .doubleValue();
     }
@@ -1,11 +1,14 @@
 package com.kerem.phinance.model;
 
+import com.kerem.phinance.util.SortingUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -14,6 +17,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "categories")
+// One per branch of the "own or default" match, so both can be merged in name order
+@CompoundIndexes({
+    @CompoundIndex(name = "user_name_ci_idx", def = "{'userId': 1, 'name': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION),
+    @CompoundIndex(name = "default_name_ci_idx", def = "{'isDefault': 1, 'name': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION)
+})
 public class Category {
 
     @Id
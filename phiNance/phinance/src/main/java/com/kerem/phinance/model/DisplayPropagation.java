@@ -0,0 +1,61 @@
+package com.kerem.phinance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending copy of an account's or category's display fields into the
+ * snapshots on its transactions. There is one per source, so renaming the
+ * same source again before the copy ran only requests it once more. A
+ * marker without a source records that the snapshot backfill was requested.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "display_propagations")
+@CompoundIndex(name = "status_requested_idx", def = "{'status': 1, 'requestedAt': 1}")
+public class DisplayPropagation {
+
+    @Id
+    private String id;
+
+    private Source source;
+
+    private String sourceId;
+
+    private Status status;
+
+    private LocalDateTime requestedAt;
+
+    private LocalDateTime claimedAt;
+
+    private LocalDateTime completedAt;
+
+    private int attempts;
+
+    private long modifiedCount;
+
+    private String lastError;
+
+    public static String idOf(Source source, String sourceId) {
+        return source + ":" + sourceId;
+    }
+
+    public enum Source {
+        ACCOUNT,
+        CATEGORY
+    }
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+}
@@ -1,8 +1,10 @@
 package com.kerem.phinance.model;
 
+import com.kerem.phinance.util.SortingUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -13,6 +15,7 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "favorite_filters")
+@CompoundIndex(name = "user_name_ci_idx", def = "{'userId': 1, 'name': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION)
 public class FavoriteFilter {
 
     @Field("_id")
@@ -1,11 +1,15 @@
 package com.kerem.phinance.model;
 
+import com.kerem.phinance.util.SortingUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.AccessType;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -18,6 +22,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "goals")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_name_ci_idx", def = "{'userId': 1, 'name': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION),
+    @CompoundIndex(name = "user_progress_ci_idx", def = "{'userId': 1, 'progressPercentage': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION)
+})
 public class Goal {
 
     @Id
@@ -49,6 +57,11 @@ public class Goal {
 
     private String icon;
 
+    // Derived from current and target; persisted through the getter on every
+    // save so the database can sort and filter on it
+    @AccessType(AccessType.Type.PROPERTY)
+    private double progressPercentage;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
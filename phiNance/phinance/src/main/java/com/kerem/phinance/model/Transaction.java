@@ -1,11 +1,14 @@
 package com.kerem.phinance.model;
 
+import com.kerem.phinance.util.SortingUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -18,6 +21,19 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "transactions")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_date_idx", def = "{'userId': 1, 'date': 1}"),
+    // Paged transaction list, which queries with the shared collation
+    @CompoundIndex(name = "user_date_ci_idx", def = "{'userId': 1, 'date': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION),
+    // Paged transaction list sorted by account or category name
+    @CompoundIndex(name = "user_account_name_ci_idx", def = "{'userId': 1, 'accountName': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION),
+    @CompoundIndex(name = "user_category_name_ci_idx", def = "{'userId': 1, 'categoryName': 1}", collation = SortingUtils.CASE_INSENSITIVE_COLLATION),
+    // Display snapshot propagation after a category changes
+    @CompoundIndex(name = "category_idx", def = "{'categoryId': 1}"),
+    // Account ledger keyset scans, one per side of a transfer
+    @CompoundIndex(name = "account_date_id_idx", def = "{'accountId': 1, 'date': 1, '_id': 1}"),
+    @CompoundIndex(name = "transfer_to_date_id_idx", def = "{'transferToAccountId': 1, 'date': 1, '_id': 1}")
+})
 public class Transaction {
 
     @Id
@@ -49,6 +65,19 @@ public class Transaction {
 
     private List<String> attachmentUrls = new ArrayList<>();
 
+    // Snapshot of the account and category display fields, kept current by DisplaySnapshotService
+    private String accountName;
+
+    private String accountColor;
+
+    private String transferToAccountName;
+
+    private String categoryName;
+
+    private String categoryColor;
+
+    private String categoryIcon;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
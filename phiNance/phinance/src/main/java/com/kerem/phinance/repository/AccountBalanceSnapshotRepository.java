@@ -0,0 +1,19 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.AccountBalanceSnapshot;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSnapshotRepository extends MongoRepository<AccountBalanceSnapshot, String>,
+        AccountBalanceSnapshotRepositoryCustom {
+
+    @Query("{ 'userId': ?0, 'date': { $gte: ?1, $lte: ?2 } }")
+    List<AccountBalanceSnapshot> findByUserIdAndDateBetween(String userId, LocalDate startDate, LocalDate endDate);
+
+    void deleteByAccountId(String accountId);
+}
@@ -0,0 +1,28 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.AccountBalanceSnapshot;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AccountBalanceSnapshotRepositoryCustom {
+
+    /**
+     * Add the delta to every snapshot of the account dated on or after the
+     * given date.
+     */
+    long shiftBalances(String accountId, LocalDate fromDate, BigDecimal delta);
+
+    /**
+     * Insert or replace the snapshots keyed by (accountId, date) in one bulk
+     * write.
+     */
+    int upsertAll(List<AccountBalanceSnapshot> snapshots);
+
+    /**
+     * The latest snapshot on or before the given date of each of the user's
+     * accounts that has one, in a single aggregation.
+     */
+    List<AccountBalanceSnapshot> findLatestByUserIdOnOrBefore(String userId, LocalDate date);
+}
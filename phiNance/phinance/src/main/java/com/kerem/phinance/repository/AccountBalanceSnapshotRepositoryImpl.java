@@ -0,0 +1,71 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.AccountBalanceSnapshot;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+
+@RequiredArgsConstructor
+public class AccountBalanceSnapshotRepositoryImpl implements AccountBalanceSnapshotRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long shiftBalances(String accountId, LocalDate fromDate, BigDecimal delta) {
+        Query query = new Query(Criteria.where("accountId").is(accountId).and("date").gte(fromDate));
+        Update update = new Update()
+                .inc("balance", new Decimal128(delta))
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateMulti(query, update, AccountBalanceSnapshot.class).getModifiedCount();
+    }
+
+    @Override
+    public int upsertAll(List<AccountBalanceSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountBalanceSnapshot.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (AccountBalanceSnapshot snapshot : snapshots) {
+            Query query = new Query(Criteria.where("accountId").is(snapshot.getAccountId())
+                    .and("date").is(snapshot.getDate()));
+            Update update = new Update()
+                    .set("userId", snapshot.getUserId())
+                    .set("balance", new Decimal128(snapshot.getBalance()))
+                    .set("updatedAt", now);
+            bulk.upsert(query, update);
+        }
+        BulkWriteResult result = bulk.execute();
+        return result.getUpserts().size() + result.getMatchedCount();
+    }
+
+    @Override
+    public List<AccountBalanceSnapshot> findLatestByUserIdOnOrBefore(String userId, LocalDate date) {
+        Aggregation aggregation = Aggregation.newAggregation(AccountBalanceSnapshot.class,
+                match(Criteria.where("userId").is(userId).and("date").lte(date)),
+                sort(Sort.by(Sort.Direction.DESC, "date")),
+                context -> new Document("$group", new Document("_id", "$accountId")
+                        .append("snapshot", new Document("$first", "$$ROOT"))),
+                context -> new Document("$replaceRoot", new Document("newRoot", "$snapshot")));
+
+        return mongoTemplate.aggregate(aggregation, "account_balance_snapshots", AccountBalanceSnapshot.class)
+                .getMappedResults();
+    }
+}
@@ -1,10 +1,33 @@
 package com.kerem.phinance.repository;
 
 import com.kerem.phinance.model.Account;
-import org.springframework.data.domain.Page;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 public interface AccountRepositoryCustom {
 
-    Page<Account> findByUserIdAndArchivedFalseCaseInsensitive(String userId, Pageable pageable);
+    Slice<Account> findByUserIdAndArchivedFalseCaseInsensitive(String userId, Pageable pageable,
+            PageTotal total, FieldSelection fields);
+
+    /**
+     * Keyset batch of all accounts ordered by id, starting after lastId
+     * (from the beginning when null).
+     */
+    List<Account> findBatchAfterId(String lastId, int limit);
+
+    /**
+     * Keyset batch of the accounts that are not archived, ordered by id.
+     */
+    List<Account> findActiveBatchAfterId(String lastId, int limit);
+
+    /**
+     * Set the balance only if it still equals the expected value, so a repair
+     * never overwrites a concurrent update.
+     */
+    boolean compareAndSetBalance(String accountId, BigDecimal expected, BigDecimal newBalance);
 }
@@ -1,15 +1,21 @@
 package com.kerem.phinance.repository;
 
 import com.kerem.phinance.model.Account;
-import org.springframework.data.mongodb.core.query.Collation;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.PagedQueries;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -18,21 +24,36 @@ public class AccountRepositoryImpl implements AccountRepositoryCustom {
     private final MongoTemplate mongoTemplate;
 
     @Override
-    public Page<Account> findByUserIdAndArchivedFalseCaseInsensitive(String userId, Pageable pageable) {
+    public Slice<Account> findByUserIdAndArchivedFalseCaseInsensitive(String userId, Pageable pageable,
+            PageTotal total, FieldSelection fields) {
         Criteria criteria = Criteria.where("userId").is(userId).and("archived").is(false);
-        return executePageableQuery(criteria, pageable);
+        return PagedQueries.find(mongoTemplate, criteria, pageable, Account.class, total, fields);
     }
 
-    private Page<Account> executePageableQuery(Criteria criteria, Pageable pageable) {
-        Query countQuery = new Query(criteria);
-        long total = mongoTemplate.count(countQuery, Account.class);
+    @Override
+    public List<Account> findBatchAfterId(String lastId, int limit) {
+        return findBatchAfterId(new Query(), lastId, limit);
+    }
 
-        Query query = new Query(criteria)
-                .with(pageable)
-                .collation(Collation.of("en"));
+    @Override
+    public List<Account> findActiveBatchAfterId(String lastId, int limit) {
+        return findBatchAfterId(new Query(Criteria.where("archived").is(false)), lastId, limit);
+    }
 
-        List<Account> accounts = mongoTemplate.find(query, Account.class);
+    @Override
+    public boolean compareAndSetBalance(String accountId, BigDecimal expected, BigDecimal newBalance) {
+        Query query = new Query(Criteria.where("id").is(accountId).and("currentBalance").is(expected));
+        Update update = new Update()
+                .set("currentBalance", newBalance)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateFirst(query, update, Account.class).getModifiedCount() > 0;
+    }
 
-        return new PageImpl<>(accounts, pageable, total);
+    private List<Account> findBatchAfterId(Query query, String lastId, int limit) {
+        query.with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+        if (lastId != null) {
+            query.addCriteria(Criteria.where("id").gt(new ObjectId(lastId)));
+        }
+        return mongoTemplate.find(query, Account.class);
     }
 }
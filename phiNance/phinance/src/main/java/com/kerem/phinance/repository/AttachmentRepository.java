@@ -0,0 +1,17 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.Attachment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AttachmentRepository extends MongoRepository<Attachment, String>, AttachmentRepositoryCustom {
+
+    Optional<Attachment> findByUserIdAndFilename(String userId, String filename);
+
+    Slice<Attachment> findByUserId(String userId, Pageable pageable);
+}
@@ -0,0 +1,74 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.Attachment;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface AttachmentRepositoryCustom {
+
+    /**
+     * Atomically add a reference to the user's content with this hash,
+     * creating its record on the first upload. Returns the record after the
+     * increment, so a reference count of one means the content is new.
+     */
+    Attachment addReference(String userId, String hash, String filename, long size, String contentType);
+
+    /**
+     * Atomically drop a reference to the user's stored file. Returns the
+     * record after the decrement, or empty when the file has no references
+     * left to drop.
+     */
+    Optional<Attachment> releaseReference(String userId, String filename);
+
+    /**
+     * Remove the record if it is still unreferenced. Returns whether it was
+     * removed, in which case the caller owns deleting the file.
+     */
+    boolean removeIfUnreferenced(Attachment attachment);
+
+    /**
+     * Set the thumbnail state of the attachment with this id. Returns
+     * whether the record still exists.
+     */
+    boolean updateThumbnail(String id, Attachment.ThumbnailStatus status, String thumbnailFilename);
+
+    /**
+     * Record the transaction as a user of the user's files with these names.
+     */
+    void linkTransaction(String userId, String transactionId, Collection<String> filenames);
+
+    /**
+     * Remove the transaction from the user's files, except those with these
+     * names.
+     */
+    void unlinkTransaction(String userId, String transactionId, Collection<String> keptFilenames);
+
+    /**
+     * Remove the record if no transaction lists it and it was last
+     * referenced before the cutoff. Returns whether it was removed, in which
+     * case the caller owns deleting its files.
+     */
+    boolean removeIfOrphaned(String id, LocalDateTime cutoff);
+
+    /**
+     * Whether any record was written before transaction links were tracked.
+     */
+    boolean existsWithoutTransactionLinks();
+
+    /**
+     * Give records written before transaction links were tracked an empty
+     * list of links, once the links of existing transactions are recorded.
+     * Returns the number of records updated.
+     */
+    long initTransactionLinks();
+
+    /**
+     * Number of distinct files the user stores and their total size.
+     */
+    AttachmentUsage usage(String userId);
+
+    record AttachmentUsage(long fileCount, long totalBytes) {
+    }
+}
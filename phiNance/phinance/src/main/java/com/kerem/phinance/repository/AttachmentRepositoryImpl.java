@@ -0,0 +1,128 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.Attachment;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+
+@RequiredArgsConstructor
+public class AttachmentRepositoryImpl implements AttachmentRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Attachment addReference(String userId, String hash, String filename, long size, String contentType) {
+        Query query = new Query(Criteria.where("id").is(Attachment.idOf(userId, hash)));
+        Update update = new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("hash", hash)
+                .setOnInsert("filename", filename)
+                .setOnInsert("size", size)
+                .setOnInsert("contentType", contentType)
+                .setOnInsert("transactionIds", List.of())
+                .setOnInsert("createdAt", LocalDateTime.now())
+                .set("lastReferencedAt", LocalDateTime.now())
+                .inc("refCount", 1);
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Attachment.class);
+    }
+
+    @Override
+    public Optional<Attachment> releaseReference(String userId, String filename) {
+        Query query = new Query(Criteria.where("userId").is(userId)
+                .and("filename").is(filename)
+                .and("refCount").gt(0));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true), Attachment.class));
+    }
+
+    @Override
+    public boolean removeIfUnreferenced(Attachment attachment) {
+        Query query = new Query(Criteria.where("id").is(attachment.getId()).and("refCount").lte(0));
+        return mongoTemplate.remove(query, Attachment.class).getDeletedCount() > 0;
+    }
+
+    @Override
+    public boolean updateThumbnail(String id, Attachment.ThumbnailStatus status, String thumbnailFilename) {
+        Update update = new Update()
+                .set("thumbnailStatus", status)
+                .set("thumbnailFilename", thumbnailFilename);
+        return mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id)), update, Attachment.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void linkTransaction(String userId, String transactionId, Collection<String> filenames) {
+        if (filenames.isEmpty()) {
+            return;
+        }
+        Query query = new Query(Criteria.where("userId").is(userId).and("filename").in(filenames));
+        Update update = new Update()
+                .addToSet("transactionIds", transactionId)
+                .set("lastReferencedAt", LocalDateTime.now());
+        mongoTemplate.updateMulti(query, update, Attachment.class);
+    }
+
+    @Override
+    public void unlinkTransaction(String userId, String transactionId, Collection<String> keptFilenames) {
+        Query query = new Query(Criteria.where("userId").is(userId)
+                .and("transactionIds").is(transactionId)
+                .and("filename").nin(keptFilenames));
+        Update update = new Update()
+                .pull("transactionIds", transactionId)
+                .set("lastReferencedAt", LocalDateTime.now());
+        mongoTemplate.updateMulti(query, update, Attachment.class);
+    }
+
+    @Override
+    public boolean removeIfOrphaned(String id, LocalDateTime cutoff) {
+        // Records written before reference times were tracked lack the
+        // field; those without links are kept until the links are backfilled
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").is(id),
+                Criteria.where("transactionIds").size(0),
+                new Criteria().orOperator(
+                        Criteria.where("lastReferencedAt").lt(cutoff),
+                        Criteria.where("lastReferencedAt").exists(false).and("createdAt").lt(cutoff))));
+        return mongoTemplate.remove(query, Attachment.class).getDeletedCount() > 0;
+    }
+
+    @Override
+    public boolean existsWithoutTransactionLinks() {
+        return mongoTemplate.exists(new Query(Criteria.where("transactionIds").exists(false)), Attachment.class);
+    }
+
+    @Override
+    public long initTransactionLinks() {
+        return mongoTemplate.updateMulti(new Query(Criteria.where("transactionIds").exists(false)),
+                new Update().set("transactionIds", List.of()), Attachment.class).getModifiedCount();
+    }
+
+    @Override
+    public AttachmentUsage usage(String userId) {
+        Aggregation aggregation = Aggregation.newAggregation(Attachment.class,
+                match(Criteria.where("userId").is(userId)),
+                context -> new Document("$group", new Document("_id", null)
+                        .append("fileCount", new Document("$sum", 1))
+                        .append("totalBytes", new Document("$sum", "$size"))));
+        Document result = mongoTemplate.aggregate(aggregation, "attachments", Document.class)
+                .getUniqueMappedResult();
+        if (result == null) {
+            return new AttachmentUsage(0, 0);
+        }
+        return new AttachmentUsage(((Number) result.get("fileCount")).longValue(),
+                ((Number) result.get("totalBytes")).longValue());
+    }
+}
@@ -0,0 +1,9 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.BalanceCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BalanceCheckpointRepository extends MongoRepository<BalanceCheckpoint, String> {
+}
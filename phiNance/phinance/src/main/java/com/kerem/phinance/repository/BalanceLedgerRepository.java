@@ -0,0 +1,14 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.BalanceLedgerEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceLedgerRepository extends MongoRepository<BalanceLedgerEntry, String>,
+        BalanceLedgerRepositoryCustom {
+
+    Optional<BalanceLedgerEntry> findFirstByAccountIdOrderByIdAsc(String accountId);
+}
@@ -0,0 +1,17 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.dto.BalanceLedgerTail;
+
+import java.util.List;
+import java.util.Map;
+
+public interface BalanceLedgerRepositoryCustom {
+
+    /**
+     * Sum the ledger entries of each account that come after its last
+     * checkpointed entry (the map value, null when the account has no
+     * checkpoint) and before {@code beforeEntryId} when given. Accounts
+     * without entries in that window are absent from the result.
+     */
+    List<BalanceLedgerTail> sumTails(Map<String, String> lastEntryIds, String beforeEntryId);
+}
@@ -0,0 +1,61 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.dto.BalanceLedgerTail;
+import com.kerem.phinance.model.BalanceLedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+
+@RequiredArgsConstructor
+public class BalanceLedgerRepositoryImpl implements BalanceLedgerRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<BalanceLedgerTail> sumTails(Map<String, String> lastEntryIds, String beforeEntryId) {
+        if (lastEntryIds.isEmpty()) {
+            return List.of();
+        }
+
+        // One branch per account so every branch is a range scan on (accountId, _id)
+        List<Criteria> branches = new ArrayList<>();
+        lastEntryIds.forEach((accountId, lastEntryId) -> {
+            Criteria branch = Criteria.where("accountId").is(accountId);
+            if (lastEntryId != null || beforeEntryId != null) {
+                Criteria idRange = branch.and("_id");
+                if (lastEntryId != null) {
+                    idRange.gt(new ObjectId(lastEntryId));
+                }
+                if (beforeEntryId != null) {
+                    idRange.lt(new ObjectId(beforeEntryId));
+                }
+            }
+            branches.add(branch);
+        });
+
+        Aggregation aggregation = Aggregation.newAggregation(BalanceLedgerEntry.class,
+                match(new Criteria().orOperator(branches.toArray(new Criteria[0]))),
+                context -> new Document("$group", new Document("_id", "$accountId")
+                        .append("total", new Document("$sum", "$amount"))
+                        .append("lastEntryId", new Document("$max", "$_id"))));
+
+        return mongoTemplate.aggregate(aggregation, "balance_ledger", Document.class)
+                .getMappedResults().stream()
+                .map(result -> new BalanceLedgerTail(
+                        result.getString("_id"),
+                        result.get("total") instanceof Decimal128 decimal ? decimal.bigDecimalValue() : BigDecimal.ZERO,
+                        result.getObjectId("lastEntryId").toHexString()))
+                .toList();
+    }
+}
@@ -1,12 +1,59 @@
 package com.kerem.phinance.repository;
 
+import com.kerem.phinance.dto.BudgetCategoryPeriods;
+import com.kerem.phinance.dto.BudgetFilterDto;
 import com.kerem.phinance.model.Budget;
-import org.springframework.data.domain.Page;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
 
 public interface BudgetRepositoryCustom {
 
-    Page<Budget> findByUserIdAndYearAndMonthCaseInsensitive(String userId, int year, int month, Pageable pageable);
+    Slice<Budget> findByUserIdAndYearAndMonthCaseInsensitive(String userId, int year, int month,
+            BudgetFilterDto filter, Pageable pageable,
+            PageTotal total, FieldSelection fields);
+
+    Slice<Budget> findByUserIdCaseInsensitive(String userId, BudgetFilterDto filter, Pageable pageable,
+            PageTotal total, FieldSelection fields);
+
+    /**
+     * The user's budgets in the given periods grouped per category, with the
+     * category joined in, in one aggregation.
+     */
+    List<BudgetCategoryPeriods> findByUserIdGroupedByCategory(String userId, List<YearMonth> periods);
+
+    /**
+     * Keyset batch of all budgets of a period ordered by id, starting after
+     * lastId (from the beginning when null).
+     */
+    List<Budget> findBatchByPeriodAfterId(int year, int month, String lastId, int limit);
+
+    /**
+     * Write the corrected spent amounts in one unordered bulk write. Each
+     * update only applies while the budget still has the allocated and spent
+     * amounts it was read with; returns the number of budgets updated.
+     */
+    int bulkUpdateSpentAmounts(List<SpentAmountCorrection> corrections);
+
+    /**
+     * Insert the budgets whose (user, category, year, month) does not exist
+     * yet, in one unordered bulk write; existing budgets are left untouched.
+     * Returns the number of budgets inserted.
+     */
+    int insertMissing(List<Budget> budgets);
+
+    /**
+     * Compute the materialized remaining amount and spent percentage of
+     * budgets stored without them, and convert allocated amounts stored as
+     * strings to decimals. Returns the number of budgets updated.
+     */
+    long backfillDerivedFields();
 
-    Page<Budget> findByUserIdCaseInsensitive(String userId, Pageable pageable);
+    record SpentAmountCorrection(String budgetId, BigDecimal allocatedAmount, BigDecimal expected, BigDecimal spentAmount) {
+    }
 }
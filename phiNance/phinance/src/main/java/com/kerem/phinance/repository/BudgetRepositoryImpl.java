@@ -1,46 +1,236 @@
 package com.kerem.phinance.repository;
 
+import com.kerem.phinance.dto.BudgetCategoryPeriods;
+import com.kerem.phinance.dto.BudgetFilterDto;
 import com.kerem.phinance.model.Budget;
-import org.springframework.data.mongodb.core.query.Collation;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.PagedQueries;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
 import java.util.List;
 
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+
 @RequiredArgsConstructor
 public class BudgetRepositoryImpl implements BudgetRepositoryCustom {
 
+    private static final int DUPLICATE_KEY = 11000;
+
     private final MongoTemplate mongoTemplate;
 
     @Override
-    public Page<Budget> findByUserIdAndYearAndMonthCaseInsensitive(String userId, int year, int month, Pageable pageable) {
+    public Slice<Budget> findByUserIdAndYearAndMonthCaseInsensitive(String userId, int year, int month,
+            BudgetFilterDto filter, Pageable pageable,
+            PageTotal total, FieldSelection fields) {
         Criteria criteria = Criteria.where("userId").is(userId)
                 .and("year").is(year)
                 .and("month").is(month);
-        return executePageableQuery(criteria, pageable);
+        return PagedQueries.find(mongoTemplate, applyFilter(criteria, filter), pageable, Budget.class, total, fields);
     }
 
     @Override
-    public Page<Budget> findByUserIdCaseInsensitive(String userId, Pageable pageable) {
+    public Slice<Budget> findByUserIdCaseInsensitive(String userId, BudgetFilterDto filter, Pageable pageable,
+            PageTotal total, FieldSelection fields) {
         Criteria criteria = Criteria.where("userId").is(userId);
-        return executePageableQuery(criteria, pageable);
+        return PagedQueries.find(mongoTemplate, applyFilter(criteria, filter), pageable, Budget.class, total, fields);
     }
 
-    private Page<Budget> executePageableQuery(Criteria criteria, Pageable pageable) {
-        Query countQuery = new Query(criteria);
-        long total = mongoTemplate.count(countQuery, Budget.class);
+    @Override
+    public List<BudgetCategoryPeriods> findByUserIdGroupedByCategory(String userId, List<YearMonth> periods) {
+        List<Criteria> periodCriteria = periods.stream()
+                .map(period -> Criteria.where("year").is(period.getYear()).and("month").is(period.getMonthValue()))
+                .toList();
+        Criteria criteria = new Criteria().andOperator(
+                Criteria.where("userId").is(userId),
+                new Criteria().orOperator(periodCriteria.toArray(new Criteria[0])));
+
+        // Category ids are stored as strings, categories are keyed by ObjectId
+        Document categoryObjectId = new Document("$convert", new Document("input", "$_id")
+                .append("to", "objectId")
+                .append("onError", null)
+                .append("onNull", null));
+
+        Aggregation aggregation = Aggregation.newAggregation(Budget.class,
+                match(criteria),
+                context -> new Document("$group", new Document("_id", "$categoryId")
+                        .append("periods", new Document("$push", new Document("year", "$year")
+                                .append("month", "$month")
+                                .append("allocatedAmount", new Document("$toDecimal", "$allocatedAmount"))
+                                .append("spentAmount", new Document("$toDecimal", "$spentAmount"))))),
+                context -> new Document("$lookup", new Document("from", "categories")
+                        .append("let", new Document("categoryId", categoryObjectId))
+                        .append("pipeline", Arrays.asList(
+                                new Document("$match", new Document("$expr",
+                                        new Document("$eq", Arrays.asList("$_id", "$$categoryId")))),
+                                new Document("$project", new Document("name", 1).append("color", 1).append("icon", 1))))
+                        .append("as", "category")),
+                context -> new Document("$unwind", new Document("path", "$category")
+                        .append("preserveNullAndEmptyArrays", true)),
+                context -> new Document("$sort", new Document("category.name", 1).append("_id", 1)));
 
+        return mongoTemplate.aggregate(aggregation, "budgets", Document.class)
+                .getMappedResults().stream()
+                .map(result -> {
+                    Document category = result.get("category", Document.class);
+                    List<BudgetCategoryPeriods.PeriodAmounts> amounts = result.getList("periods", Document.class).stream()
+                            .map(period -> new BudgetCategoryPeriods.PeriodAmounts(
+                                    period.getInteger("year"),
+                                    period.getInteger("month"),
+                                    toBigDecimal(period.get("allocatedAmount")),
+                                    toBigDecimal(period.get("spentAmount"))))
+                            .toList();
+                    return new BudgetCategoryPeriods(
+                            result.getString("_id"),
+                            category != null ? category.getString("name") : null,
+                            category != null ? category.getString("color") : null,
+                            category != null ? category.getString("icon") : null,
+                            amounts);
+                })
+                .toList();
+    }
+
+    @Override
+    public List<Budget> findBatchByPeriodAfterId(int year, int month, String lastId, int limit) {
+        Criteria criteria = Criteria.where("year").is(year).and("month").is(month);
+        if (lastId != null) {
+            criteria = criteria.and("id").gt(new ObjectId(lastId));
+        }
         Query query = new Query(criteria)
-                .with(pageable)
-                .collation(Collation.of("en"));
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Budget.class);
+    }
+
+    @Override
+    public int bulkUpdateSpentAmounts(List<SpentAmountCorrection> corrections) {
+        if (corrections.isEmpty()) {
+            return 0;
+        }
 
-        List<Budget> budgets = mongoTemplate.find(query, Budget.class);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Budget.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (SpentAmountCorrection correction : corrections) {
+            Query query = new Query(Criteria.where("id").is(correction.budgetId())
+                    .and("allocatedAmount").is(correction.allocatedAmount())
+                    .and("spentAmount").is(correction.expected()));
+            Update update = new Update()
+                    .set("spentAmount", correction.spentAmount())
+                    .set("remainingAmount", new Decimal128(
+                            Budget.remainingAmount(correction.allocatedAmount(), correction.spentAmount())))
+                    .set("spentPercentage", Budget.spentPercentage(correction.allocatedAmount(), correction.spentAmount()))
+                    .set("updatedAt", now);
+            bulk.updateOne(query, update);
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public int insertMissing(List<Budget> budgets) {
+        if (budgets.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Budget.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (Budget budget : budgets) {
+            Query query = new Query(Criteria.where("userId").is(budget.getUserId())
+                    .and("categoryId").is(budget.getCategoryId())
+                    .and("year").is(budget.getYear())
+                    .and("month").is(budget.getMonth()));
+            Update update = new Update()
+                    .setOnInsert("allocatedAmount", new Decimal128(budget.getAllocatedAmount()))
+                    .setOnInsert("spentAmount", budget.getSpentAmount())
+                    .setOnInsert("remainingAmount", new Decimal128(budget.getRemainingAmount()))
+                    .setOnInsert("spentPercentage", budget.getSpentPercentage())
+                    .setOnInsert("alertThreshold", budget.getAlertThreshold())
+                    .setOnInsert("alertAt80Sent", budget.isAlertAt80Sent())
+                    .setOnInsert("alertAt100Sent", budget.isAlertAt100Sent())
+                    .setOnInsert("createdAt", now)
+                    .setOnInsert("updatedAt", now);
+            bulk.upsert(query, update);
+        }
+        try {
+            return bulk.execute().getUpserts().size();
+        } catch (BulkOperationException e) {
+            // The unique index rejected a budget another run or the user created meanwhile
+            if (e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY)) {
+                return e.getResult().getUpserts().size();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public long backfillDerivedFields() {
+        Document allocated = new Document("$toDecimal", "$allocatedAmount");
+        Document spent = new Document("$toDecimal", new Document("$ifNull", Arrays.asList("$spentAmount", "0")));
+        // Same rounding as Budget.spentPercentage: ratio to 4 places, i.e. percent to 2
+        Document percentage = new Document("$cond", Arrays.asList(
+                new Document("$in", Arrays.asList(allocated, Arrays.asList(null, 0))),
+                0.0,
+                new Document("$toDouble", new Document("$round", Arrays.asList(
+                        new Document("$multiply", Arrays.asList(new Document("$divide", Arrays.asList(spent, allocated)), 100)),
+                        2)))));
+
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("remainingAmount").exists(false),
+                Criteria.where("spentPercentage").exists(false),
+                Criteria.where("allocatedAmount").type(JsonSchemaObject.Type.stringType())));
+        // Raw stage: the typed context would convert the expressions to the Decimal128 field type
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set",
+                new Document("allocatedAmount", allocated)
+                        .append("remainingAmount", new Document("$subtract", Arrays.asList(allocated, spent)))
+                        .append("spentPercentage", percentage))));
+        // By collection name, as the typed query would convert the $type alias to a decimal as well
+        return mongoTemplate.updateMulti(query, update, "budgets").getModifiedCount();
+    }
+
+    private Criteria applyFilter(Criteria criteria, BudgetFilterDto filter) {
+        if (filter == null) {
+            return criteria;
+        }
+        if (filter.getMinSpentPercentage() != null || filter.getMaxSpentPercentage() != null) {
+            Criteria range = criteria.and("spentPercentage");
+            if (filter.getMinSpentPercentage() != null) {
+                range = range.gte(filter.getMinSpentPercentage());
+            }
+            if (filter.getMaxSpentPercentage() != null) {
+                range.lte(filter.getMaxSpentPercentage());
+            }
+        }
+        if (filter.getMinRemainingAmount() != null || filter.getMaxRemainingAmount() != null) {
+            Criteria range = criteria.and("remainingAmount");
+            if (filter.getMinRemainingAmount() != null) {
+                range = range.gte(new Decimal128(filter.getMinRemainingAmount()));
+            }
+            if (filter.getMaxRemainingAmount() != null) {
+                range.lte(new Decimal128(filter.getMaxRemainingAmount()));
+            }
+        }
+        return criteria;
+    }
 
-        return new PageImpl<>(budgets, pageable, total);
+    private BigDecimal toBigDecimal(Object value) {
+        return value instanceof Decimal128 decimal ? decimal.bigDecimalValue() : BigDecimal.ZERO;
     }
 }
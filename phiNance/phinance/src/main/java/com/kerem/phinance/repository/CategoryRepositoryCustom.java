@@ -1,12 +1,24 @@
 package com.kerem.phinance.repository;
 
 import com.kerem.phinance.model.Category;
-import org.springframework.data.domain.Page;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
 
 public interface CategoryRepositoryCustom {
 
-    Page<Category> findByUserIdOrIsDefaultTrueCaseInsensitive(String userId, Pageable pageable);
+    Slice<Category> findByUserIdOrIsDefaultTrueCaseInsensitive(String userId, Pageable pageable,
+            PageTotal total, FieldSelection fields);
+
+    Slice<Category> findByUserIdCaseInsensitive(String userId, Pageable pageable,
+            PageTotal total, FieldSelection fields);
 
-    Page<Category> findByUserIdCaseInsensitive(String userId, Pageable pageable);
+    /**
+     * Keyset batch of all categories ordered by id, starting after lastId
+     * (from the beginning when null).
+     */
+    List<Category> findBatchAfterId(String lastId, int limit);
 }
@@ -1,11 +1,14 @@
 package com.kerem.phinance.repository;
 
 import com.kerem.phinance.model.Category;
-import org.springframework.data.mongodb.core.query.Collation;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.PagedQueries;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -18,30 +21,30 @@ public class CategoryRepositoryImpl implements CategoryRepositoryCustom {
     private final MongoTemplate mongoTemplate;
 
     @Override
-    public Page<Category> findByUserIdOrIsDefaultTrueCaseInsensitive(String userId, Pageable pageable) {
+    public Slice<Category> findByUserIdOrIsDefaultTrueCaseInsensitive(String userId, Pageable pageable,
+            PageTotal total, FieldSelection fields) {
         Criteria criteria = new Criteria().orOperator(
                 Criteria.where("userId").is(userId),
                 Criteria.where("isDefault").is(true)
         );
-        return executePageableQuery(criteria, pageable);
+        return PagedQueries.find(mongoTemplate, criteria, pageable, Category.class, total, fields);
     }
 
     @Override
-    public Page<Category> findByUserIdCaseInsensitive(String userId, Pageable pageable) {
+    public Slice<Category> findByUserIdCaseInsensitive(String userId, Pageable pageable,
+            PageTotal total, FieldSelection fields) {
         Criteria criteria = Criteria.where("userId").is(userId);
-        return executePageableQuery(criteria, pageable);
+        return PagedQueries.find(mongoTemplate, criteria, pageable, Category.class, total, fields);
     }
 
-    private Page<Category> executePageableQuery(Criteria criteria, Pageable pageable) {
-        Query countQuery = new Query(criteria);
-        long total = mongoTemplate.count(countQuery, Category.class);
-
-        Query query = new Query(criteria)
-                .with(pageable)
-                .collation(Collation.of("en"));
-
-        List<Category> categories = mongoTemplate.find(query, Category.class);
-
-        return new PageImpl<>(categories, pageable, total);
+    @Override
+    public List<Category> findBatchAfterId(String lastId, int limit) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(limit);
+        if (lastId != null) {
+            query.addCriteria(Criteria.where("id").gt(new ObjectId(lastId)));
+        }
+        return mongoTemplate.find(query, Category.class);
     }
 }
@@ -0,0 +1,10 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.DisplayPropagation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DisplayPropagationRepository extends MongoRepository<DisplayPropagation, String>,
+        DisplayPropagationRepositoryCustom {
+}
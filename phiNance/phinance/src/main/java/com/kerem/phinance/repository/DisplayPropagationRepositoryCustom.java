@@ -0,0 +1,45 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.DisplayPropagation;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface DisplayPropagationRepositoryCustom {
+
+    /**
+     * Request a propagation for the source, restarting a pending, running or
+     * failed one.
+     */
+    void request(DisplayPropagation.Source source, String sourceId);
+
+    /**
+     * Atomically claim the oldest propagation that is pending, failed with
+     * attempts left and last claimed before retryBefore, or running with a
+     * claim older than staleBefore (its worker died).
+     */
+    Optional<DisplayPropagation> claimNext(LocalDateTime staleBefore, LocalDateTime retryBefore, int maxAttempts);
+
+    /**
+     * Mark the claimed propagation done, unless it was requested again while
+     * it ran, in which case it stays pending.
+     */
+    boolean complete(DisplayPropagation claimed, long modifiedCount);
+
+    /**
+     * Whether the snapshot backfill was requested once already.
+     */
+    boolean isBackfillRequested();
+
+    /**
+     * Record that the snapshot backfill was requested, in a marker that is
+     * never claimed.
+     */
+    void markBackfillRequested();
+
+    /**
+     * Mark the claimed propagation failed, unless it was requested again
+     * while it ran.
+     */
+    boolean fail(DisplayPropagation claimed, String error);
+}
@@ -0,0 +1,92 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.model.DisplayPropagation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class DisplayPropagationRepositoryImpl implements DisplayPropagationRepositoryCustom {
+
+    private static final String BACKFILL_MARKER_ID = "backfill";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void request(DisplayPropagation.Source source, String sourceId) {
+        Query query = new Query(Criteria.where("id").is(DisplayPropagation.idOf(source, sourceId)));
+        Update update = new Update()
+                .set("source", source)
+                .set("sourceId", sourceId)
+                .set("status", DisplayPropagation.Status.PENDING)
+                .set("requestedAt", LocalDateTime.now())
+                .set("attempts", 0)
+                .unset("lastError");
+        mongoTemplate.upsert(query, update, DisplayPropagation.class);
+    }
+
+    @Override
+    public Optional<DisplayPropagation> claimNext(LocalDateTime staleBefore, LocalDateTime retryBefore,
+            int maxAttempts) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(DisplayPropagation.Status.PENDING),
+                Criteria.where("status").is(DisplayPropagation.Status.FAILED)
+                        .and("attempts").lt(maxAttempts)
+                        .and("claimedAt").lt(retryBefore),
+                Criteria.where("status").is(DisplayPropagation.Status.RUNNING).and("claimedAt").lt(staleBefore)))
+                .with(Sort.by(Sort.Direction.ASC, "requestedAt"));
+        Update update = new Update()
+                .set("status", DisplayPropagation.Status.RUNNING)
+                .set("claimedAt", LocalDateTime.now())
+                .inc("attempts", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), DisplayPropagation.class));
+    }
+
+    @Override
+    public boolean complete(DisplayPropagation claimed, long modifiedCount) {
+        Update update = new Update()
+                .set("status", DisplayPropagation.Status.DONE)
+                .set("completedAt", LocalDateTime.now())
+                .set("modifiedCount", modifiedCount)
+                .unset("lastError");
+        return mongoTemplate.updateFirst(unchangedSinceClaim(claimed), update, DisplayPropagation.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean isBackfillRequested() {
+        return mongoTemplate.exists(new Query(Criteria.where("id").is(BACKFILL_MARKER_ID)), DisplayPropagation.class);
+    }
+
+    @Override
+    public void markBackfillRequested() {
+        Update update = new Update()
+                .set("status", DisplayPropagation.Status.DONE)
+                .set("requestedAt", LocalDateTime.now())
+                .set("completedAt", LocalDateTime.now());
+        mongoTemplate.upsert(new Query(Criteria.where("id").is(BACKFILL_MARKER_ID)), update, DisplayPropagation.class);
+    }
+
+    @Override
+    public boolean fail(DisplayPropagation claimed, String error) {
+        Update update = new Update()
+                .set("status", DisplayPropagation.Status.FAILED)
+                .set("lastError", error);
+        return mongoTemplate.updateFirst(unchangedSinceClaim(claimed), update, DisplayPropagation.class)
+                .getModifiedCount() > 0;
+    }
+
+    private Query unchangedSinceClaim(DisplayPropagation claimed) {
+        return new Query(Criteria.where("id").is(claimed.getId())
+                .and("status").is(DisplayPropagation.Status.RUNNING)
+                .and("requestedAt").is(claimed.getRequestedAt()));
+    }
+}
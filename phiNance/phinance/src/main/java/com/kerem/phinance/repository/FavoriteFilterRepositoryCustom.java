@@ -1,10 +1,11 @@
 package com.kerem.phinance.repository;
 
 import com.kerem.phinance.model.FavoriteFilter;
-import org.springframework.data.domain.Page;
+import com.kerem.phinance.util.PageTotal;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface FavoriteFilterRepositoryCustom {
 
-    Page<FavoriteFilter> findByUserIdCaseInsensitive(String userId, Pageable pageable);
+    Slice<FavoriteFilter> findByUserIdCaseInsensitive(String userId, Pageable pageable, PageTotal total);
 }
@@ -1,16 +1,13 @@
 package com.kerem.phinance.repository;
 
 import com.kerem.phinance.model.FavoriteFilter;
-import org.springframework.data.mongodb.core.query.Collation;
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.PagedQueries;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-
-import java.util.List;
 
 @RequiredArgsConstructor
 public class FavoriteFilterRepositoryImpl implements FavoriteFilterRepositoryCustom {
@@ -18,21 +15,8 @@ public class FavoriteFilterRepositoryImpl implements FavoriteFilterRepositoryCus
     private final MongoTemplate mongoTemplate;
 
     @Override
-    public Page<FavoriteFilter> findByUserIdCaseInsensitive(String userId, Pageable pageable) {
+    public Slice<FavoriteFilter> findByUserIdCaseInsensitive(String userId, Pageable pageable, PageTotal total) {
         Criteria criteria = Criteria.where("userId").is(userId);
-        return executePageableQuery(criteria, pageable);
-    }
-
-    private Page<FavoriteFilter> executePageableQuery(Criteria criteria, Pageable pageable) {
-        Query countQuery = new Query(criteria);
-        long total = mongoTemplate.count(countQuery, FavoriteFilter.class);
-
-        Query query = new Query(criteria)
-                .with(pageable)
-                .collation(Collation.of("en"));
-
-        List<FavoriteFilter> filters = mongoTemplate.find(query, FavoriteFilter.class);
-
-        return new PageImpl<>(filters, pageable, total);
+        return PagedQueries.find(mongoTemplate, criteria, pageable, FavoriteFilter.class, total);
     }
 }
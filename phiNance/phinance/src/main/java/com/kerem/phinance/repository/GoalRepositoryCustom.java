@@ -1,10 +1,20 @@
 package com.kerem.phinance.repository;
 
+import com.kerem.phinance.dto.GoalFilterDto;
 import com.kerem.phinance.model.Goal;
-import org.springframework.data.domain.Page;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface GoalRepositoryCustom {
 
-    Page<Goal> findByUserIdCaseInsensitive(String userId, Pageable pageable);
+    Slice<Goal> findByUserIdCaseInsensitive(String userId, GoalFilterDto filter, Pageable pageable,
+            PageTotal total, FieldSelection fields);
+
+    /**
+     * Compute the materialized progress percentage of goals stored without
+     * it. Returns the number of goals updated.
+     */
+    long backfillDerivedFields();
 }
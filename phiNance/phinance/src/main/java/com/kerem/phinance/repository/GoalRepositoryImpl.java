@@ -1,15 +1,20 @@
 package com.kerem.phinance.repository;
 
+import com.kerem.phinance.dto.GoalFilterDto;
 import com.kerem.phinance.model.Goal;
-import org.springframework.data.mongodb.core.query.Collation;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.PagedQueries;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.bson.Document;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
+import java.util.Arrays;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -18,21 +23,36 @@ public class GoalRepositoryImpl implements GoalRepositoryCustom {
     private final MongoTemplate mongoTemplate;
 
     @Override
-    public Page<Goal> findByUserIdCaseInsensitive(String userId, Pageable pageable) {
+    public Slice<Goal> findByUserIdCaseInsensitive(String userId, GoalFilterDto filter, Pageable pageable,
+            PageTotal total, FieldSelection fields) {
         Criteria criteria = Criteria.where("userId").is(userId);
-        return executePageableQuery(criteria, pageable);
+        if (filter != null && (filter.getMinProgressPercentage() != null || filter.getMaxProgressPercentage() != null)) {
+            Criteria range = criteria.and("progressPercentage");
+            if (filter.getMinProgressPercentage() != null) {
+                range = range.gte(filter.getMinProgressPercentage());
+            }
+            if (filter.getMaxProgressPercentage() != null) {
+                range.lte(filter.getMaxProgressPercentage());
+            }
+        }
+        return PagedQueries.find(mongoTemplate, criteria, pageable, Goal.class, total, fields);
     }
 
-    private Page<Goal> executePageableQuery(Criteria criteria, Pageable pageable) {
-        Query countQuery = new Query(criteria);
-        long total = mongoTemplate.count(countQuery, Goal.class);
-
-        Query query = new Query(criteria)
-                .with(pageable)
-                .collation(Collation.of("en"));
-
-        List<Goal> goals = mongoTemplate.find(query, Goal.class);
-
-        return new PageImpl<>(goals, pageable, total);
+    @Override
+    public long backfillDerivedFields() {
+        Document target = new Document("$toDecimal", "$targetAmount");
+        Document current = new Document("$toDecimal", new Document("$ifNull", Arrays.asList("$currentAmount", "0")));
+        // Same rounding as Goal.getProgressPercentage: ratio to 4 places, i.e. percent to 2
+        Document percentage = new Document("$cond", Arrays.asList(
+                new Document("$in", Arrays.asList(target, Arrays.asList(null, 0))),
+                0.0,
+                new Document("$toDouble", new Document("$round", Arrays.asList(
+                        new Document("$multiply", Arrays.asList(new Document("$divide", Arrays.asList(current, target)), 100)),
+                        2)))));
+
+        Query query = new Query(Criteria.where("progressPercentage").exists(false));
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set",
+                new Document("progressPercentage", percentage))));
+        return mongoTemplate.updateMulti(query, update, Goal.class).getModifiedCount();
     }
 }
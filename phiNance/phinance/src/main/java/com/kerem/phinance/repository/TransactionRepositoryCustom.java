@@ -1,16 +1,25 @@
 package com.kerem.phinance.repository;
 
+import com.kerem.phinance.dto.AccountBalanceDelta;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.dto.TimeSeriesDto;
+import com.kerem.phinance.dto.TransactionLedgerRow;
+import com.kerem.phinance.dto.TransactionPeriodTotal;
 import com.kerem.phinance.model.Transaction;
-import org.springframework.data.domain.Page;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepositoryCustom {
-    Page<Transaction> findByFilters(
+    Slice<Transaction> findByFilters(
             String userId,
             LocalDate startDate,
             LocalDate endDate,
@@ -20,7 +29,9 @@ public interface TransactionRepositoryCustom {
             BigDecimal minAmount,
             BigDecimal maxAmount,
             String searchQuery,
-            Pageable pageable
+            Pageable pageable,
+            PageTotal total,
+            FieldSelection fields
     );
 
     List<Transaction> findAllByFilters(
@@ -35,4 +46,103 @@ public interface TransactionRepositoryCustom {
             String searchQuery,
             Sort sort
     );
+
+    /**
+     * Owner and attachment URLs of every transaction with attachments, read
+     * lazily from a cursor. The stream must be closed.
+     */
+    Stream<Transaction> streamAllWithAttachments();
+
+    /**
+     * Transactions matching the filters that have attachments, read lazily
+     * from a cursor. The stream must be closed.
+     */
+    Stream<Transaction> streamWithAttachmentsByFilters(
+            String userId,
+            LocalDate startDate,
+            LocalDate endDate,
+            String accountId,
+            String categoryId,
+            String type,
+            BigDecimal minAmount,
+            BigDecimal maxAmount,
+            String searchQuery,
+            Sort sort
+    );
+
+    List<TransactionPeriodTotal> sumByPeriod(
+            String userId,
+            LocalDate startDate,
+            LocalDate endDate,
+            TimeSeriesDto.Granularity granularity,
+            TimeSeriesDto.GroupBy groupBy
+    );
+
+    /**
+     * Net balance change per account from transactions dated after
+     * {@code afterDate} (exclusive, open when null) up to {@code untilDate}
+     * (inclusive, open when null). Transfers debit the source and credit the
+     * destination account. When {@code byDate} is set the deltas are grouped
+     * per day as well. A null userId spans all users.
+     */
+    List<AccountBalanceDelta> sumBalanceDeltas(
+            String userId,
+            LocalDate afterDate,
+            LocalDate untilDate,
+            boolean byDate
+    );
+
+    /**
+     * Net balance change per account over all transactions touching the
+     * given accounts, used to recompute balances in partitions.
+     */
+    List<AccountBalanceDelta> sumBalanceDeltasForAccounts(Collection<String> accountIds);
+
+    /**
+     * Expense totals per (user, category) within the date range. Results may
+     * include pairs outside the requested combinations of users and categories.
+     */
+    List<CategoryExpenseTotal> sumExpensesByCategory(
+            Collection<String> userIds,
+            Collection<String> categoryIds,
+            LocalDate startDate,
+            LocalDate endDate
+    );
+
+    /**
+     * One keyset page of the account's ledger ordered by (date, id), including
+     * transfers out of and into the account. Running totals are cumulative
+     * within the returned page; callers add them to the balance carried over
+     * from the previous page.
+     */
+    List<TransactionLedgerRow> findLedgerPage(
+            String userId,
+            String accountId,
+            LocalDate afterDate,
+            String afterId,
+            Sort.Direction direction,
+            int limit
+    );
+
+    /**
+     * Copy the account's display fields into the snapshots of its
+     * transactions, on both sides of transfers. Only stale snapshots are
+     * written, so rerunning after an interruption picks up where it stopped.
+     * Returns the number of transactions updated.
+     */
+    long updateAccountDisplay(String accountId, String name, String color);
+
+    /**
+     * Copy the category's display fields into the snapshots of its
+     * transactions, writing only stale snapshots. Returns the number of
+     * transactions updated.
+     */
+    long updateCategoryDisplay(String categoryId, String name, String color, String icon);
+
+    /**
+     * Whether any transaction references an account or category without a
+     * snapshot of its display fields: written before snapshots, or
+     * referencing a deleted account or category.
+     */
+    boolean existsWithoutDisplaySnapshot();
 }
@@ -1,23 +1,39 @@
 package com.kerem.phinance.repository;
 
+import com.kerem.phinance.dto.AccountBalanceDelta;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.dto.TimeSeriesDto;
+import com.kerem.phinance.dto.TransactionLedgerRow;
+import com.kerem.phinance.dto.TransactionPeriodTotal;
 import com.kerem.phinance.model.Transaction;
-import org.springframework.data.mongodb.core.query.Collation;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.PagedQueries;
+import com.kerem.phinance.util.SortingUtils;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
 
@@ -81,7 +97,7 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
     }
 
     @Override
-    public Page<Transaction> findByFilters(
+    public Slice<Transaction> findByFilters(
             String userId,
             LocalDate startDate,
             LocalDate endDate,
@@ -91,7 +107,9 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
             BigDecimal minAmount,
             BigDecimal maxAmount,
             String searchQuery,
-            Pageable pageable
+            Pageable pageable,
+            PageTotal total,
+            FieldSelection fields
     ) {
         List<Criteria> criteriaList = buildCriteria(userId, startDate, endDate, accountId, categoryId,
                 type, null, null, searchQuery); // Don't pass amount filters to criteria
@@ -107,13 +125,7 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
                 || (maxAmount != null && maxAmount.compareTo(BigDecimal.ZERO) > 0);
 
         if (sortByAmount || hasAmountFilter) {
-            // Use aggregation for numeric amount operations
-            Sort.Order amountOrder = pageable.getSort().stream()
-                    .filter(order -> "amount".equals(order.getProperty()))
-                    .findFirst()
-                    .orElse(null);
-
-            List<org.springframework.data.mongodb.core.aggregation.AggregationOperation> operations = new ArrayList<>();
+            List<AggregationOperation> operations = new ArrayList<>();
 
             // Match criteria
             operations.add(match(combinedCriteria));
@@ -134,6 +146,12 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
                     .andExpression("transferToAccountId").as("transferToAccountId")
                     .andExpression("linkedTransactionId").as("linkedTransactionId")
                     .andExpression("attachmentUrls").as("attachmentUrls")
+                    .andExpression("accountName").as("accountName")
+                    .andExpression("accountColor").as("accountColor")
+                    .andExpression("transferToAccountName").as("transferToAccountName")
+                    .andExpression("categoryName").as("categoryName")
+                    .andExpression("categoryColor").as("categoryColor")
+                    .andExpression("categoryIcon").as("categoryIcon")
                     .andExpression("createdAt").as("createdAt")
                     .andExpression("updatedAt").as("updatedAt")
                     .andExpression("_id").as("_id"));
@@ -150,41 +168,44 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
                 operations.add(match(amountCriteria));
             }
 
+            // Count with a $count stage instead of loading every match
+            List<AggregationOperation> countOperations = new ArrayList<>(operations);
+            countOperations.add(count().as("total"));
+
             // Apply sorting
-            if (amountOrder != null) {
-                operations.add(sort(amountOrder.getDirection(), "amountNumeric"));
-            } else if (pageable.getSort().isSorted()) {
-                operations.add(sort(pageable.getSort()));
+            if (pageable.getSort().isSorted()) {
+                operations.add(sort(Sort.by(pageable.getSort().stream()
+                        .map(order -> "amount".equals(order.getProperty())
+                                ? new Sort.Order(order.getDirection(), "amountNumeric")
+                                : order)
+                        .toList())));
             }
 
-            // Count total before pagination
-            Aggregation countAggregation = Aggregation.newAggregation(operations);
-            long total = mongoTemplate.aggregate(countAggregation, "transactions", Transaction.class)
-                    .getMappedResults().size();
-
-            // Add pagination
+            // Add pagination, with one lookahead row for hasNext
             operations.add(skip((long) pageable.getPageNumber() * pageable.getPageSize()));
-            operations.add(limit(pageable.getPageSize()));
+            operations.add(limit(pageable.getPageSize() + 1));
+            if (!fields.isAll()) {
+                operations.add(project(fields.getDocumentFields().toArray(new String[0])));
+            }
 
-            Aggregation aggregation = Aggregation.newAggregation(operations);
+            // Same collation as the other paged lists, so names sort case-insensitively
+            AggregationOptions options = AggregationOptions.builder()
+                    .collation(SortingUtils.getCaseInsensitiveCollation())
+                    .build();
+            Aggregation aggregation = Aggregation.newAggregation(operations).withOptions(options);
             AggregationResults<Transaction> results = mongoTemplate.aggregate(
                     aggregation, "transactions", Transaction.class);
-            List<Transaction> transactions = results.getMappedResults();
 
-            return new PageImpl<>(transactions, pageable, total);
+            return PagedQueries.toSlice(results.getMappedResults(), pageable, total, () -> {
+                Document counted = mongoTemplate.aggregate(
+                        Aggregation.newAggregation(countOperations).withOptions(options),
+                        "transactions", Document.class).getUniqueMappedResult();
+                return counted != null ? ((Number) counted.get("total")).longValue() : 0L;
+            });
         } else {
             // Use regular query for other cases
-            Query query = new Query();
-            if (!criteriaList.isEmpty()) {
-                query.addCriteria(combinedCriteria);
-            }
-
-            long total = mongoTemplate.count(query, Transaction.class);
-            query.with(pageable);
-            query.collation(Collation.of("en"));
-            List<Transaction> transactions = mongoTemplate.find(query, Transaction.class);
-
-            return new PageImpl<>(transactions, pageable, total);
+            Criteria criteria = criteriaList.isEmpty() ? new Criteria() : combinedCriteria;
+            return PagedQueries.find(mongoTemplate, criteria, pageable, Transaction.class, total, fields);
         }
     }
 
@@ -204,6 +225,43 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
         List<Criteria> criteriaList = buildCriteria(userId, startDate, endDate, accountId, categoryId,
                 type, null, null, searchQuery); // Don't pass amount filters to criteria
 
+        try (Stream<Transaction> transactions = streamFiltered(criteriaList, minAmount, maxAmount, sort)) {
+            return transactions.toList();
+        }
+    }
+
+    @Override
+    public Stream<Transaction> streamWithAttachmentsByFilters(
+            String userId,
+            LocalDate startDate,
+            LocalDate endDate,
+            String accountId,
+            String categoryId,
+            String type,
+            BigDecimal minAmount,
+            BigDecimal maxAmount,
+            String searchQuery,
+            Sort sort
+    ) {
+        List<Criteria> criteriaList = buildCriteria(userId, startDate, endDate, accountId, categoryId,
+                type, null, null, searchQuery);
+        criteriaList.add(Criteria.where("attachmentUrls.0").exists(true));
+        return streamFiltered(criteriaList, minAmount, maxAmount, sort);
+    }
+
+    @Override
+    public Stream<Transaction> streamAllWithAttachments() {
+        Query query = new Query(Criteria.where("attachmentUrls.0").exists(true));
+        query.fields().include("userId", "attachmentUrls");
+        return mongoTemplate.stream(query, Transaction.class);
+    }
+
+    private Stream<Transaction> streamFiltered(
+            List<Criteria> criteriaList,
+            BigDecimal minAmount,
+            BigDecimal maxAmount,
+            Sort sort
+    ) {
         Criteria combinedCriteria = criteriaList.isEmpty()
                 ? new Criteria()
                 : new Criteria().andOperator(criteriaList.toArray(new Criteria[0]));
@@ -239,6 +297,12 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
                     .andExpression("transferToAccountId").as("transferToAccountId")
                     .andExpression("linkedTransactionId").as("linkedTransactionId")
                     .andExpression("attachmentUrls").as("attachmentUrls")
+                    .andExpression("accountName").as("accountName")
+                    .andExpression("accountColor").as("accountColor")
+                    .andExpression("transferToAccountName").as("transferToAccountName")
+                    .andExpression("categoryName").as("categoryName")
+                    .andExpression("categoryColor").as("categoryColor")
+                    .andExpression("categoryIcon").as("categoryIcon")
                     .andExpression("createdAt").as("createdAt")
                     .andExpression("updatedAt").as("updatedAt")
                     .andExpression("_id").as("_id"));
@@ -263,9 +327,7 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
             }
 
             Aggregation aggregation = Aggregation.newAggregation(operations);
-            AggregationResults<Transaction> results = mongoTemplate.aggregate(
-                    aggregation, "transactions", Transaction.class);
-            return results.getMappedResults();
+            return mongoTemplate.aggregateStream(aggregation, "transactions", Transaction.class);
         } else {
             // Use regular query for other cases
             Query query = new Query();
@@ -273,7 +335,279 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
                 query.addCriteria(combinedCriteria);
             }
             query.with(sort);
-            return mongoTemplate.find(query, Transaction.class);
+            return mongoTemplate.stream(query, Transaction.class);
         }
     }
+
+    @Override
+    public List<TransactionPeriodTotal> sumByPeriod(
+            String userId,
+            LocalDate startDate,
+            LocalDate endDate,
+            TimeSeriesDto.Granularity granularity,
+            TimeSeriesDto.GroupBy groupBy
+    ) {
+        Criteria criteria = Criteria.where("userId").is(userId)
+                .and("date").gte(startDate).lte(endDate)
+                .and("type").in(Transaction.TransactionType.INCOME, Transaction.TransactionType.EXPENSE);
+
+        Document groupId = new Document("bucket", bucketExpression(granularity))
+                .append("type", "$type");
+        if (groupBy == TimeSeriesDto.GroupBy.CATEGORY) {
+            groupId.append("key", "$categoryId");
+        } else if (groupBy == TimeSeriesDto.GroupBy.ACCOUNT) {
+            groupId.append("key", "$accountId");
+        }
+
+        // Amounts are stored as strings, so they are summed as decimals server-side
+        Aggregation aggregation = Aggregation.newAggregation(Transaction.class,
+                match(criteria),
+                context -> new Document("$group", new Document("_id", groupId)
+                        .append("total", new Document("$sum", new Document("$toDecimal", "$amount")))));
+
+        return mongoTemplate.aggregate(aggregation, "transactions", Document.class)
+                .getMappedResults().stream()
+                .map(result -> {
+                    Document id = result.get("_id", Document.class);
+                    Object total = result.get("total");
+                    return new TransactionPeriodTotal(
+                            id.getString("bucket"),
+                            id.getString("key"),
+                            Transaction.TransactionType.valueOf(id.getString("type")),
+                            total instanceof Decimal128 decimal ? decimal.bigDecimalValue() : BigDecimal.ZERO);
+                })
+                .toList();
+    }
+
+    @Override
+    public List<AccountBalanceDelta> sumBalanceDeltas(
+            String userId,
+            LocalDate afterDate,
+            LocalDate untilDate,
+            boolean byDate
+    ) {
+        Criteria criteria = new Criteria();
+        if (userId != null) {
+            criteria = criteria.and("userId").is(userId);
+        }
+        if (afterDate != null || untilDate != null) {
+            Criteria dateCriteria = criteria.and("date");
+            if (afterDate != null) {
+                dateCriteria.gt(afterDate);
+            }
+            if (untilDate != null) {
+                dateCriteria.lte(untilDate);
+            }
+        }
+        return aggregateBalanceDeltas(criteria, null, byDate);
+    }
+
+    @Override
+    public List<AccountBalanceDelta> sumBalanceDeltasForAccounts(Collection<String> accountIds) {
+        Criteria criteria = new Criteria().orOperator(
+                Criteria.where("accountId").in(accountIds),
+                Criteria.where("transferToAccountId").in(accountIds));
+        return aggregateBalanceDeltas(criteria, accountIds, false);
+    }
+
+    @Override
+    public List<CategoryExpenseTotal> sumExpensesByCategory(
+            Collection<String> userIds,
+            Collection<String> categoryIds,
+            LocalDate startDate,
+            LocalDate endDate
+    ) {
+        Criteria criteria = Criteria.where("userId").in(userIds)
+                .and("date").gte(startDate).lte(endDate)
+                .and("type").is(Transaction.TransactionType.EXPENSE)
+                .and("categoryId").in(categoryIds);
+
+        Aggregation aggregation = Aggregation.newAggregation(Transaction.class,
+                match(criteria),
+                context -> new Document("$group", new Document("_id",
+                        new Document("userId", "$userId").append("categoryId", "$categoryId"))
+                        .append("total", new Document("$sum", new Document("$toDecimal", "$amount")))));
+
+        return mongoTemplate.aggregate(aggregation, "transactions", Document.class)
+                .getMappedResults().stream()
+                .map(result -> {
+                    Document id = result.get("_id", Document.class);
+                    return new CategoryExpenseTotal(
+                            id.getString("userId"),
+                            id.getString("categoryId"),
+                            toBigDecimal(result.get("total")));
+                })
+                .toList();
+    }
+
+    private List<AccountBalanceDelta> aggregateBalanceDeltas(Criteria criteria, Collection<String> accountIds,
+            boolean byDate) {
+        Document amount = new Document("$toDecimal", "$amount");
+        Document negated = new Document("$multiply", Arrays.asList(-1, amount));
+
+        // Each transaction becomes one leg per affected account
+        Document legs = new Document("$cond", Arrays.asList(
+                new Document("$eq", Arrays.asList("$type", Transaction.TransactionType.TRANSFER.name())),
+                Arrays.asList(
+                        new Document("account", "$accountId").append("delta", negated),
+                        new Document("account", "$transferToAccountId").append("delta", amount)),
+                Arrays.asList(
+                        new Document("account", "$accountId").append("delta", new Document("$cond", Arrays.asList(
+                                new Document("$eq", Arrays.asList("$type", Transaction.TransactionType.INCOME.name())),
+                                amount,
+                                negated))))));
+
+        Document groupId = new Document("account", "$legs.account");
+        if (byDate) {
+            groupId.append("date", "$date");
+        }
+
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(match(criteria));
+        operations.add(context -> new Document("$project", new Document("date", 1).append("legs", legs)));
+        operations.add(context -> new Document("$unwind", "$legs"));
+        if (accountIds != null) {
+            // Drop the other side of transfers that leave the requested accounts
+            operations.add(context -> new Document("$match",
+                    new Document("legs.account", new Document("$in", new ArrayList<>(accountIds)))));
+        }
+        operations.add(context -> new Document("$group", new Document("_id", groupId)
+                .append("delta", new Document("$sum", "$legs.delta"))));
+
+        Aggregation aggregation = Aggregation.newAggregation(Transaction.class, operations);
+
+        return mongoTemplate.aggregate(aggregation, "transactions", Document.class)
+                .getMappedResults().stream()
+                .map(result -> {
+                    Document id = result.get("_id", Document.class);
+                    String date = id.getString("date");
+                    return new AccountBalanceDelta(
+                            id.getString("account"),
+                            date != null ? LocalDate.parse(date) : null,
+                            toBigDecimal(result.get("delta")));
+                })
+                .toList();
+    }
+
+    @Override
+    public List<TransactionLedgerRow> findLedgerPage(
+            String userId,
+            String accountId,
+            LocalDate afterDate,
+            String afterId,
+            Sort.Direction direction,
+            int limit
+    ) {
+        boolean ascending = direction.isAscending();
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where("userId").is(userId));
+        criteria.add(new Criteria().orOperator(
+                Criteria.where("accountId").is(accountId),
+                Criteria.where("transferToAccountId").is(accountId)));
+
+        // Keyset: strictly after the last (date, id) of the previous page
+        if (afterDate != null && afterId != null) {
+            // Aggregation matches are not id-converted, so compare against the stored ObjectId
+            Object lastId = ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId;
+            criteria.add(new Criteria().orOperator(
+                    ascending ? Criteria.where("date").gt(afterDate) : Criteria.where("date").lt(afterDate),
+                    new Criteria().andOperator(
+                            Criteria.where("date").is(afterDate),
+                            ascending ? Criteria.where("id").gt(lastId) : Criteria.where("id").lt(lastId))));
+        }
+
+        Document amount = new Document("$toDecimal", "$amount");
+        Document negated = new Document("$multiply", Arrays.asList(-1, amount));
+        Document delta = new Document("$cond", Arrays.asList(
+                new Document("$eq", Arrays.asList("$type", Transaction.TransactionType.TRANSFER.name())),
+                new Document("$cond", Arrays.asList(
+                        new Document("$eq", Arrays.asList("$accountId", accountId)), negated, amount)),
+                new Document("$cond", Arrays.asList(
+                        new Document("$eq", Arrays.asList("$type", Transaction.TransactionType.INCOME.name())),
+                        amount, negated))));
+
+        int order = ascending ? 1 : -1;
+        Aggregation aggregation = Aggregation.newAggregation(Transaction.class,
+                match(new Criteria().andOperator(criteria.toArray(new Criteria[0]))),
+                sort(Sort.by(direction, "date", "id")),
+                limit(limit),
+                context -> new Document("$addFields", new Document("delta", delta)),
+                context -> new Document("$setWindowFields", new Document("sortBy",
+                        new Document("date", order).append("_id", order))
+                        .append("output", new Document("runningTotal", new Document("$sum", "$delta")
+                                .append("window", new Document("documents", Arrays.asList("unbounded", "current")))))));
+
+        return mongoTemplate.aggregate(aggregation, "transactions", Document.class)
+                .getMappedResults().stream()
+                .map(result -> new TransactionLedgerRow(
+                        mongoTemplate.getConverter().read(Transaction.class, result),
+                        toBigDecimal(result.get("delta")),
+                        toBigDecimal(result.get("runningTotal"))))
+                .toList();
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        return value instanceof Decimal128 decimal ? decimal.bigDecimalValue() : BigDecimal.ZERO;
+    }
+
+    /**
+     * Bucket label for the stored ISO date string: yyyy-MM-dd for days and
+     * weeks (the Monday starting the week), yyyy-MM, yyyy-Qn and yyyy.
+     */
+    private Object bucketExpression(TimeSeriesDto.Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> "$date";
+            case WEEK -> new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                    .append("date", new Document("$dateTrunc", new Document("date",
+                            new Document("$dateFromString", new Document("dateString", "$date")))
+                            .append("unit", "week")
+                            .append("startOfWeek", "monday"))));
+            case MONTH -> substring("$date", 0, 7);
+            case QUARTER -> new Document("$concat", Arrays.asList(
+                    substring("$date", 0, 4),
+                    "-Q",
+                    new Document("$toString", new Document("$toInt", new Document("$ceil",
+                            new Document("$divide", Arrays.asList(
+                                    new Document("$toInt", substring("$date", 5, 2)), 3)))))));
+            case YEAR -> substring("$date", 0, 4);
+        };
+    }
+
+    private Document substring(String field, int start, int length) {
+        return new Document("$substrBytes", Arrays.asList(field, start, length));
+    }
+
+    @Override
+    public long updateAccountDisplay(String accountId, String name, String color) {
+        long modified = mongoTemplate.updateMulti(
+                new Query(Criteria.where("accountId").is(accountId).orOperator(
+                        Criteria.where("accountName").ne(name),
+                        Criteria.where("accountColor").ne(color))),
+                new Update().set("accountName", name).set("accountColor", color),
+                Transaction.class).getModifiedCount();
+        return modified + mongoTemplate.updateMulti(
+                new Query(Criteria.where("transferToAccountId").is(accountId)
+                        .and("transferToAccountName").ne(name)),
+                new Update().set("transferToAccountName", name),
+                Transaction.class).getModifiedCount();
+    }
+
+    @Override
+    public long updateCategoryDisplay(String categoryId, String name, String color, String icon) {
+        return mongoTemplate.updateMulti(
+                new Query(Criteria.where("categoryId").is(categoryId).orOperator(
+                        Criteria.where("categoryName").ne(name),
+                        Criteria.where("categoryColor").ne(color),
+                        Criteria.where("categoryIcon").ne(icon))),
+                new Update().set("categoryName", name).set("categoryColor", color).set("categoryIcon", icon),
+                Transaction.class).getModifiedCount();
+    }
+
+    @Override
+    public boolean existsWithoutDisplaySnapshot() {
+        return mongoTemplate.exists(new Query(new Criteria().orOperator(
+                Criteria.where("accountId").exists(true).and("accountName").exists(false),
+                Criteria.where("categoryId").exists(true).and("categoryName").exists(false))),
+                Transaction.class);
+    }
 }
@@ -0,0 +1,79 @@
+package com.kerem.phinance.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Signs pagination cursors that carry values the server computed, such as
+ * a running balance, so clients can hand them back but not alter them.
+ *
+ * A cursor is the payload and an HMAC-SHA256 over it, both base64url
+ * encoded and checked in constant time.
+ */
+@Component
+public class CursorSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public CursorSigner(@Value("${app.cursors.signing-secret:${app.jwt.secret}}") String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        // Fail at startup rather than on the first page
+        newMac();
+    }
+
+    public String sign(String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(data) + "." + encoder.encodeToString(mac(data));
+    }
+
+    /**
+     * The payload of a cursor this signer issued, or empty when the cursor
+     * is malformed or was altered.
+     */
+    public Optional<String> verify(String cursor) {
+        int dot = cursor.indexOf('.');
+        if (dot == -1) {
+            return Optional.empty();
+        }
+        byte[] data;
+        byte[] provided;
+        try {
+            data = Base64.getUrlDecoder().decode(cursor.substring(0, dot));
+            provided = Base64.getUrlDecoder().decode(cursor.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return MessageDigest.isEqual(mac(data), provided)
+                ? Optional.of(new String(data, StandardCharsets.UTF_8))
+                : Optional.empty();
+    }
+
+    private byte[] mac(byte[] data) {
+        // doFinal resets the instance for the next use on this thread
+        return macs.get().doFinal(data);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialise cursor signing", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.kerem.phinance.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Signs file URLs so browsers can load attachments with plain {@code <img>}
+ * and link requests, which carry no Authorization header.
+ *
+ * A signature is an HMAC-SHA256 over the path and an expiry time, checked
+ * in constant time. Expiries are rounded up to the end of the next window,
+ * so a file keeps the same URL, and stays in the browser cache, for a whole
+ * window; a URL is valid for between one and two windows.
+ */
+@Component
+public class FileUrlSigner {
+
+    public static final String EXPIRES_PARAM = "expires";
+    public static final String SIGNATURE_PARAM = "signature";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final long windowSeconds;
+
+    private Clock clock = Clock.systemUTC();
+
+    public FileUrlSigner(@Value("${app.files.signing-secret:${app.jwt.secret}}") String secret,
+            @Value("${app.files.url-window:12h}") Duration window) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.windowSeconds = window.toSeconds();
+        // Fail at startup rather than on the first download
+        newMac();
+    }
+
+    /**
+     * The path with an expiry and signature appended. Any query string of
+     * the given URL, such as an earlier signature, is replaced.
+     */
+    public String sign(String url) {
+        String path = pathOf(url);
+        long now = clock.instant().getEpochSecond();
+        long expires = (now / windowSeconds + 2) * windowSeconds;
+        return path + "?" + EXPIRES_PARAM + "=" + expires + "&" + SIGNATURE_PARAM + "=" + signature(path, expires);
+    }
+
+    public boolean verify(String path, String expires, String signature) {
+        if (expires == null || signature == null) {
+            return false;
+        }
+        long expiresAt;
+        byte[] provided;
+        try {
+            expiresAt = Long.parseLong(expires);
+            provided = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (expiresAt <= clock.instant().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(mac(path, expiresAt), provided);
+    }
+
+    /**
+     * The URL without its query string, as attachment URLs are stored.
+     */
+    public static String pathOf(String url) {
+        int query = url.indexOf('?');
+        return query == -1 ? url : url.substring(0, query);
+    }
+
+    private String signature(String path, long expires) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac(path, expires));
+    }
+
+    private byte[] mac(String path, long expires) {
+        Mac mac = macs.get();
+        // doFinal resets the instance for the next use on this thread
+        mac.update(path.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) '\n');
+        return mac.doFinal(Long.toString(expires).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialise file URL signing", e);
+        }
+    }
+}
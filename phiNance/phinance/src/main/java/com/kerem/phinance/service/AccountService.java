@@ -1,46 +1,88 @@
 package com.kerem.phinance.service;
 
 import com.kerem.phinance.dto.AccountDto;
+import com.kerem.phinance.dto.AccountLedgerDto;
+import com.kerem.phinance.dto.TransactionLedgerRow;
 import com.kerem.phinance.dto.UpdateAccountDto;
+import com.kerem.phinance.exception.BadRequestException;
 import com.kerem.phinance.exception.ResourceNotFoundException;
 import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.BalanceLedgerEntry;
 import com.kerem.phinance.model.Transaction;
 import com.kerem.phinance.model.User;
 import com.kerem.phinance.repository.AccountRepository;
 import com.kerem.phinance.repository.TransactionRepository;
 import com.kerem.phinance.repository.UserRepository;
+import com.kerem.phinance.security.CursorSigner;
 import com.kerem.phinance.security.SecurityUtils;
+import com.kerem.phinance.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+import static com.kerem.phinance.util.FieldSelection.field;
 
 @Service
 public class AccountService {
 
+    static final int MAX_LEDGER_PAGE_SIZE = 200;
+
+    /**
+     * Response fields the list endpoint can be narrowed to, with the stored
+     * fields each is built from.
+     */
+    public static final Map<String, List<String>> LIST_FIELDS = Map.ofEntries(
+            field("name"), field("type"), field("initialBalance"), field("currentBalance"), field("currency"),
+            field("description"), field("color"), field("icon"));
+
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
     private final TransactionService transactionService;
+    private final DashboardCacheService dashboardCacheService;
+    private final NetWorthHistoryService netWorthHistoryService;
+    private final BalanceLedgerService balanceLedgerService;
+    private final PageCountCacheService pageCountCacheService;
+    private final DisplaySnapshotService displaySnapshotService;
+    private final CursorSigner cursorSigner;
 
     public AccountService(AccountRepository accountRepository,
             UserRepository userRepository,
             TransactionRepository transactionRepository,
-            @Lazy TransactionService transactionService) {
+            @Lazy TransactionService transactionService,
+            DashboardCacheService dashboardCacheService,
+            NetWorthHistoryService netWorthHistoryService,
+            BalanceLedgerService balanceLedgerService,
+            PageCountCacheService pageCountCacheService,
+            DisplaySnapshotService displaySnapshotService,
+            CursorSigner cursorSigner) {
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
         this.transactionRepository = transactionRepository;
         this.transactionService = transactionService;
+        this.dashboardCacheService = dashboardCacheService;
+        this.netWorthHistoryService = netWorthHistoryService;
+        this.balanceLedgerService = balanceLedgerService;
+        this.pageCountCacheService = pageCountCacheService;
+        this.displaySnapshotService = displaySnapshotService;
+        this.cursorSigner = cursorSigner;
     }
 
-    public Page<AccountDto> getAccountsPaginated(Pageable pageable) {
+    public Slice<AccountDto> getAccountsPaginated(Pageable pageable, boolean includeTotal, FieldSelection fields) {
         String userId = SecurityUtils.getCurrentUserId();
-        return accountRepository.findByUserIdAndArchivedFalseCaseInsensitive(userId, pageable)
+        return accountRepository.findByUserIdAndArchivedFalseCaseInsensitive(userId, pageable,
+                        pageCountCacheService.totalFor(userId, includeTotal, "accounts"), fields)
                 .map(this::mapToDto);
     }
 
@@ -51,6 +93,89 @@ public class AccountService {
         return mapToDto(account);
     }
 
+    /**
+     * One page of the account's ledger with the balance after each
+     * transaction. Ascending pages start from the initial balance, descending
+     * pages from the current balance; the cursor carries the balance forward so
+     * every page is a single bounded query regardless of the account's age.
+     * Cursors are signed and only accepted for the ledger they were issued
+     * for, so the carried balance cannot be altered.
+     */
+    public AccountLedgerDto getLedger(String accountId, String cursor, int size, Sort.Direction direction) {
+        String userId = SecurityUtils.getCurrentUserId();
+        Account account = accountRepository.findByIdAndUserId(accountId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account", "id", accountId));
+
+        int pageSize = Math.max(1, Math.min(size, MAX_LEDGER_PAGE_SIZE));
+        boolean ascending = direction.isAscending();
+        LedgerCursor position = cursor != null && !cursor.isBlank()
+                ? LedgerCursor.decode(cursorSigner, cursor, userId, accountId, direction)
+                : null;
+
+        BigDecimal anchor;
+        if (position != null) {
+            anchor = position.balance();
+        } else if (ascending) {
+            anchor = account.getInitialBalance() != null ? account.getInitialBalance() : BigDecimal.ZERO;
+        } else {
+            anchor = account.getCurrentBalance();
+        }
+
+        // Fetch one extra row to learn whether another page follows
+        List<TransactionLedgerRow> rows = transactionRepository.findLedgerPage(userId, accountId,
+                position != null ? position.date() : null,
+                position != null ? position.transactionId() : null,
+                direction, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<AccountLedgerDto.Entry> entries = new ArrayList<>(rows.size());
+        for (TransactionLedgerRow row : rows) {
+            Transaction transaction = row.getTransaction();
+            // Newest first: the balance after a row excludes the newer rows above it
+            BigDecimal balance = ascending
+                    ? anchor.add(row.getRunningTotal())
+                    : anchor.subtract(row.getRunningTotal()).add(row.getDelta());
+
+            String counterparty = null;
+            if (transaction.getType() == Transaction.TransactionType.TRANSFER) {
+                counterparty = accountId.equals(transaction.getAccountId())
+                        ? transaction.getTransferToAccountId()
+                        : transaction.getAccountId();
+            }
+
+            entries.add(AccountLedgerDto.Entry.builder()
+                    .transactionId(transaction.getId())
+                    .date(transaction.getDate())
+                    .type(transaction.getType())
+                    .categoryId(transaction.getCategoryId())
+                    .description(transaction.getDescription())
+                    .counterpartyAccountId(counterparty)
+                    .amount(row.getDelta())
+                    .balance(balance)
+                    .build());
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            TransactionLedgerRow last = rows.get(rows.size() - 1);
+            BigDecimal carried = ascending
+                    ? anchor.add(last.getRunningTotal())
+                    : anchor.subtract(last.getRunningTotal());
+            nextCursor = new LedgerCursor(last.getTransaction().getDate(), last.getTransaction().getId(), carried)
+                    .encode(cursorSigner, userId, accountId, direction);
+        }
+
+        return AccountLedgerDto.builder()
+                .accountId(accountId)
+                .entries(entries)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     public AccountDto createAccount(AccountDto dto) {
         String userId = SecurityUtils.getCurrentUserId();
         // Get user's preferred currency
@@ -69,6 +194,7 @@ public class AccountService {
         account.setIcon(dto.getIcon());
 
         Account saved = accountRepository.save(account);
+        dashboardCacheService.invalidate(userId);
         return mapToDto(saved);
     }
 
@@ -76,6 +202,8 @@ public class AccountService {
         String userId = SecurityUtils.getCurrentUserId();
         Account account = accountRepository.findByIdAndUserId(accountId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account", "id", accountId));
+        String previousName = account.getName();
+        String previousColor = account.getColor();
 
         account.setName(dto.getName());
         account.setType(dto.getType());
@@ -84,6 +212,8 @@ public class AccountService {
         account.setIcon(dto.getIcon());
 
         Account saved = accountRepository.save(account);
+        displaySnapshotService.accountChanged(previousName, previousColor, saved);
+        dashboardCacheService.invalidate(userId);
         return mapToDto(saved);
     }
 
@@ -102,7 +232,9 @@ public class AccountService {
         }
 
         account.setArchived(true);
+        account.setArchivedAt(LocalDateTime.now());
         accountRepository.save(account);
+        dashboardCacheService.invalidate(userId);
     }
 
     public void deleteAccount(String accountId) {
@@ -121,6 +253,8 @@ public class AccountService {
 
         // Delete the account
         accountRepository.delete(account);
+        netWorthHistoryService.deleteAccountHistory(accountId);
+        dashboardCacheService.invalidate(userId);
     }
 
     @Transactional
@@ -134,6 +268,9 @@ public class AccountService {
 
         account.setCurrentBalance(newBalance);
         accountRepository.save(account);
+        balanceLedgerService.record(account, isAddition ? amount : amount.negate(),
+                BalanceLedgerEntry.EntrySource.BALANCE_UPDATE);
+        dashboardCacheService.invalidate(account.getUserId());
     }
 
     public boolean accountBelongsToUser(String accountId, String userId) {
@@ -153,4 +290,26 @@ public class AccountService {
         dto.setIcon(account.getIcon());
         return dto;
     }
+
+    private record LedgerCursor(LocalDate date, String transactionId, BigDecimal balance) {
+
+        String encode(CursorSigner signer, String userId, String accountId, Sort.Direction direction) {
+            return signer.sign(String.join("|", userId, accountId, direction.name(),
+                    date.toString(), transactionId, balance.toPlainString()));
+        }
+
+        static LedgerCursor decode(CursorSigner signer, String cursor, String userId, String accountId,
+                Sort.Direction direction) {
+            String[] parts = signer.verify(cursor)
+                    .map(payload -> payload.split("\\|"))
+                    .filter(fields -> fields.length == 6 && fields[0].equals(userId)
+                            && fields[1].equals(accountId) && fields[2].equals(direction.name()))
+                    .orElseThrow(() -> new BadRequestException("Invalid ledger cursor"));
+            try {
+                return new LedgerCursor(LocalDate.parse(parts[3]), parts[4], new BigDecimal(parts[5]));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid ledger cursor");
+            }
+        }
+    }
 }
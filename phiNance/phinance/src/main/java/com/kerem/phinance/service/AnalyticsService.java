@@ -0,0 +1,174 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.TimeSeriesDto;
+import com.kerem.phinance.dto.TransactionPeriodTotal;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.Category;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.CategoryRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class AnalyticsService {
+
+    static final int MAX_BUCKETS = 3660;
+
+    private final TransactionRepository transactionRepository;
+    private final CategoryRepository categoryRepository;
+    private final AccountRepository accountRepository;
+
+    public TimeSeriesDto getTimeSeries(LocalDate startDate, LocalDate endDate,
+            TimeSeriesDto.Granularity granularity, TimeSeriesDto.GroupBy groupBy) {
+        String userId = SecurityUtils.getCurrentUserId();
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date must not be after end date");
+        }
+
+        List<String> buckets = bucketLabels(startDate, endDate, granularity);
+        if (buckets.size() > MAX_BUCKETS) {
+            throw new BadRequestException("Range too large for " + granularity
+                    + " granularity. Maximum " + MAX_BUCKETS + " buckets allowed");
+        }
+
+        List<TransactionPeriodTotal> totals = transactionRepository.sumByPeriod(
+                userId, startDate, endDate, granularity, groupBy);
+
+        Map<String, Integer> bucketIndex = new HashMap<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            bucketIndex.put(buckets.get(i), i);
+        }
+
+        // Pivot the (bucket, key, type) totals into one dense series per key
+        Map<String, BigDecimal[]> incomeByKey = new LinkedHashMap<>();
+        Map<String, BigDecimal[]> expenseByKey = new LinkedHashMap<>();
+        if (groupBy == TimeSeriesDto.GroupBy.NONE) {
+            incomeByKey.put(null, zeros(buckets.size()));
+            expenseByKey.put(null, zeros(buckets.size()));
+        }
+
+        for (TransactionPeriodTotal total : totals) {
+            Integer index = bucketIndex.get(total.getBucket());
+            if (index == null) {
+                continue;
+            }
+            incomeByKey.computeIfAbsent(total.getKey(), k -> zeros(buckets.size()));
+            expenseByKey.computeIfAbsent(total.getKey(), k -> zeros(buckets.size()));
+
+            BigDecimal[] values = total.getType() == Transaction.TransactionType.INCOME
+                    ? incomeByKey.get(total.getKey())
+                    : expenseByKey.get(total.getKey());
+            values[index] = values[index].add(total.getTotal());
+        }
+
+        Map<String, String> names = seriesNames(userId, groupBy);
+        List<TimeSeriesDto.Series> series = incomeByKey.keySet().stream()
+                .map(key -> {
+                    BigDecimal[] income = incomeByKey.get(key);
+                    BigDecimal[] expense = expenseByKey.get(key);
+                    List<BigDecimal> net = new ArrayList<>(buckets.size());
+                    for (int i = 0; i < buckets.size(); i++) {
+                        net.add(income[i].subtract(expense[i]));
+                    }
+                    return TimeSeriesDto.Series.builder()
+                            .key(key)
+                            .name(seriesName(key, groupBy, names))
+                            .income(Arrays.asList(income))
+                            .expense(Arrays.asList(expense))
+                            .net(net)
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        return TimeSeriesDto.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .granularity(granularity)
+                .groupBy(groupBy)
+                .buckets(buckets)
+                .series(series)
+                .build();
+    }
+
+    /**
+     * Labels of every bucket touching the range, in the same format the
+     * aggregation produces, so empty periods are filled with zeros.
+     */
+    static List<String> bucketLabels(LocalDate startDate, LocalDate endDate, TimeSeriesDto.Granularity granularity) {
+        List<String> labels = new ArrayList<>();
+        switch (granularity) {
+            case DAY -> {
+                for (LocalDate d = startDate; !d.isAfter(endDate) && labels.size() <= MAX_BUCKETS; d = d.plusDays(1)) {
+                    labels.add(d.toString());
+                }
+            }
+            case WEEK -> {
+                LocalDate first = startDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                for (LocalDate d = first; !d.isAfter(endDate) && labels.size() <= MAX_BUCKETS; d = d.plusWeeks(1)) {
+                    labels.add(d.toString());
+                }
+            }
+            case MONTH -> {
+                for (YearMonth m = YearMonth.from(startDate); !m.isAfter(YearMonth.from(endDate))
+                        && labels.size() <= MAX_BUCKETS; m = m.plusMonths(1)) {
+                    labels.add(m.toString());
+                }
+            }
+            case QUARTER -> {
+                LocalDate first = YearMonth.from(startDate)
+                        .minusMonths((startDate.getMonthValue() - 1) % 3).atDay(1);
+                for (LocalDate d = first; !d.isAfter(endDate) && labels.size() <= MAX_BUCKETS; d = d.plusMonths(3)) {
+                    labels.add(d.getYear() + "-Q" + d.get(IsoFields.QUARTER_OF_YEAR));
+                }
+            }
+            case YEAR -> {
+                for (int y = startDate.getYear(); y <= endDate.getYear() && labels.size() <= MAX_BUCKETS; y++) {
+                    labels.add(String.valueOf(y));
+                }
+            }
+        }
+        return labels;
+    }
+
+    private Map<String, String> seriesNames(String userId, TimeSeriesDto.GroupBy groupBy) {
+        return switch (groupBy) {
+            case CATEGORY -> categoryRepository.findByUserIdOrIsDefaultTrue(userId).stream()
+                    .collect(Collectors.toMap(Category::getId, Category::getName, (a, b) -> a));
+            case ACCOUNT -> accountRepository.findByUserId(userId).stream()
+                    .collect(Collectors.toMap(Account::getId, Account::getName, (a, b) -> a));
+            case NONE -> Collections.emptyMap();
+        };
+    }
+
+    private String seriesName(String key, TimeSeriesDto.GroupBy groupBy, Map<String, String> names) {
+        if (groupBy == TimeSeriesDto.GroupBy.NONE) {
+            return "Total";
+        }
+        if (key == null) {
+            return "Uncategorized";
+        }
+        return names.getOrDefault(key, groupBy == TimeSeriesDto.GroupBy.CATEGORY
+                ? "Category Deleted" : "Account Deleted");
+    }
+
+    private BigDecimal[] zeros(int size) {
+        BigDecimal[] values = new BigDecimal[size];
+        Arrays.fill(values, BigDecimal.ZERO);
+        return values;
+    }
+}
@@ -0,0 +1,25 @@
+package com.kerem.phinance.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentCleanupScheduler {
+
+    private final AttachmentCleanupService attachmentCleanupService;
+
+    @Scheduled(cron = "${app.attachments.cleanup.cron:0 30 3 * * *}")
+    public void cleanupAttachments() {
+        log.info("Starting orphaned attachment cleanup...");
+
+        try {
+            attachmentCleanupService.sweep();
+        } catch (Exception e) {
+            log.error("Orphaned attachment cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AttachmentCleanupReport;
+import com.kerem.phinance.model.Attachment;
+import com.kerem.phinance.repository.AttachmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Deletes stored files that no transaction uses any more: files whose
+ * transactions were deleted (including with their account), and uploads
+ * that were never attached.
+ *
+ * Stored files are listed lazily and its files checked in batches against
+ * their attachment records with one {@code $in} lookup each. A record no
+ * transaction lists and last referenced longer than the grace period ago is
+ * removed together with its original and thumbnail; the removal is
+ * conditional, so a file linked again meanwhile is kept. Reclaimed bytes are
+ * counted under {@code attachments.cleanup.reclaimed}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentCleanupService {
+
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentStorage attachmentStorage;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.attachments.cleanup.grace-period:1d}")
+    private Duration gracePeriod = Duration.ofDays(1);
+
+    @Value("${app.attachments.cleanup.batch-size:500}")
+    private int batchSize = 500;
+
+    public AttachmentCleanupReport sweep() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        Counts counts = new Counts();
+
+        List<AttachmentStorage.StoredFile> batch = new ArrayList<>(batchSize);
+        try (Stream<AttachmentStorage.StoredFile> files = attachmentStorage.list()) {
+            Iterator<AttachmentStorage.StoredFile> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    sweepBatch(batch, cutoff, counts);
+                    batch.clear();
+                }
+            }
+            sweepBatch(batch, cutoff, counts);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Attachment cleanup stopped listing stored files: {}", e.getMessage(), e);
+        }
+
+        meterRegistry.counter("attachments.cleanup.reclaimed").increment(counts.bytesReclaimed);
+        AttachmentCleanupReport report = AttachmentCleanupReport.builder()
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .filesScanned(counts.filesScanned)
+                .filesDeleted(counts.filesDeleted)
+                .bytesReclaimed(counts.bytesReclaimed)
+                .tempFilesDeleted(counts.tempFilesDeleted)
+                .untrackedFiles(counts.untrackedFiles)
+                .build();
+
+        log.info("Attachment cleanup finished in {} ms: {} files scanned, {} deleted ({} bytes), {} temp files deleted, {} untracked",
+                report.getDurationMs(), report.getFilesScanned(), report.getFilesDeleted(),
+                report.getBytesReclaimed(), report.getTempFilesDeleted(), report.getUntrackedFiles());
+        return report;
+    }
+
+    private void sweepBatch(List<AttachmentStorage.StoredFile> batch, LocalDateTime cutoff, Counts counts) {
+        Instant stagedCutoff = cutoff.atZone(ZoneId.systemDefault()).toInstant();
+        // Originals and thumbnails share their record, keyed by owner and hash
+        Map<String, List<AttachmentStorage.StoredFile>> filesById = new LinkedHashMap<>();
+        for (AttachmentStorage.StoredFile file : batch) {
+            counts.filesScanned++;
+
+            if (file.isStaged()) {
+                if (file.lastModified().isBefore(stagedCutoff) && delete(file.userId(), file.filename())) {
+                    counts.tempFilesDeleted++;
+                    counts.bytesReclaimed += file.size();
+                }
+                continue;
+            }
+            String id = Attachment.idOf(file.userId(), hashOf(file.filename()));
+            filesById.computeIfAbsent(id, key -> new ArrayList<>()).add(file);
+        }
+        if (filesById.isEmpty()) {
+            return;
+        }
+
+        Map<String, Attachment> records = attachmentRepository.findAllById(filesById.keySet()).stream()
+                .collect(Collectors.toMap(Attachment::getId, Function.identity()));
+
+        filesById.forEach((id, files) -> {
+            Attachment record = records.get(id);
+            if (record == null) {
+                // Tombstones are left behind only by a delete that stopped
+                // after removing the record
+                for (AttachmentStorage.StoredFile file : files) {
+                    if (!file.isTombstone()) {
+                        counts.untrackedFiles++;
+                    } else if (delete(file.userId(), file.filename())) {
+                        counts.filesDeleted++;
+                        counts.bytesReclaimed += file.size();
+                    }
+                }
+                return;
+            }
+            if (isOrphaned(record, cutoff)) {
+                deleteWithRecord(record, cutoff, counts);
+            }
+        });
+    }
+
+    private boolean isOrphaned(Attachment record, LocalDateTime cutoff) {
+        LocalDateTime lastReferenced = record.getLastReferencedAt() != null
+                ? record.getLastReferencedAt()
+                : record.getCreatedAt();
+        // Records without links have not been backfilled yet and may be in use
+        return record.getTransactionIds() != null && record.getTransactionIds().isEmpty()
+                && lastReferenced != null && lastReferenced.isBefore(cutoff);
+    }
+
+    /**
+     * Remove the record unless it was linked again meanwhile, and delete
+     * its files with it.
+     */
+    private void deleteWithRecord(Attachment record, LocalDateTime cutoff, Counts counts) {
+        List<String> filenames = record.getThumbnailFilename() != null
+                ? List.of(record.getFilename(), record.getThumbnailFilename())
+                : List.of(record.getFilename());
+        try {
+            for (AttachmentStorage.StoredFile file : attachmentStorage.deleteWithRecord(record.getUserId(), filenames,
+                    () -> attachmentRepository.removeIfOrphaned(record.getId(), cutoff))) {
+                counts.filesDeleted++;
+                counts.bytesReclaimed += file.size();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to delete orphaned attachment {}: {}", record.getId(), e.getMessage());
+        }
+    }
+
+    private boolean delete(String userId, String filename) {
+        try {
+            return attachmentStorage.delete(userId, filename);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to delete orphaned attachment file {}/{}: {}", userId, filename, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String hashOf(String filename) {
+        int dot = filename.indexOf('.');
+        return dot == -1 ? filename : filename.substring(0, dot);
+    }
+
+    private static class Counts {
+        long filesScanned;
+        long filesDeleted;
+        long bytesReclaimed;
+        long tempFilesDeleted;
+        long untrackedFiles;
+    }
+}
@@ -0,0 +1,160 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.TransactionFilterDto;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Packs the attachments of every transaction matching a filter into one ZIP,
+ * for handing a year of receipts to an accountant.
+ *
+ * Transactions are read from a cursor and each file is copied from storage
+ * into the response as it is reached, so memory use does not grow with the
+ * number or size of files. The CSV manifest, one row per file, is spooled
+ * to a temporary file and added as the last entry.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentExportService {
+
+    static final String MANIFEST_ENTRY = "manifest.csv";
+    private static final List<String> MANIFEST_HEADERS = List.of(
+            "Date", "Type", "Amount", "Account", "Category", "Description", "File", "Status");
+
+    private final TransactionRepository transactionRepository;
+    private final AttachmentStorage attachmentStorage;
+
+    /**
+     * The ZIP as a response body. The user is resolved now, while the
+     * request's security context is still bound to this thread.
+     */
+    public StreamingResponseBody exportAttachments(TransactionFilterDto filter) {
+        String userId = SecurityUtils.getCurrentUserId();
+        return out -> writeZip(userId, filter, out);
+    }
+
+    void writeZip(String userId, TransactionFilterDto filter, OutputStream out) throws IOException {
+        Path manifest = Files.createTempFile("attachment-manifest-", ".csv");
+        try {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            try (BufferedWriter rows = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8);
+                    Stream<Transaction> transactions = transactionRepository.streamWithAttachmentsByFilters(
+                            userId,
+                            filter.getStartDate(),
+                            filter.getEndDate(),
+                            filter.getAccountId(),
+                            filter.getCategoryId(),
+                            filter.getType(),
+                            filter.getMinAmount(),
+                            filter.getMaxAmount(),
+                            filter.getSearchQuery(),
+                            TransactionService.exportSort(filter))) {
+                writeRow(rows, MANIFEST_HEADERS);
+                // Receipts are JPEG, PNG or PDF and barely deflate
+                zip.setLevel(Deflater.NO_COMPRESSION);
+
+                Iterator<Transaction> iterator = transactions.iterator();
+                while (iterator.hasNext()) {
+                    Transaction transaction = iterator.next();
+                    List<String> filenames = AttachmentService.filenamesOf(userId, transaction.getAttachmentUrls());
+                    for (int i = 0; i < filenames.size(); i++) {
+                        String entry = entryName(transaction, i + 1, filenames.get(i));
+                        boolean written = writeEntry(zip, userId, filenames.get(i), entry);
+                        writeRow(rows, List.of(
+                                String.valueOf(transaction.getDate()),
+                                String.valueOf(transaction.getType()),
+                                transaction.getAmount() != null ? transaction.getAmount().toPlainString() : "",
+                                nullToEmpty(transaction.getAccountName()),
+                                nullToEmpty(transaction.getCategoryName()),
+                                nullToEmpty(transaction.getDescription()),
+                                written ? entry : "",
+                                written ? "included" : "missing"));
+                    }
+                }
+            }
+
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+            Files.copy(manifest, zip);
+            zip.closeEntry();
+            zip.finish();
+        } finally {
+            Files.deleteIfExists(manifest);
+        }
+    }
+
+    /**
+     * Copy one stored file into the ZIP. The file is opened before its entry
+     * is started, so a missing file leaves no empty entry behind.
+     */
+    private boolean writeEntry(ZipOutputStream zip, String userId, String filename, String entry)
+            throws IOException {
+        InputStream in;
+        try {
+            in = attachmentStorage.load(userId, filename).getInputStream();
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            log.warn("Attachment {} of user {} is missing from storage", filename, userId);
+            return false;
+        }
+        try (in) {
+            zip.putNextEntry(new ZipEntry(entry));
+            in.transferTo(zip);
+            zip.closeEntry();
+        }
+        return true;
+    }
+
+    /**
+     * Named by date and transaction, so the files sort chronologically and
+     * a receipt attached to several transactions appears under each.
+     */
+    static String entryName(Transaction transaction, int index, String filename) {
+        int dot = filename.lastIndexOf('.');
+        String extension = dot == -1 ? "" : filename.substring(dot);
+        return "receipts/" + transaction.getDate() + "_" + transaction.getId() + "_" + index + extension;
+    }
+
+    private static void writeRow(BufferedWriter rows, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                rows.write(',');
+            }
+            rows.write(csvCell(cells.get(i)));
+        }
+        rows.write("\r\n");
+    }
+
+    static String csvCell(String value) {
+        // Spreadsheets evaluate cells starting with these as formulas
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) != -1) {
+            value = "'" + value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,195 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AttachmentDto;
+import com.kerem.phinance.dto.AttachmentUsageDto;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Attachment;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AttachmentRepository;
+import com.kerem.phinance.repository.AttachmentRepositoryCustom.AttachmentUsage;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.FileUrlSigner;
+import com.kerem.phinance.security.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Listing, storage quota and transaction links of the attachment records
+ * written at upload time.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttachmentService {
+
+    private static final String FILES_PATH = "/api/files/";
+
+    private final AttachmentRepository attachmentRepository;
+    private final TransactionRepository transactionRepository;
+    private final FileUrlSigner fileUrlSigner;
+
+    @Value("${app.attachments.quota-bytes:104857600}")
+    private long quotaBytes = 100L * 1024 * 1024;
+
+    public Slice<AttachmentDto> getAttachments(Pageable pageable) {
+        String userId = SecurityUtils.getCurrentUserId();
+        return attachmentRepository.findByUserId(userId, pageable).map(this::mapToDto);
+    }
+
+    public AttachmentUsageDto getUsage() {
+        String userId = SecurityUtils.getCurrentUserId();
+        AttachmentUsage usage = attachmentRepository.usage(userId);
+        return new AttachmentUsageDto(usage.fileCount(), usage.totalBytes(), quotaBytes);
+    }
+
+    /**
+     * Reject an upload of this many bytes when it could take the user over
+     * their quota. Content the user already stores is not written again, so
+     * this errs on the side of rejecting.
+     */
+    public void checkQuota(String userId, long incomingBytes) {
+        if (incomingBytes > remainingQuota(userId)) {
+            throw new BadRequestException(quotaExceededMessage());
+        }
+    }
+
+    /**
+     * Bytes the user can still store before reaching their quota.
+     */
+    public long remainingQuota(String userId) {
+        return quotaBytes - attachmentRepository.usage(userId).totalBytes();
+    }
+
+    public String quotaExceededMessage() {
+        return "Attachment storage quota of " + quotaBytes / (1024 * 1024) + "MB exceeded";
+    }
+
+    /**
+     * Point the user's files at the transaction that now lists them, and
+     * drop the transaction from files it no longer lists.
+     */
+    public void linkTransaction(String userId, String transactionId, List<String> attachmentUrls) {
+        List<String> filenames = filenamesOf(userId, attachmentUrls);
+        attachmentRepository.unlinkTransaction(userId, transactionId, filenames);
+        attachmentRepository.linkTransaction(userId, transactionId, filenames);
+    }
+
+    public void unlinkTransaction(String userId, String transactionId) {
+        attachmentRepository.unlinkTransaction(userId, transactionId, List.of());
+    }
+
+    /**
+     * Record the links of transactions saved before links were tracked, so
+     * the cleanup can tell which of those files are still in use. Does
+     * nothing once every record has its links. Returns the number of
+     * records that had none.
+     */
+    public long backfillTransactionLinks() {
+        if (!attachmentRepository.existsWithoutTransactionLinks()) {
+            return 0;
+        }
+        try (Stream<Transaction> transactions = transactionRepository.streamAllWithAttachments()) {
+            transactions.forEach(transaction -> attachmentRepository.linkTransaction(transaction.getUserId(),
+                    transaction.getId(), filenamesOf(transaction.getUserId(), transaction.getAttachmentUrls())));
+        }
+        return attachmentRepository.initTransactionLinks();
+    }
+
+    /**
+     * Attachment URLs as stored on transactions: without the signature,
+     * which is added again whenever they are read. Links to files of other
+     * users are rejected, as reading them back would sign them.
+     */
+    public static List<String> unsignedUrls(String userId, List<String> attachmentUrls) {
+        if (attachmentUrls == null) {
+            return null;
+        }
+        return attachmentUrls.stream()
+                .map(url -> {
+                    if (url == null || !url.startsWith(FILES_PATH)) {
+                        return url;
+                    }
+                    String filename = filenameOf(userId, url);
+                    if (filename == null) {
+                        throw new BadRequestException("Attachments must be files you uploaded");
+                    }
+                    return fileUrl(userId, filename);
+                })
+                .toList();
+    }
+
+    /**
+     * Sign the links to the owner's own files. Links to any other file are
+     * returned as stored, so they cannot be used to read it.
+     */
+    public List<String> signedUrls(String userId, List<String> attachmentUrls) {
+        if (attachmentUrls == null) {
+            return null;
+        }
+        return attachmentUrls.stream()
+                .map(url -> {
+                    String filename = url != null ? filenameOf(userId, url) : null;
+                    return filename != null ? fileUrlSigner.sign(fileUrl(userId, filename)) : url;
+                })
+                .toList();
+    }
+
+    static String fileUrl(String userId, String filename) {
+        return FILES_PATH + userId + "/" + filename;
+    }
+
+    /**
+     * Stored filenames of the user's own files among the attachment URLs,
+     * which may carry a signature in their query string.
+     */
+    static List<String> filenamesOf(String userId, List<String> attachmentUrls) {
+        List<String> filenames = new ArrayList<>();
+        if (attachmentUrls == null) {
+            return filenames;
+        }
+        for (String url : attachmentUrls) {
+            String filename = url != null ? filenameOf(userId, url) : null;
+            if (filename != null) {
+                filenames.add(filename);
+            }
+        }
+        return filenames;
+    }
+
+    /**
+     * The stored filename when the URL links to one of the user's own
+     * files, otherwise null.
+     */
+    private static String filenameOf(String userId, String url) {
+        String prefix = FILES_PATH + userId + "/";
+        if (!url.startsWith(prefix)) {
+            return null;
+        }
+        int query = url.indexOf('?');
+        String filename = url.substring(prefix.length(), query == -1 ? url.length() : query);
+        return filename.isEmpty() || filename.contains("/") || filename.contains("\\") || filename.contains("..")
+                ? null
+                : filename;
+    }
+
+    private AttachmentDto mapToDto(Attachment attachment) {
+        AttachmentDto dto = new AttachmentDto();
+        dto.setFilename(attachment.getFilename());
+        dto.setUrl(fileUrlSigner.sign(fileUrl(attachment.getUserId(), attachment.getFilename())));
+        if (ThumbnailService.supports(attachment.getContentType())) {
+            dto.setThumbnailUrl(dto.getUrl() + "&size=thumb");
+        }
+        dto.setSize(attachment.getSize());
+        dto.setContentType(attachment.getContentType());
+        dto.setHash(attachment.getHash());
+        dto.setCreatedAt(attachment.getCreatedAt());
+        dto.setTransactionIds(attachment.getTransactionIds());
+        return dto;
+    }
+}
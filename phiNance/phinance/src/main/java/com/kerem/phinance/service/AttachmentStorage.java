@@ -0,0 +1,116 @@
+package com.kerem.phinance.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Where attachment bytes live, addressed by owner and stored filename.
+ *
+ * Content is always streamed in and out in chunks and never held in memory
+ * whole. Writes are staged first and committed under their final name in
+ * one step, so a reader never sees a partial file; staged names end in
+ * {@value #STAGED_SUFFIX}. Files being deleted are first moved aside under
+ * names ending in {@value #TOMBSTONE_SUFFIX}.
+ */
+public interface AttachmentStorage {
+
+    String STAGED_SUFFIX = ".tmp";
+
+    String TOMBSTONE_SUFFIX = ".deleted";
+
+    /**
+     * Stream the content into a new staged file of the user.
+     */
+    StagedFile stage(String userId, InputStream content) throws IOException;
+
+    /**
+     * Publish the staged file under the filename, replacing any file of
+     * that name.
+     */
+    void commit(StagedFile staged, String filename) throws IOException;
+
+    void discard(StagedFile staged) throws IOException;
+
+    /**
+     * The stored file as a resource that can be read any number of times.
+     * Obtaining it does not touch the storage, so responses answered from
+     * the attachment record alone never do.
+     */
+    Resource load(String userId, String filename);
+
+    Optional<StoredFile> stat(String userId, String filename);
+
+    /**
+     * Delete the file. Returns whether it existed.
+     */
+    boolean delete(String userId, String filename) throws IOException;
+
+    /**
+     * Rename the file, replacing any file of the new name. Returns whether
+     * it existed.
+     */
+    boolean move(String userId, String filename, String newFilename) throws IOException;
+
+    /**
+     * Delete the files of an attachment record together with the record.
+     *
+     * The same content is stored under the same name again as soon as the
+     * record is re-created, so the files are moved aside under tombstone
+     * names before the record is removed, and only the tombstones deleted.
+     * If the record cannot be removed because it is in use again, the files
+     * are moved back. Returns the files deleted.
+     */
+    default List<StoredFile> deleteWithRecord(String userId, List<String> filenames, BooleanSupplier removeRecord)
+            throws IOException {
+        List<String> moved = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            if (move(userId, filename, filename + TOMBSTONE_SUFFIX)) {
+                moved.add(filename);
+            }
+        }
+
+        if (!removeRecord.getAsBoolean()) {
+            for (String filename : moved) {
+                move(userId, filename + TOMBSTONE_SUFFIX, filename);
+            }
+            return List.of();
+        }
+
+        List<StoredFile> deleted = new ArrayList<>(moved.size());
+        for (String filename : moved) {
+            Optional<StoredFile> tombstone = stat(userId, filename + TOMBSTONE_SUFFIX);
+            if (delete(userId, filename + TOMBSTONE_SUFFIX)) {
+                tombstone.ifPresent(deleted::add);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Every stored file, staged ones included, listed lazily. The stream
+     * holds open resources and must be closed.
+     */
+    Stream<StoredFile> list() throws IOException;
+
+    record StagedFile(String userId, String name, long size) {
+    }
+
+    record StoredFile(String userId, String filename, long size, Instant lastModified) {
+
+        public boolean isStaged() {
+            return filename.endsWith(STAGED_SUFFIX);
+        }
+
+        public boolean isTombstone() {
+            return filename.endsWith(TOMBSTONE_SUFFIX);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.BalanceLedgerTail;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.BalanceCheckpoint;
+import com.kerem.phinance.model.BalanceLedgerEntry;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.BalanceCheckpointRepository;
+import com.kerem.phinance.repository.BalanceLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only ledger of account balance changes with periodic checkpoints.
+ *
+ * Every {@link AccountService#updateBalance} call appends an entry, so the
+ * ledger balance of an account is its opening balance plus all entries. To
+ * keep that cheap, checkpoints fold the entries older than a safety lag into
+ * a stored sum; a balance is then the checkpoint plus the short tail after it.
+ *
+ * Accounts that existed before the ledger have balances no entry explains,
+ * so the opening balance is the balance before the first entry rather than
+ * the initial balance. It is stored as the account's first checkpoint the
+ * first time the account is read without one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceLedgerService {
+
+    static final int CHECKPOINT_BATCH_SIZE = 500;
+
+    private final BalanceLedgerRepository balanceLedgerRepository;
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final AccountRepository accountRepository;
+
+    // Entries newer than this are left in the tail in case ids from other nodes arrive out of order
+    @Value("${app.balance.ledger.checkpoint-lag:5m}")
+    private Duration checkpointLag = Duration.ofMinutes(5);
+
+    public void record(Account account, BigDecimal amount, BalanceLedgerEntry.EntrySource source) {
+        BalanceLedgerEntry entry = new BalanceLedgerEntry();
+        entry.setUserId(account.getUserId());
+        entry.setAccountId(account.getId());
+        entry.setAmount(amount);
+        entry.setBalanceAfter(account.getCurrentBalance());
+        entry.setSource(source);
+        balanceLedgerRepository.insert(entry);
+    }
+
+    public BigDecimal getLedgerBalance(Account account) {
+        return getLedgerBalances(List.of(account)).get(account.getId());
+    }
+
+    /**
+     * Ledger balance of each account: its checkpoint plus the entries
+     * recorded after it.
+     */
+    public Map<String, BigDecimal> getLedgerBalances(List<Account> accounts) {
+        Map<String, BalanceCheckpoint> checkpoints = findCheckpoints(accounts);
+        Map<String, BigDecimal> tails = balanceLedgerRepository.sumTails(lastEntryIds(accounts, checkpoints), null)
+                .stream()
+                .collect(Collectors.toMap(BalanceLedgerTail::getAccountId, BalanceLedgerTail::getTotal));
+
+        Map<String, BigDecimal> balances = new HashMap<>();
+        for (Account account : accounts) {
+            balances.put(account.getId(), checkpoints.get(account.getId()).getBalance()
+                    .add(tails.getOrDefault(account.getId(), BigDecimal.ZERO)));
+        }
+        return balances;
+    }
+
+    /**
+     * Advance the checkpoint of every account past the entries older than the
+     * checkpoint lag. Returns the number of checkpoints written.
+     */
+    public int checkpointAll() {
+        String beforeEntryId = ObjectId.getSmallestWithDate(Date.from(Instant.now().minus(checkpointLag))).toHexString();
+
+        int written = 0;
+        String lastAccountId = null;
+        List<Account> batch;
+        do {
+            batch = accountRepository.findBatchAfterId(lastAccountId, CHECKPOINT_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastAccountId = batch.get(batch.size() - 1).getId();
+            written += checkpoint(batch, beforeEntryId);
+        } while (batch.size() == CHECKPOINT_BATCH_SIZE);
+
+        return written;
+    }
+
+    private int checkpoint(List<Account> accounts, String beforeEntryId) {
+        Map<String, BalanceCheckpoint> checkpoints = findCheckpoints(accounts);
+        Map<String, Account> accountsById = accounts.stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        List<BalanceCheckpoint> updated = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (BalanceLedgerTail tail : balanceLedgerRepository.sumTails(lastEntryIds(accounts, checkpoints), beforeEntryId)) {
+            Account account = accountsById.get(tail.getAccountId());
+            BalanceCheckpoint previous = checkpoints.get(tail.getAccountId());
+
+            BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+            checkpoint.setAccountId(account.getId());
+            checkpoint.setUserId(account.getUserId());
+            checkpoint.setBalance(previous.getBalance().add(tail.getTotal()));
+            checkpoint.setLastEntryId(tail.getLastEntryId());
+            checkpoint.setUpdatedAt(now);
+            updated.add(checkpoint);
+        }
+
+        balanceCheckpointRepository.saveAll(updated);
+        return updated.size();
+    }
+
+    /**
+     * The checkpoint of every account, seeding the missing ones.
+     */
+    private Map<String, BalanceCheckpoint> findCheckpoints(List<Account> accounts) {
+        List<String> accountIds = accounts.stream().map(Account::getId).toList();
+        Map<String, BalanceCheckpoint> checkpoints = new HashMap<>();
+        for (BalanceCheckpoint checkpoint : balanceCheckpointRepository.findAllById(accountIds)) {
+            checkpoints.put(checkpoint.getAccountId(), checkpoint);
+        }
+
+        List<BalanceCheckpoint> seeded = accounts.stream()
+                .filter(account -> !checkpoints.containsKey(account.getId()))
+                .map(this::openingCheckpoint)
+                .toList();
+        if (!seeded.isEmpty()) {
+            // Any checkpoint written concurrently describes the same ledger, so overwriting it is harmless
+            balanceCheckpointRepository.saveAll(seeded);
+            seeded.forEach(checkpoint -> checkpoints.put(checkpoint.getAccountId(), checkpoint));
+            log.info("Seeded balance ledger checkpoints for {} accounts", seeded.size());
+        }
+        return checkpoints;
+    }
+
+    /**
+     * A checkpoint before the first entry of the account. Without entries
+     * that is its current balance: the account was read before the lookup,
+     * and balance updates commit together with their entry.
+     */
+    private BalanceCheckpoint openingCheckpoint(Account account) {
+        BigDecimal opening = balanceLedgerRepository.findFirstByAccountIdOrderByIdAsc(account.getId())
+                .map(first -> first.getBalanceAfter().subtract(first.getAmount()))
+                .orElseGet(() -> currentBalance(account));
+
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAccountId(account.getId());
+        checkpoint.setUserId(account.getUserId());
+        checkpoint.setBalance(opening);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return checkpoint;
+    }
+
+    private Map<String, String> lastEntryIds(List<Account> accounts, Map<String, BalanceCheckpoint> checkpoints) {
+        Map<String, String> lastEntryIds = new HashMap<>();
+        for (Account account : accounts) {
+            BalanceCheckpoint checkpoint = checkpoints.get(account.getId());
+            lastEntryIds.put(account.getId(), checkpoint != null ? checkpoint.getLastEntryId() : null);
+        }
+        return lastEntryIds;
+    }
+
+    private BigDecimal currentBalance(Account account) {
+        if (account.getCurrentBalance() != null) {
+            return account.getCurrentBalance();
+        }
+        return account.getInitialBalance() != null ? account.getInitialBalance() : BigDecimal.ZERO;
+    }
+}
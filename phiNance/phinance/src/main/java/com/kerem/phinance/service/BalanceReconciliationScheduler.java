@@ -0,0 +1,40 @@
+package com.kerem.phinance.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceReconciliationScheduler {
+
+    private final BalanceLedgerService balanceLedgerService;
+    private final BalanceReconciliationService balanceReconciliationService;
+
+    @Value("${app.balance.reconciliation.repair:false}")
+    private boolean repair;
+
+    @Scheduled(cron = "${app.balance.ledger.checkpoint-cron:0 30 * * * *}")
+    public void checkpointLedger() {
+        try {
+            int written = balanceLedgerService.checkpointAll();
+            log.info("Balance ledger checkpoint completed. Written: {}", written);
+        } catch (Exception e) {
+            log.error("Failed to checkpoint balance ledger: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${app.balance.reconciliation.cron:0 0 3 * * *}")
+    public void reconcileBalances() {
+        log.info("Starting balance reconciliation (repair: {})...", repair);
+
+        try {
+            balanceReconciliationService.reconcile(repair);
+        } catch (Exception e) {
+            log.error("Balance reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+}
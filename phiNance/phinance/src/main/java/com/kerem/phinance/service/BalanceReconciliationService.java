@@ -0,0 +1,156 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AccountBalanceDelta;
+import com.kerem.phinance.dto.BalanceReconciliationReport;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.BalanceLedgerEntry;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.util.PartitionedBatchRunner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Recomputes every account balance from its transactions and compares it
+ * with both Account.currentBalance and the balance ledger.
+ *
+ * Accounts are read in keyset batches; each batch is one partition whose
+ * expected balances come from a single aggregation, and partitions run in
+ * parallel through {@link PartitionedBatchRunner}. Accounts modified shortly before or during the
+ * run are skipped, since their transactions and balance may be mid-update.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceReconciliationService {
+
+    static final int MAX_REPORTED_DRIFTS = 100;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceLedgerService balanceLedgerService;
+    private final DashboardCacheService dashboardCacheService;
+
+    @Value("${app.balance.reconciliation.partition-size:500}")
+    private int partitionSize = 500;
+
+    @Value("${app.balance.reconciliation.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${app.balance.reconciliation.grace-period:1m}")
+    private Duration gracePeriod = Duration.ofMinutes(1);
+
+    public BalanceReconciliationReport reconcile(boolean repair) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime stableBefore = startedAt.minus(gracePeriod);
+        long start = System.nanoTime();
+
+        List<PartitionResult> results = PartitionedBatchRunner.run(parallelism, partitionSize,
+                accountRepository::findBatchAfterId,
+                Account::getId,
+                partition -> reconcilePartition(partition, stableBefore, repair));
+
+        BalanceReconciliationReport report = BalanceReconciliationReport.builder()
+                .startedAt(startedAt)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .repair(repair)
+                .partitions(results.size())
+                .accountsChecked(results.stream().mapToInt(PartitionResult::checked).sum())
+                .accountsSkipped(results.stream().mapToInt(PartitionResult::skipped).sum())
+                .balanceDrifts(results.stream().mapToInt(PartitionResult::balanceDrifts).sum())
+                .ledgerDrifts(results.stream().mapToInt(PartitionResult::ledgerDrifts).sum())
+                .repaired(results.stream().mapToInt(PartitionResult::repaired).sum())
+                .drifts(results.stream()
+                        .flatMap(result -> result.drifts().stream())
+                        .limit(MAX_REPORTED_DRIFTS)
+                        .toList())
+                .build();
+
+        log.info("Balance reconciliation finished in {} ms: {} accounts in {} partitions, {} balance drifts, "
+                + "{} ledger drifts, {} repaired, {} skipped", report.getDurationMs(), report.getAccountsChecked(),
+                report.getPartitions(), report.getBalanceDrifts(), report.getLedgerDrifts(), report.getRepaired(),
+                report.getAccountsSkipped());
+        return report;
+    }
+
+    private PartitionResult reconcilePartition(List<Account> accounts, LocalDateTime stableBefore, boolean repair) {
+        List<String> accountIds = accounts.stream().map(Account::getId).toList();
+        Map<String, BigDecimal> deltas = transactionRepository.sumBalanceDeltasForAccounts(accountIds).stream()
+                .collect(Collectors.toMap(AccountBalanceDelta::getAccountId, AccountBalanceDelta::getDelta));
+        Map<String, BigDecimal> ledgerBalances = balanceLedgerService.getLedgerBalances(accounts);
+
+        int skipped = 0;
+        int balanceDrifts = 0;
+        int ledgerDrifts = 0;
+        int repaired = 0;
+        List<BalanceReconciliationReport.Drift> drifts = new ArrayList<>();
+
+        for (Account account : accounts) {
+            if (account.getUpdatedAt() != null && account.getUpdatedAt().isAfter(stableBefore)) {
+                skipped++;
+                continue;
+            }
+
+            BigDecimal initialBalance = account.getInitialBalance() != null ? account.getInitialBalance() : BigDecimal.ZERO;
+            BigDecimal expected = initialBalance.add(deltas.getOrDefault(account.getId(), BigDecimal.ZERO));
+            BigDecimal current = account.getCurrentBalance() != null ? account.getCurrentBalance() : BigDecimal.ZERO;
+            BigDecimal ledger = ledgerBalances.get(account.getId());
+
+            boolean balanceDrift = expected.compareTo(current) != 0;
+            boolean ledgerDrift = expected.compareTo(ledger) != 0;
+            if (!balanceDrift && !ledgerDrift) {
+                continue;
+            }
+
+            if (balanceDrift) {
+                balanceDrifts++;
+            }
+            if (ledgerDrift) {
+                ledgerDrifts++;
+            }
+            if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                drifts.add(BalanceReconciliationReport.Drift.builder()
+                        .accountId(account.getId())
+                        .userId(account.getUserId())
+                        .expectedBalance(expected)
+                        .currentBalance(current)
+                        .ledgerBalance(ledger)
+                        .build());
+            }
+
+            if (repair && repair(account, expected, balanceDrift, ledgerDrift ? expected.subtract(ledger) : null)) {
+                repaired++;
+            }
+        }
+
+        return new PartitionResult(accounts.size(), skipped, balanceDrifts, ledgerDrifts, repaired, drifts);
+    }
+
+    private boolean repair(Account account, BigDecimal expected, boolean balanceDrift, BigDecimal ledgerCorrection) {
+        if (balanceDrift) {
+            // Lost the race with a concurrent update; the next run will look again
+            if (!accountRepository.compareAndSetBalance(account.getId(), account.getCurrentBalance(), expected)) {
+                return false;
+            }
+            account.setCurrentBalance(expected);
+            dashboardCacheService.invalidate(account.getUserId());
+        }
+        if (ledgerCorrection != null) {
+            balanceLedgerService.record(account, ledgerCorrection, BalanceLedgerEntry.EntrySource.RECONCILIATION);
+        }
+        return true;
+    }
+
+    private record PartitionResult(int checked, int skipped, int balanceDrifts, int ledgerDrifts, int repaired,
+            List<BalanceReconciliationReport.Drift> drifts) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.kerem.phinance.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotScheduler {
+
+    private final NetWorthHistoryService netWorthHistoryService;
+
+    // Shortly after midnight, record the closing balances of the day that just ended
+    @Scheduled(cron = "${app.net-worth.snapshot-cron:0 10 0 * * *}")
+    public void snapshotDailyBalances() {
+        LocalDate date = LocalDate.now().minusDays(1);
+        log.info("Writing account balance snapshots for {}...", date);
+
+        try {
+            int written = netWorthHistoryService.snapshotBalances(date);
+            log.info("Balance snapshots for {} completed. Written: {}", date, written);
+        } catch (Exception e) {
+            log.error("Failed to write balance snapshots for {}: {}", date, e.getMessage(), e);
+        }
+    }
+}
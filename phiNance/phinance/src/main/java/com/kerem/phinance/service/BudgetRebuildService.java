@@ -0,0 +1,127 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.BudgetRebuildReport;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Budget;
+import com.kerem.phinance.repository.BudgetRepository;
+import com.kerem.phinance.repository.BudgetRepositoryCustom.SpentAmountCorrection;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.util.PartitionedBatchRunner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recomputes the spent amount of every budget in a period from its expense
+ * transactions and writes back the ones that drifted.
+ *
+ * Budgets are read in keyset batches; each batch is one partition whose
+ * totals come from a single aggregation and whose corrections go out in one
+ * bulk write. Partitions run in parallel through {@link PartitionedBatchRunner}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BudgetRebuildService {
+
+    private final BudgetRepository budgetRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserWriteVersionService userWriteVersionService;
+
+    @Value("${app.budget.rebuild.partition-size:500}")
+    private int partitionSize = 500;
+
+    @Value("${app.budget.rebuild.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${app.budget.rebuild.grace-period:1m}")
+    private Duration gracePeriod = Duration.ofMinutes(1);
+
+    public BudgetRebuildReport rebuild(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new BadRequestException("Month must be between 1 and 12");
+        }
+        YearMonth period = YearMonth.of(year, month);
+        LocalDateTime stableBefore = LocalDateTime.now().minus(gracePeriod);
+        long start = System.nanoTime();
+
+        List<PartitionResult> results = PartitionedBatchRunner.run(parallelism, partitionSize,
+                (lastId, limit) -> budgetRepository.findBatchByPeriodAfterId(year, month, lastId, limit),
+                Budget::getId,
+                partition -> rebuildPartition(partition, period, stableBefore));
+
+        BudgetRebuildReport report = BudgetRebuildReport.builder()
+                .year(year)
+                .month(month)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .partitions(results.size())
+                .budgetsChecked(results.stream().mapToInt(PartitionResult::checked).sum())
+                .budgetsCorrected(results.stream().mapToInt(PartitionResult::corrected).sum())
+                .budgetsSkipped(results.stream().mapToInt(PartitionResult::skipped).sum())
+                .build();
+
+        log.info("Budget rebuild for {} finished in {} ms: {} budgets in {} partitions, {} corrected, {} skipped",
+                period, report.getDurationMs(), report.getBudgetsChecked(), report.getPartitions(),
+                report.getBudgetsCorrected(), report.getBudgetsSkipped());
+        return report;
+    }
+
+    private PartitionResult rebuildPartition(List<Budget> budgets, YearMonth period, LocalDateTime stableBefore) {
+        Set<String> userIds = new HashSet<>();
+        Set<String> categoryIds = new HashSet<>();
+        for (Budget budget : budgets) {
+            userIds.add(budget.getUserId());
+            categoryIds.add(budget.getCategoryId());
+        }
+
+        LocalDate startDate = period.atDay(1);
+        LocalDate endDate = period.atEndOfMonth();
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (CategoryExpenseTotal total : transactionRepository.sumExpensesByCategory(userIds, categoryIds, startDate, endDate)) {
+            totals.put(key(total.getUserId(), total.getCategoryId()), total.getTotal());
+        }
+
+        int skipped = 0;
+        List<SpentAmountCorrection> corrections = new ArrayList<>();
+        for (Budget budget : budgets) {
+            // Transactions and budget may be mid-update; leave recent writes for the next run
+            if (budget.getUpdatedAt() != null && budget.getUpdatedAt().isAfter(stableBefore)) {
+                skipped++;
+                continue;
+            }
+
+            BigDecimal expected = totals.getOrDefault(key(budget.getUserId(), budget.getCategoryId()), BigDecimal.ZERO);
+            BigDecimal spent = budget.getSpentAmount() != null ? budget.getSpentAmount() : BigDecimal.ZERO;
+            if (expected.compareTo(spent) != 0) {
+                corrections.add(new SpentAmountCorrection(
+                        budget.getId(), budget.getAllocatedAmount(), budget.getSpentAmount(), expected));
+            }
+        }
+
+        int corrected = budgetRepository.bulkUpdateSpentAmounts(corrections);
+        if (corrected > 0) {
+            userIds.forEach(userWriteVersionService::bump);
+        }
+        // Corrections that matched nothing lost the race with a concurrent update
+        skipped += corrections.size() - corrected;
+
+        return new PartitionResult(budgets.size(), corrected, skipped);
+    }
+
+    private String key(String userId, String categoryId) {
+        return userId + ":" + categoryId;
+    }
+
+    private record PartitionResult(int checked, int corrected, int skipped) {
+    }
+}
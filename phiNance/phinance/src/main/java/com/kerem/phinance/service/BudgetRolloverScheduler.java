@@ -0,0 +1,33 @@
+package com.kerem.phinance.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BudgetRolloverScheduler {
+
+    private final BudgetRolloverService budgetRolloverService;
+
+    @Value("${app.budget.rollover.carry-forward:false}")
+    private boolean carryForward;
+
+    // Just after the month ends, so the carried-over remainder includes its last day's spending
+    @Scheduled(cron = "${app.budget.rollover.cron:0 5 0 1 * *}")
+    public void rolloverBudgets() {
+        YearMonth previous = YearMonth.now().minusMonths(1);
+        log.info("Starting budget rollover from {} (carry forward: {})...", previous, carryForward);
+
+        try {
+            budgetRolloverService.rollover(previous.getYear(), previous.getMonthValue(), carryForward);
+        } catch (Exception e) {
+            log.error("Budget rollover from {} failed: {}", previous, e.getMessage(), e);
+        }
+    }
+}
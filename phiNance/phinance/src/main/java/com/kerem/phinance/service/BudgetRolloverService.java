@@ -0,0 +1,118 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.BudgetRolloverReport;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Budget;
+import com.kerem.phinance.repository.BudgetRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.util.PartitionedBatchRunner;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies every budget of a month into the following month so users start
+ * the month with their budgets already in place.
+ *
+ * Source budgets are read in keyset partitions; the seeded spent amounts of
+ * a partition come from one grouped expense aggregation and its budgets are
+ * inserted in one bulk write that skips budgets the user already created.
+ * The job is idempotent and can be rerun for the same month.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BudgetRolloverService {
+
+    private final BudgetRepository budgetRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserWriteVersionService userWriteVersionService;
+
+    @Value("${app.budget.rollover.partition-size:500}")
+    private int partitionSize = 500;
+
+    @Value("${app.budget.rollover.parallelism:4}")
+    private int parallelism = 4;
+
+    public BudgetRolloverReport rollover(int year, int month, boolean carryForward) {
+        if (month < 1 || month > 12) {
+            throw new BadRequestException("Month must be between 1 and 12");
+        }
+        YearMonth source = YearMonth.of(year, month);
+        YearMonth target = source.plusMonths(1);
+        long start = System.nanoTime();
+
+        List<PartitionResult> results = PartitionedBatchRunner.run(parallelism, partitionSize,
+                (lastId, limit) -> budgetRepository.findBatchByPeriodAfterId(year, month, lastId, limit),
+                Budget::getId,
+                partition -> rolloverPartition(partition, target, carryForward));
+
+        int read = results.stream().mapToInt(PartitionResult::read).sum();
+        int created = results.stream().mapToInt(PartitionResult::created).sum();
+
+        BudgetRolloverReport report = BudgetRolloverReport.builder()
+                .sourcePeriod(source.toString())
+                .targetPeriod(target.toString())
+                .carryForward(carryForward)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .partitions(results.size())
+                .budgetsRead(read)
+                .budgetsCreated(created)
+                .budgetsExisting(read - created)
+                .build();
+
+        log.info("Budget rollover {} -> {} finished in {} ms: {} budgets in {} partitions, {} created, {} already existed",
+                source, target, report.getDurationMs(), read, report.getPartitions(), created, read - created);
+        return report;
+    }
+
+    private PartitionResult rolloverPartition(List<Budget> budgets, YearMonth target, boolean carryForward) {
+        Set<String> userIds = new HashSet<>();
+        Set<String> categoryIds = new HashSet<>();
+        for (Budget budget : budgets) {
+            userIds.add(budget.getUserId());
+            categoryIds.add(budget.getCategoryId());
+        }
+
+        // Expenses already booked in the target month, usually none or only scheduled ones
+        Map<String, BigDecimal> spent = new HashMap<>();
+        for (CategoryExpenseTotal total : transactionRepository.sumExpensesByCategory(
+                userIds, categoryIds, target.atDay(1), target.atEndOfMonth())) {
+            spent.put(total.getUserId() + ":" + total.getCategoryId(), total.getTotal());
+        }
+
+        List<Budget> next = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            BigDecimal allocated = budget.getAllocatedAmount();
+            if (carryForward && budget.getRemainingAmount().signum() > 0) {
+                allocated = allocated.add(budget.getRemainingAmount());
+            }
+
+            Budget copy = new Budget();
+            copy.setUserId(budget.getUserId());
+            copy.setCategoryId(budget.getCategoryId());
+            copy.setAllocatedAmount(allocated);
+            copy.setSpentAmount(spent.getOrDefault(budget.getUserId() + ":" + budget.getCategoryId(), BigDecimal.ZERO));
+            copy.setYear(target.getYear());
+            copy.setMonth(target.getMonthValue());
+            copy.setAlertThreshold(budget.getAlertThreshold());
+            next.add(copy);
+        }
+
+        int created = budgetRepository.insertMissing(next);
+        if (created > 0) {
+            userIds.forEach(userWriteVersionService::bump);
+        }
+        return new PartitionResult(budgets.size(), created);
+    }
+
+    private record PartitionResult(int read, int created) {
+    }
+}
@@ -1,46 +1,79 @@
 package com.kerem.phinance.service;
 
+import com.kerem.phinance.dto.BudgetCategoryPeriods;
+import com.kerem.phinance.dto.BudgetComparisonDto;
 import com.kerem.phinance.dto.BudgetDto;
+import com.kerem.phinance.dto.BudgetFilterDto;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.exception.BadRequestException;
 import com.kerem.phinance.exception.ResourceNotFoundException;
 import com.kerem.phinance.model.Budget;
-import com.kerem.phinance.model.Transaction;
 import com.kerem.phinance.model.User;
 import com.kerem.phinance.repository.BudgetRepository;
 import com.kerem.phinance.repository.TransactionRepository;
 import com.kerem.phinance.repository.UserRepository;
 import com.kerem.phinance.security.SecurityUtils;
+import com.kerem.phinance.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 import java.util.stream.Collectors;
 
+import static com.kerem.phinance.util.FieldSelection.field;
+
 @Service
 @RequiredArgsConstructor
 public class BudgetService {
 
+    static final int MAX_COMPARISON_PERIODS = 36;
+
+    /**
+     * Response fields the list endpoint can be narrowed to, with the stored
+     * fields each is built from.
+     */
+    public static final Map<String, List<String>> LIST_FIELDS = Map.ofEntries(
+            field("categoryId"), field("allocatedAmount"), field("spentAmount"), field("year"), field("month"),
+            field("alertThreshold"), field("remainingAmount", "allocatedAmount", "spentAmount"),
+            field("spentPercentage", "allocatedAmount", "spentAmount"));
+
     private final BudgetRepository budgetRepository;
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
+    private final PageCountCacheService pageCountCacheService;
+    private final UserWriteVersionService userWriteVersionService;
 
-    public Page<BudgetDto> getBudgetsByMonthPaginated(int year, int month, Pageable pageable) {
+    public Slice<BudgetDto> getBudgetsByMonthPaginated(int year, int month, BudgetFilterDto filter,
+            Pageable pageable, boolean includeTotal, FieldSelection fields) {
         String userId = SecurityUtils.getCurrentUserId();
-        return budgetRepository.findByUserIdAndYearAndMonthCaseInsensitive(userId, year, month, pageable)
+        return budgetRepository.findByUserIdAndYearAndMonthCaseInsensitive(userId, year, month, filter, pageable,
+                        pageCountCacheService.totalFor(userId, includeTotal, "budgets", year, month, filter), fields)
                 .map(this::mapToDto);
     }
 
-    public Page<BudgetDto> getAllBudgetsPaginated(Pageable pageable) {
+    public Slice<BudgetDto> getAllBudgetsPaginated(BudgetFilterDto filter, Pageable pageable, boolean includeTotal,
+            FieldSelection fields) {
         String userId = SecurityUtils.getCurrentUserId();
         // sorted by target date ascending
-        return budgetRepository.findByUserIdCaseInsensitive(userId, pageable)
+        return budgetRepository.findByUserIdCaseInsensitive(userId, filter, pageable,
+                        pageCountCacheService.totalFor(userId, includeTotal, "budgets", filter), fields)
                 .map(this::mapToDto);
     }
 
+    /**
+     * Materialize the sortable fields of budgets saved before they existed.
+     */
+    public long backfillDerivedFields() {
+        return budgetRepository.backfillDerivedFields();
+    }
+
     public BudgetDto getBudgetById(String budgetId) {
         String userId = SecurityUtils.getCurrentUserId();
         Budget budget = budgetRepository.findByIdAndUserId(budgetId, userId)
@@ -58,17 +91,10 @@ public class BudgetService {
             return updateBudget(existing.get().getId(), dto);
         }
 
-        // Get existing transactions in this category for the given month
+        // Sum the month's existing expenses in this category server-side
         LocalDate startOfMonth = LocalDate.of(dto.getYear(), dto.getMonth(), 1);
         LocalDate endOfMonth = startOfMonth.plusMonths(1).minusDays(1);
-
-        List<Transaction> existingTransactions = transactionRepository.findByUserIdAndCategoryIdAndDateBetween(
-                userId, dto.getCategoryId(), startOfMonth, endOfMonth);
-
-        // Calculate total spent from existing transactions
-        BigDecimal spentAmount = existingTransactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal spentAmount = calculateSpentAmount(userId, dto.getCategoryId(), startOfMonth, endOfMonth);
 
         Budget budget = new Budget();
         budget.setUserId(userId);
@@ -81,7 +107,16 @@ public class BudgetService {
             budget.setAlertThreshold(dto.getAlertThreshold());
         }
 
-        Budget saved = budgetRepository.save(budget);
+        Budget saved;
+        try {
+            saved = budgetRepository.save(budget);
+        } catch (DuplicateKeyException e) {
+            // Created concurrently, e.g. by the monthly rollover
+            Budget created = budgetRepository.findByUserIdAndCategoryIdAndYearAndMonth(
+                    userId, dto.getCategoryId(), dto.getYear(), dto.getMonth()).orElseThrow(() -> e);
+            return updateBudget(created.getId(), dto);
+        }
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -96,6 +131,7 @@ public class BudgetService {
         }
 
         Budget saved = budgetRepository.save(budget);
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -105,6 +141,7 @@ public class BudgetService {
                 .orElseThrow(() -> new ResourceNotFoundException("Budget", "id", budgetId));
 
         budgetRepository.delete(budget);
+        userWriteVersionService.bump(userId);
     }
 
     public void updateSpentAmount(String userId, String categoryId, BigDecimal amount, LocalDate date) {
@@ -119,9 +156,18 @@ public class BudgetService {
             checkBudgetAlerts(budget);
 
             budgetRepository.save(budget);
+            userWriteVersionService.bump(userId);
         }
     }
 
+    private BigDecimal calculateSpentAmount(String userId, String categoryId, LocalDate startDate, LocalDate endDate) {
+        return transactionRepository.sumExpensesByCategory(List.of(userId), List.of(categoryId), startDate, endDate)
+                .stream()
+                .map(CategoryExpenseTotal::getTotal)
+                .findFirst()
+                .orElse(BigDecimal.ZERO);
+    }
+
     private void checkBudgetAlerts(Budget budget) {
         double percentage = budget.getSpentPercentage();
 
@@ -147,6 +193,94 @@ public class BudgetService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Side-by-side comparison of the user's budgets over the given periods
+     * (yyyy-MM), one row per category and one cell per period.
+     */
+    public BudgetComparisonDto comparePeriods(List<String> periodLabels) {
+        String userId = SecurityUtils.getCurrentUserId();
+        List<YearMonth> periods = parsePeriods(periodLabels);
+
+        List<BudgetComparisonDto.Row> rows = new ArrayList<>();
+        BigDecimal[] totalAllocated = new BigDecimal[periods.size()];
+        BigDecimal[] totalSpent = new BigDecimal[periods.size()];
+        Arrays.fill(totalAllocated, BigDecimal.ZERO);
+        Arrays.fill(totalSpent, BigDecimal.ZERO);
+        boolean[] anyBudget = new boolean[periods.size()];
+
+        for (BudgetCategoryPeriods category : budgetRepository.findByUserIdGroupedByCategory(userId, periods)) {
+            Map<YearMonth, BudgetCategoryPeriods.PeriodAmounts> byPeriod = new HashMap<>();
+            for (BudgetCategoryPeriods.PeriodAmounts amounts : category.getPeriods()) {
+                byPeriod.put(YearMonth.of(amounts.getYear(), amounts.getMonth()), amounts);
+            }
+
+            List<BudgetComparisonDto.Cell> cells = new ArrayList<>(periods.size());
+            BigDecimal previousSpent = null;
+            for (int i = 0; i < periods.size(); i++) {
+                BudgetCategoryPeriods.PeriodAmounts amounts = byPeriod.get(periods.get(i));
+                BigDecimal allocated = amounts != null ? amounts.getAllocatedAmount() : BigDecimal.ZERO;
+                BigDecimal spent = amounts != null ? amounts.getSpentAmount() : BigDecimal.ZERO;
+
+                cells.add(comparisonCell(amounts != null, allocated, spent, previousSpent));
+                previousSpent = spent;
+
+                totalAllocated[i] = totalAllocated[i].add(allocated);
+                totalSpent[i] = totalSpent[i].add(spent);
+                anyBudget[i] |= amounts != null;
+            }
+
+            rows.add(BudgetComparisonDto.Row.builder()
+                    .categoryId(category.getCategoryId())
+                    .categoryName(category.getCategoryName() != null ? category.getCategoryName() : "Category Deleted")
+                    .categoryColor(category.getCategoryColor())
+                    .categoryIcon(category.getCategoryIcon())
+                    .cells(cells)
+                    .build());
+        }
+
+        List<BudgetComparisonDto.Cell> totals = new ArrayList<>(periods.size());
+        for (int i = 0; i < periods.size(); i++) {
+            totals.add(comparisonCell(anyBudget[i], totalAllocated[i], totalSpent[i], i > 0 ? totalSpent[i - 1] : null));
+        }
+
+        return BudgetComparisonDto.builder()
+                .periods(periods.stream().map(YearMonth::toString).toList())
+                .rows(rows)
+                .totals(totals)
+                .build();
+    }
+
+    private List<YearMonth> parsePeriods(List<String> periodLabels) {
+        if (periodLabels == null || periodLabels.isEmpty()) {
+            throw new BadRequestException("At least one period is required");
+        }
+
+        // Keep the requested order, ignoring repeats
+        Set<YearMonth> periods = new LinkedHashSet<>();
+        for (String label : periodLabels) {
+            try {
+                periods.add(YearMonth.parse(label.trim()));
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Invalid period '" + label + "', expected yyyy-MM");
+            }
+        }
+        if (periods.size() > MAX_COMPARISON_PERIODS) {
+            throw new BadRequestException("Too many periods. Maximum " + MAX_COMPARISON_PERIODS + " allowed");
+        }
+        return new ArrayList<>(periods);
+    }
+
+    private BudgetComparisonDto.Cell comparisonCell(boolean budgeted, BigDecimal allocated, BigDecimal spent,
+            BigDecimal previousSpent) {
+        return BudgetComparisonDto.Cell.builder()
+                .budgeted(budgeted)
+                .allocatedAmount(allocated)
+                .spentAmount(spent)
+                .remainingAmount(allocated.subtract(spent))
+                .spentDelta(previousSpent != null ? spent.subtract(previousSpent) : null)
+                .build();
+    }
+
     private BudgetDto mapToDto(Budget budget) {
         BudgetDto dto = new BudgetDto();
         dto.setId(budget.getId());
@@ -5,23 +5,38 @@ import com.kerem.phinance.exception.ResourceNotFoundException;
 import com.kerem.phinance.model.Category;
 import com.kerem.phinance.repository.CategoryRepository;
 import com.kerem.phinance.security.SecurityUtils;
+import com.kerem.phinance.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static com.kerem.phinance.util.FieldSelection.field;
+
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
 
+    /**
+     * Response fields the list endpoint can be narrowed to, with the stored
+     * fields each is built from.
+     */
+    public static final Map<String, List<String>> LIST_FIELDS = Map.ofEntries(
+            field("name"), field("type"), field("icon"), field("color"), field("parentCategoryId"));
+
     private final CategoryRepository categoryRepository;
+    private final DashboardCacheService dashboardCacheService;
+    private final PageCountCacheService pageCountCacheService;
+    private final DisplaySnapshotService displaySnapshotService;
 
-    public Page<CategoryDto> getCategoriesPaginated(Pageable pageable) {
+    public Slice<CategoryDto> getCategoriesPaginated(Pageable pageable, boolean includeTotal, FieldSelection fields) {
         String userId = SecurityUtils.getCurrentUserId();
-        return categoryRepository.findByUserIdOrIsDefaultTrueCaseInsensitive(userId, pageable)
+        return categoryRepository.findByUserIdOrIsDefaultTrueCaseInsensitive(userId, pageable,
+                        pageCountCacheService.totalFor(userId, includeTotal, "categories"), fields)
                 .map(this::mapToDto);
     }
 
@@ -50,6 +65,7 @@ public class CategoryService {
         category.setParentCategoryId(dto.getParentCategoryId());
 
         Category saved = categoryRepository.save(category);
+        dashboardCacheService.invalidate(userId);
         return mapToDto(saved);
     }
 
@@ -57,6 +73,9 @@ public class CategoryService {
         String userId = SecurityUtils.getCurrentUserId();
         Category category = categoryRepository.findByIdAndUserId(categoryId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
+        String previousName = category.getName();
+        String previousColor = category.getColor();
+        String previousIcon = category.getIcon();
 
         category.setName(dto.getName());
         category.setType(dto.getType());
@@ -65,6 +84,8 @@ public class CategoryService {
         category.setParentCategoryId(dto.getParentCategoryId());
 
         Category saved = categoryRepository.save(category);
+        displaySnapshotService.categoryChanged(previousName, previousColor, previousIcon, saved);
+        dashboardCacheService.invalidate(userId);
         return mapToDto(saved);
     }
 
@@ -78,6 +99,7 @@ public class CategoryService {
         categoryRepository.deleteAll(subcategories);
 
         categoryRepository.delete(category);
+        dashboardCacheService.invalidate(userId);
     }
 
     private CategoryDto mapToDto(Category category) {
@@ -0,0 +1,135 @@
+package com.kerem.phinance.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kerem.phinance.dto.DashboardDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of computed dashboards.
+ *
+ * Entries are weighed by their approximate serialized size and bounded by
+ * {@code app.dashboard.cache.max-weight-bytes}. Every entry is stamped with
+ * the user's write version ({@link UserWriteVersionService}) at the time it
+ * was loaded; any transaction, account or category write bumps that version,
+ * so an entry computed before the write is never returned afterwards. Concurrent misses for the same user
+ * share one pending load, and invalidation never waits for an in-flight load
+ * to finish. Hit/miss, load time and eviction metrics are published under the
+ * {@code cache="dashboard"} tag.
+ */
+@Slf4j
+@Service
+public class DashboardCacheService {
+
+    private static final String CACHE_NAME = "dashboard";
+    private static final int MAX_LOAD_ATTEMPTS = 2;
+
+    private static final int BASE_WEIGHT = 256;
+    private static final int ACCOUNT_SUMMARY_WEIGHT = 160;
+    private static final int CATEGORY_EXPENSE_WEIGHT = 140;
+    private static final int MONTHLY_DATA_WEIGHT = 80;
+    private static final int TRANSACTION_WEIGHT = 240;
+
+    private final AsyncCache<String, CachedDashboard> cache;
+    private final UserWriteVersionService writeVersions;
+
+    public DashboardCacheService(MeterRegistry meterRegistry, UserWriteVersionService writeVersions,
+            @Value("${app.dashboard.cache.max-weight-bytes:16777216}") long maxWeightBytes,
+            @Value("${app.dashboard.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String userId, CachedDashboard entry) -> entry.weight())
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        this.writeVersions = writeVersions;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Return the cached dashboard for the user, computing it with the given
+     * loader on a miss. Only one loader runs per user at a time; concurrent
+     * callers wait for its result.
+     */
+    public DashboardDto get(String userId, Supplier<DashboardDto> loader) {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long version = writeVersions.current(userId);
+            CompletableFuture<CachedDashboard> pending = new CompletableFuture<>();
+            CompletableFuture<CachedDashboard> future = cache.get(userId, (key, executor) -> pending);
+
+            // The caller that registered the pending load runs it on its own thread
+            if (future == pending) {
+                load(userId, version, loader, pending);
+            }
+
+            CachedDashboard entry = future.join();
+
+            if (entry.version() >= version) {
+                return entry.dashboard();
+            }
+
+            // Computed before the user's latest write - drop it and load again
+            cache.asMap().remove(userId, future);
+        }
+
+        // The user keeps writing while we load; serve a fresh uncached result
+        log.debug("Dashboard for user {} changed during load, bypassing cache", userId);
+        return loader.get();
+    }
+
+    /**
+     * Invalidate the user's dashboard after a write. Inside a transaction the
+     * write version is bumped again after completion, so a load racing with
+     * the commit is discarded on its next read.
+     */
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+
+        writeVersions.bump(userId);
+        cache.synchronous().invalidate(userId);
+    }
+
+    private void load(String userId, long version, Supplier<DashboardDto> loader,
+            CompletableFuture<CachedDashboard> pending) {
+        try {
+            DashboardDto dashboard = loader.get();
+            pending.complete(new CachedDashboard(version, dashboard));
+
+            // Partial dashboards are handed to waiting callers but never kept
+            if (dashboard.isPartial()) {
+                cache.asMap().remove(userId, pending);
+            }
+        } catch (RuntimeException e) {
+            // Failed loads are dropped from the cache so the next call retries
+            pending.completeExceptionally(e);
+            log.warn("Failed to load dashboard for user {}", userId, e);
+            throw e;
+        }
+    }
+
+    private record CachedDashboard(long version, DashboardDto dashboard) {
+
+        int weight() {
+            return BASE_WEIGHT
+                    + sizeOf(dashboard.getAccountSummaries()) * ACCOUNT_SUMMARY_WEIGHT
+                    + sizeOf(dashboard.getCategoryExpenses()) * CATEGORY_EXPENSE_WEIGHT
+                    + sizeOf(dashboard.getMonthlyData()) * MONTHLY_DATA_WEIGHT
+                    + sizeOf(dashboard.getRecentTransactions()) * TRANSACTION_WEIGHT;
+        }
+
+        private static int sizeOf(List<?> list) {
+            return list != null ? list.size() : 0;
+        }
+    }
+}
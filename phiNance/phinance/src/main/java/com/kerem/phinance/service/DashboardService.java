@@ -10,79 +10,190 @@ import com.kerem.phinance.repository.CategoryRepository;
 import com.kerem.phinance.repository.TransactionRepository;
 import com.kerem.phinance.security.SecurityUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
+    static final String SECTION_ACCOUNTS = "accounts";
+    static final String SECTION_CURRENT_MONTH = "currentMonth";
+    static final String SECTION_MONTHLY_DATA = "monthlyData";
+    static final String SECTION_CATEGORIES = "categories";
+    static final String SECTION_RECENT_TRANSACTIONS = "recentTransactions";
+
+    private static final int MONTHLY_HISTORY_MONTHS = 6;
+    private static final int RECENT_TRANSACTIONS_LIMIT = 5;
+
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final CategoryRepository categoryRepository;
+    private final DashboardCacheService dashboardCacheService;
+
+    @Value("${app.dashboard.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${app.dashboard.parallel.timeout:3s}")
+    private Duration parallelTimeout;
 
     public DashboardDto getDashboard() {
         String userId = SecurityUtils.getCurrentUserId();
+        return dashboardCacheService.get(userId, () -> parallelEnabled
+                ? buildDashboardConcurrently(userId)
+                : buildDashboard(userId));
+    }
+
+    private DashboardDto buildDashboard(String userId) {
+        YearMonth currentMonth = YearMonth.now();
+
         // Get all active accounts
         List<Account> accounts = accountRepository.findByUserIdAndArchivedFalse(userId);
 
-        // Calculate total net worth
-        BigDecimal totalNetWorth = accounts.stream()
-                .map(Account::getCurrentBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Get transactions for the last 6 months (the current month is the last window)
+        Map<YearMonth, List<Transaction>> monthlyTransactions = new LinkedHashMap<>();
+        for (YearMonth month : lastMonths(currentMonth)) {
+            monthlyTransactions.put(month, findTransactionsInMonth(userId, month));
+        }
+
+        List<Category> categories = categoryRepository.findByUserIdOrIsDefaultTrue(userId);
+        List<Transaction> recentTransactions = findRecentTransactions(userId);
+
+        return assemble(new DashboardData(accounts, monthlyTransactions.get(currentMonth),
+                monthlyTransactions, categories, recentTransactions), Collections.emptySet());
+    }
 
-        // Get current month transactions
+    /**
+     * Run the independent dashboard reads concurrently on virtual threads,
+     * bounded by {@code app.dashboard.parallel.timeout}. Sections whose query
+     * misses the deadline are left empty and reported in
+     * {@link DashboardDto#getUnavailableSections()}.
+     */
+    private DashboardDto buildDashboardConcurrently(String userId) {
         YearMonth currentMonth = YearMonth.now();
-        LocalDate startOfMonth = currentMonth.atDay(1);
-        LocalDate endOfMonth = currentMonth.atEndOfMonth();
+        long deadline = System.nanoTime() + parallelTimeout.toNanos();
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(
+                Executors.newVirtualThreadPerTaskExecutor());
 
-        List<Transaction> currentMonthTransactions = transactionRepository
-                .findByUserIdAndDateBetween(userId, startOfMonth, endOfMonth);
+        try {
+            Future<List<Account>> accountsFuture = executor.submit(
+                    () -> accountRepository.findByUserIdAndArchivedFalse(userId));
 
-        // Calculate income and expenses
-        BigDecimal totalIncome = currentMonthTransactions.stream()
-                .filter(t -> t.getType() == Transaction.TransactionType.INCOME)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            Map<YearMonth, Future<List<Transaction>>> monthlyFutures = new LinkedHashMap<>();
+            for (YearMonth month : lastMonths(currentMonth)) {
+                monthlyFutures.put(month, executor.submit(() -> findTransactionsInMonth(userId, month)));
+            }
 
-        BigDecimal totalExpenses = currentMonthTransactions.stream()
-                .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-                .map(Transaction::getAmount)
+            Future<List<Category>> categoriesFuture = executor.submit(
+                    () -> categoryRepository.findByUserIdOrIsDefaultTrue(userId));
+            Future<List<Transaction>> recentFuture = executor.submit(() -> findRecentTransactions(userId));
+
+            Set<String> unavailableSections = new LinkedHashSet<>();
+
+            List<Account> accounts = await(accountsFuture, deadline, SECTION_ACCOUNTS, unavailableSections);
+
+            Map<YearMonth, List<Transaction>> monthlyTransactions = new LinkedHashMap<>();
+            for (Map.Entry<YearMonth, Future<List<Transaction>>> entry : monthlyFutures.entrySet()) {
+                String section = entry.getKey().equals(currentMonth) ? SECTION_CURRENT_MONTH : SECTION_MONTHLY_DATA;
+                List<Transaction> transactions = await(entry.getValue(), deadline, section, unavailableSections);
+                if (transactions != null) {
+                    monthlyTransactions.put(entry.getKey(), transactions);
+                } else {
+                    unavailableSections.add(SECTION_MONTHLY_DATA);
+                }
+            }
+
+            List<Category> categories = await(categoriesFuture, deadline, SECTION_CATEGORIES, unavailableSections);
+            List<Transaction> recentTransactions = await(recentFuture, deadline,
+                    SECTION_RECENT_TRANSACTIONS, unavailableSections);
+
+            return assemble(new DashboardData(accounts, monthlyTransactions.get(currentMonth),
+                    monthlyTransactions, categories, recentTransactions), unavailableSections);
+        } finally {
+            // Interrupt anything still running past the deadline
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> T await(Future<T> future, long deadline, String section, Set<String> unavailableSections) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Dashboard section '{}' timed out after {}", section, parallelTimeout);
+            future.cancel(true);
+            unavailableSections.add(section);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            unavailableSections.add(section);
+            return null;
+        } catch (ExecutionException e) {
+            // A failing query fails the request, exactly as in sequential mode
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to load dashboard section " + section, e.getCause());
+        }
+    }
+
+    private DashboardDto assemble(DashboardData data, Set<String> unavailableSections) {
+        // Calculate total net worth
+        BigDecimal totalNetWorth = data.accounts() == null ? null : data.accounts().stream()
+                .map(Account::getCurrentBalance)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
+        // Calculate income and expenses for the current month
+        List<Transaction> currentMonthTransactions = data.currentMonthTransactions();
+        BigDecimal totalIncome = currentMonthTransactions == null ? null
+                : sumByType(currentMonthTransactions, Transaction.TransactionType.INCOME);
+        BigDecimal totalExpenses = currentMonthTransactions == null ? null
+                : sumByType(currentMonthTransactions, Transaction.TransactionType.EXPENSE);
+
         // Get account summaries
-        List<DashboardDto.AccountSummary> accountSummaries = accounts.stream()
-                .map(a -> DashboardDto.AccountSummary.builder()
-                .id(a.getId())
-                .name(a.getName())
-                .type(a.getType().name())
-                .balance(a.getCurrentBalance())
-                .currency(a.getCurrency())
-                .color(a.getColor())
-                .build())
-                .collect(Collectors.toList());
+        List<DashboardDto.AccountSummary> accountSummaries = data.accounts() == null ? new ArrayList<>()
+                : data.accounts().stream()
+                        .map(a -> DashboardDto.AccountSummary.builder()
+                        .id(a.getId())
+                        .name(a.getName())
+                        .type(a.getType().name())
+                        .balance(a.getCurrentBalance())
+                        .currency(a.getCurrency())
+                        .color(a.getColor())
+                        .build())
+                        .collect(Collectors.toList());
 
         // Get category expenses
-        List<DashboardDto.CategoryExpense> categoryExpenses = calculateCategoryExpenses(
-                userId, currentMonthTransactions, totalExpenses);
+        List<DashboardDto.CategoryExpense> categoryExpenses = currentMonthTransactions == null ? new ArrayList<>()
+                : calculateCategoryExpenses(currentMonthTransactions, data.categories(), totalExpenses);
 
         // Get monthly data for the last 6 months
-        List<DashboardDto.MonthlyData> monthlyData = calculateMonthlyData(userId);
+        List<DashboardDto.MonthlyData> monthlyData = calculateMonthlyData(data.monthlyTransactions());
 
         // Get recent transactions
-        List<TransactionDto> recentTransactions = transactionRepository
-                .findByUserId(userId, PageRequest.of(0, 5, Sort.by("date").descending()))
-                .stream()
-                .map(this::mapToTransactionDto)
-                .collect(Collectors.toList());
+        List<TransactionDto> recentTransactions = data.recentTransactions() == null ? new ArrayList<>()
+                : data.recentTransactions().stream()
+                        .map(this::mapToTransactionDto)
+                        .collect(Collectors.toList());
 
         return DashboardDto.builder()
                 .totalNetWorth(totalNetWorth)
@@ -92,11 +203,13 @@ public class DashboardService {
                 .categoryExpenses(categoryExpenses)
                 .monthlyData(monthlyData)
                 .recentTransactions(recentTransactions)
+                .partial(!unavailableSections.isEmpty())
+                .unavailableSections(new ArrayList<>(unavailableSections))
                 .build();
     }
 
     private List<DashboardDto.CategoryExpense> calculateCategoryExpenses(
-            String userId, List<Transaction> transactions, BigDecimal totalExpenses) {
+            List<Transaction> transactions, List<Category> categories, BigDecimal totalExpenses) {
 
         // Group expenses by category (including null for uncategorized)
         Map<String, BigDecimal> expensesByCategory = transactions.stream()
@@ -105,14 +218,13 @@ public class DashboardService {
                         t -> t.getCategoryId() != null ? t.getCategoryId() : "uncategorized",
                         Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)));
 
-        List<Category> categories = categoryRepository.findByUserIdOrIsDefaultTrue(userId);
-        Map<String, Category> categoryMap = categories.stream()
+        // Categories may be missing when their query timed out; names are left empty then
+        Map<String, Category> categoryMap = categories == null ? null : categories.stream()
                 .collect(Collectors.toMap(Category::getId, c -> c));
 
         return expensesByCategory.entrySet().stream()
                 .map(entry -> {
                     String categoryId = entry.getKey();
-                    Category category = categoryMap.get(categoryId);
                     double percentage = totalExpenses.compareTo(BigDecimal.ZERO) == 0 ? 0
                             : entry.getValue().divide(totalExpenses, 4, RoundingMode.HALF_UP)
                                     .multiply(BigDecimal.valueOf(100)).doubleValue();
@@ -128,8 +240,18 @@ public class DashboardService {
                                 .build();
                     }
 
+                    if (categoryMap == null) {
+                        return DashboardDto.CategoryExpense.builder()
+                                .categoryId(categoryId)
+                                .color("#808080")
+                                .amount(entry.getValue())
+                                .percentage(percentage)
+                                .build();
+                    }
+
+                    Category category = categoryMap.get(categoryId);
                     return DashboardDto.CategoryExpense.builder()
-                            .categoryId(entry.getKey())
+                            .categoryId(categoryId)
                             .categoryName(category != null ? category.getName() : "Category Deleted")
                             .color(category != null ? category.getColor() : "#808080")
                             .amount(entry.getValue())
@@ -140,38 +262,47 @@ public class DashboardService {
                 .collect(Collectors.toList());
     }
 
-    private List<DashboardDto.MonthlyData> calculateMonthlyData(String userId) {
+    private List<DashboardDto.MonthlyData> calculateMonthlyData(Map<YearMonth, List<Transaction>> monthlyTransactions) {
         List<DashboardDto.MonthlyData> monthlyData = new ArrayList<>();
-        YearMonth currentMonth = YearMonth.now();
-
-        for (int i = 5; i >= 0; i--) {
-            YearMonth month = currentMonth.minusMonths(i);
-            LocalDate start = month.atDay(1);
-            LocalDate end = month.atEndOfMonth();
-
-            List<Transaction> transactions = transactionRepository
-                    .findByUserIdAndDateBetween(userId, start, end);
-
-            BigDecimal income = transactions.stream()
-                    .filter(t -> t.getType() == Transaction.TransactionType.INCOME)
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal expenses = transactions.stream()
-                    .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
 
+        for (Map.Entry<YearMonth, List<Transaction>> entry : monthlyTransactions.entrySet()) {
             monthlyData.add(DashboardDto.MonthlyData.builder()
-                    .month(month.toString())
-                    .income(income)
-                    .expenses(expenses)
+                    .month(entry.getKey().toString())
+                    .income(sumByType(entry.getValue(), Transaction.TransactionType.INCOME))
+                    .expenses(sumByType(entry.getValue(), Transaction.TransactionType.EXPENSE))
                     .build());
         }
 
         return monthlyData;
     }
 
+    private List<YearMonth> lastMonths(YearMonth currentMonth) {
+        List<YearMonth> months = new ArrayList<>();
+        for (int i = MONTHLY_HISTORY_MONTHS - 1; i >= 0; i--) {
+            months.add(currentMonth.minusMonths(i));
+        }
+        return months;
+    }
+
+    private List<Transaction> findTransactionsInMonth(String userId, YearMonth month) {
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.atEndOfMonth();
+        return transactionRepository.findByUserIdAndDateBetween(userId, start, end);
+    }
+
+    private List<Transaction> findRecentTransactions(String userId) {
+        return transactionRepository
+                .findByUserId(userId, PageRequest.of(0, RECENT_TRANSACTIONS_LIMIT, Sort.by("date").descending()))
+                .getContent();
+    }
+
+    private BigDecimal sumByType(List<Transaction> transactions, Transaction.TransactionType type) {
+        return transactions.stream()
+                .filter(t -> t.getType() == type)
+                .map(Transaction::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
     private TransactionDto mapToTransactionDto(Transaction transaction) {
         TransactionDto dto = new TransactionDto();
         dto.setId(transaction.getId());
@@ -183,4 +314,13 @@ public class DashboardService {
         dto.setDate(transaction.getDate());
         return dto;
     }
+
+    private record DashboardData(
+            List<Account> accounts,
+            List<Transaction> currentMonthTransactions,
+            Map<YearMonth, List<Transaction>> monthlyTransactions,
+            List<Category> categories,
+            List<Transaction> recentTransactions) {
+
+    }
 }
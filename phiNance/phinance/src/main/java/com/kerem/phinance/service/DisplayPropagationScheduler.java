@@ -0,0 +1,26 @@
+package com.kerem.phinance.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DisplayPropagationScheduler {
+
+    private final DisplaySnapshotService displaySnapshotService;
+
+    @Scheduled(fixedDelayString = "${app.display.propagation.poll-interval-ms:5000}")
+    public void propagateDisplaySnapshots() {
+        try {
+            int runs = displaySnapshotService.propagatePending();
+            if (runs > 0) {
+                log.info("Display snapshot propagation completed. Runs: {}", runs);
+            }
+        } catch (Exception e) {
+            log.error("Display snapshot propagation failed: {}", e.getMessage(), e);
+        }
+    }
+}
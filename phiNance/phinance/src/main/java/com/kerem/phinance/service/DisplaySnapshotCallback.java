@@ -0,0 +1,23 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Snapshots the display fields on every transaction write, whichever path
+ * saves it.
+ */
+@Component
+@RequiredArgsConstructor
+public class DisplaySnapshotCallback implements BeforeConvertCallback<Transaction> {
+
+    private final DisplaySnapshotService displaySnapshotService;
+
+    @Override
+    public Transaction onBeforeConvert(Transaction transaction, String collection) {
+        displaySnapshotService.snapshot(transaction);
+        return transaction;
+    }
+}
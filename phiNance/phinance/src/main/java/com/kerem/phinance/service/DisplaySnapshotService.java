@@ -0,0 +1,197 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.Category;
+import com.kerem.phinance.model.DisplayPropagation;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.CategoryRepository;
+import com.kerem.phinance.repository.DisplayPropagationRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps the account and category display fields copied onto transactions
+ * current, so transaction lists and exports never need a join.
+ *
+ * Every transaction write snapshots the referenced accounts and category.
+ * Changing how an account or category is displayed requests a propagation,
+ * which the scheduler copies onto the existing transactions with one
+ * multi-document update per source. Requests are stored and the updates
+ * only touch stale snapshots, so an interrupted propagation simply runs
+ * again. Runs are timed under {@code display.propagation} and updated
+ * transactions counted under {@code display.propagation.updated}, both
+ * tagged by source.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DisplaySnapshotService {
+
+    private final AccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionRepository transactionRepository;
+    private final DisplayPropagationRepository displayPropagationRepository;
+    private final MeterRegistry meterRegistry;
+
+    // A running propagation claimed longer ago than this is taken over
+    @Value("${app.display.propagation.lease:10m}")
+    private Duration lease = Duration.ofMinutes(10);
+
+    @Value("${app.display.propagation.retry-delay:1m}")
+    private Duration retryDelay = Duration.ofMinutes(1);
+
+    @Value("${app.display.propagation.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${app.display.propagation.backfill-batch-size:500}")
+    private int backfillBatchSize = 500;
+
+    /**
+     * Copy the current display fields of the transaction's accounts and
+     * category onto it.
+     */
+    public void snapshot(Transaction transaction) {
+        Optional<Account> account = findAccount(transaction.getAccountId());
+        transaction.setAccountName(account.map(Account::getName).orElse(null));
+        transaction.setAccountColor(account.map(Account::getColor).orElse(null));
+        transaction.setTransferToAccountName(findAccount(transaction.getTransferToAccountId())
+                .map(Account::getName).orElse(null));
+
+        Optional<Category> category = transaction.getCategoryId() != null
+                ? categoryRepository.findById(transaction.getCategoryId())
+                : Optional.empty();
+        transaction.setCategoryName(category.map(Category::getName).orElse(null));
+        transaction.setCategoryColor(category.map(Category::getColor).orElse(null));
+        transaction.setCategoryIcon(category.map(Category::getIcon).orElse(null));
+    }
+
+    /**
+     * Request a propagation when the account's displayed fields changed.
+     */
+    public void accountChanged(String previousName, String previousColor, Account account) {
+        if (!Objects.equals(previousName, account.getName()) || !Objects.equals(previousColor, account.getColor())) {
+            displayPropagationRepository.request(DisplayPropagation.Source.ACCOUNT, account.getId());
+        }
+    }
+
+    /**
+     * Request a propagation when the category's displayed fields changed.
+     */
+    public void categoryChanged(String previousName, String previousColor, String previousIcon, Category category) {
+        if (!Objects.equals(previousName, category.getName()) || !Objects.equals(previousColor, category.getColor())
+                || !Objects.equals(previousIcon, category.getIcon())) {
+            displayPropagationRepository.request(DisplayPropagation.Source.CATEGORY, category.getId());
+        }
+    }
+
+    /**
+     * Request a propagation for every account and category, filling the
+     * snapshots of transactions written before they existed. Returns the
+     * number of propagations requested.
+     */
+    public int requestBackfill() {
+        int requested = 0;
+        String lastId = null;
+        List<Account> accounts;
+        while (!(accounts = accountRepository.findBatchAfterId(lastId, backfillBatchSize)).isEmpty()) {
+            for (Account account : accounts) {
+                displayPropagationRepository.request(DisplayPropagation.Source.ACCOUNT, account.getId());
+            }
+            requested += accounts.size();
+            lastId = accounts.get(accounts.size() - 1).getId();
+        }
+
+        lastId = null;
+        List<Category> categories;
+        while (!(categories = categoryRepository.findBatchAfterId(lastId, backfillBatchSize)).isEmpty()) {
+            for (Category category : categories) {
+                displayPropagationRepository.request(DisplayPropagation.Source.CATEGORY, category.getId());
+            }
+            requested += categories.size();
+            lastId = categories.get(categories.size() - 1).getId();
+        }
+
+        log.info("Requested display snapshot backfill for {} accounts and categories", requested);
+        return requested;
+    }
+
+    /**
+     * Request the backfill once, when transactions without snapshots remain.
+     * Transactions of deleted accounts and categories never get one, so
+     * their absence cannot tell whether the backfill ran; a marker does.
+     * Returns the number of propagations requested.
+     */
+    public int requestBackfillIfNeeded() {
+        if (displayPropagationRepository.isBackfillRequested()) {
+            return 0;
+        }
+        int requested = transactionRepository.existsWithoutDisplaySnapshot() ? requestBackfill() : 0;
+        // Every transaction written from now on is snapshotted when saved
+        displayPropagationRepository.markBackfillRequested();
+        return requested;
+    }
+
+    /**
+     * Run every claimable propagation. Returns the number of runs.
+     */
+    public int propagatePending() {
+        int runs = 0;
+        Optional<DisplayPropagation> next;
+        while ((next = claimNext()).isPresent()) {
+            propagate(next.get());
+            runs++;
+        }
+        return runs;
+    }
+
+    private Optional<DisplayPropagation> claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        return displayPropagationRepository.claimNext(now.minus(lease), now.minus(retryDelay), maxAttempts);
+    }
+
+    private void propagate(DisplayPropagation propagation) {
+        String source = propagation.getSource().name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            // The source's current fields, so repeated changes are copied once
+            long modified = switch (propagation.getSource()) {
+                case ACCOUNT -> accountRepository.findById(propagation.getSourceId())
+                        .map(account -> transactionRepository.updateAccountDisplay(
+                                account.getId(), account.getName(), account.getColor()))
+                        .orElse(0L);
+                case CATEGORY -> categoryRepository.findById(propagation.getSourceId())
+                        .map(category -> transactionRepository.updateCategoryDisplay(
+                                category.getId(), category.getName(), category.getColor(), category.getIcon()))
+                        .orElse(0L);
+            };
+            displayPropagationRepository.complete(propagation, modified);
+            meterRegistry.counter("display.propagation.updated", "source", source).increment(modified);
+            log.info("Propagated {} {} display fields to {} transactions",
+                    source, propagation.getSourceId(), modified);
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            displayPropagationRepository.fail(propagation, e.getMessage());
+            log.error("Failed to propagate {} {} display fields (attempt {}): {}",
+                    source, propagation.getSourceId(), propagation.getAttempts(), e.getMessage(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("display.propagation", "source", source, "outcome", outcome));
+        }
+    }
+
+    private Optional<Account> findAccount(String accountId) {
+        return accountId != null ? accountRepository.findById(accountId) : Optional.empty();
+    }
+}
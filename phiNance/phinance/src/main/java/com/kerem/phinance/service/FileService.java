@@ -1,49 +1,79 @@
 package com.kerem.phinance.service;
 
+import com.kerem.phinance.dto.AttachmentFile;
+import com.kerem.phinance.dto.FileUploadResult;
 import com.kerem.phinance.exception.BadRequestException;
-import com.kerem.phinance.security.JwtTokenProvider;
+import com.kerem.phinance.model.Attachment;
+import com.kerem.phinance.repository.AttachmentRepository;
+import com.kerem.phinance.security.FileUrlSigner;
 import com.kerem.phinance.security.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileService {
 
-    private final JwtTokenProvider jwtTokenProvider;
-
-    @Value("${file.upload.dir:uploads}")
-    private String uploadDir;
+    private final FileUrlSigner fileUrlSigner;
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentService attachmentService;
+    private final ThumbnailService thumbnailService;
+    private final AttachmentStorage attachmentStorage;
+    private final ImageNormalizationService imageNormalizationService;
 
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
     private static final List<String> ALLOWED_EXTENSIONS = List.of("jpg", "jpeg", "png", "pdf", "gif");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "pdf", "application/pdf",
+            "gif", "image/gif");
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final int MAX_FILES_PER_UPLOAD = 20;
+
+    @Value("${spring.servlet.multipart.max-request-size:10MB}")
+    private DataSize maxRequestSize = DataSize.ofMegabytes(10);
 
     public List<String> uploadFiles(MultipartFile[] files) {
         String userId = SecurityUtils.getCurrentUserId();
         List<String> fileUrls = new ArrayList<>();
 
         try {
-            // Create user-specific directory
-            Path userUploadPath = Paths.get(uploadDir, userId);
-            if (!Files.exists(userUploadPath)) {
-                Files.createDirectories(userUploadPath);
+            long incomingBytes = 0;
+            for (MultipartFile file : files) {
+                incomingBytes += file.getSize();
             }
+            attachmentService.checkQuota(userId, incomingBytes);
 
             for (MultipartFile file : files) {
                 if (file.isEmpty()) {
@@ -66,18 +96,15 @@ public class FileService {
                     throw new BadRequestException("File type not allowed. Allowed types: " + String.join(", ", ALLOWED_EXTENSIONS));
                 }
 
-                // Generate unique filename
-                String filename = UUID.randomUUID().toString() + "." + extension;
-                Path filePath = userUploadPath.resolve(filename);
-
-                // Save file
-                Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-                // Generate temporary access token for this file
-                String fileToken = jwtTokenProvider.generateToken(userId);
+                // Save file under the hash of its content
+                StagedContent staged;
+                try (InputStream in = file.getInputStream()) {
+                    staged = stageContent(userId, imageNormalizationService.normalize(in, extension.toLowerCase()));
+                }
+                String filename = commitContent(userId, staged, extension.toLowerCase());
 
-                // Return relative URL with token
-                fileUrls.add("/api/files/" + userId + "/" + filename + "?token=" + fileToken);
+                // Return relative URL, signed so it can be loaded without headers
+                fileUrls.add(fileUrlSigner.sign(AttachmentService.fileUrl(userId, filename)));
             }
 
             return fileUrls;
@@ -88,95 +115,273 @@ public class FileService {
         }
     }
 
-    public Resource getFile(String filename) {
+    /**
+     * Read the files of a multipart request straight from the request body,
+     * without the container spooling them first. Each file is hashed while
+     * it is staged; recording and committing it then runs on a virtual
+     * thread while the next part is read. Every file gets its own result,
+     * so one rejected file does not fail the others. Staged files are
+     * counted against the quota left when the request started, before any
+     * is committed.
+     */
+    public List<FileUploadResult> streamUploads(HttpServletRequest request) {
         String userId = SecurityUtils.getCurrentUserId();
-        try {
-            Path filePath = Paths.get(uploadDir, userId, filename);
-            Resource resource = new UrlResource(filePath.toUri());
+        ServletRequestContext context = new ServletRequestContext(request);
+        // The body bounds the size of its files, so this errs on the side of
+        // rejecting; a chunked body has no length and is only checked per file
+        if (request.getContentLengthLong() >= 0) {
+            attachmentService.checkQuota(userId, request.getContentLengthLong());
+        }
+        long remainingQuota = attachmentService.remainingQuota(userId);
+
+        FileUpload upload = new FileUpload();
+        upload.setFileSizeMax(MAX_FILE_SIZE);
+        upload.setSizeMax(maxRequestSize.toBytes());
+        upload.setFileCountMax(MAX_FILES_PER_UPLOAD);
+
+        List<Future<FileUploadResult>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String current = null;
+            try {
+                FileItemIterator items = upload.getItemIterator(context);
+                while (items.hasNext()) {
+                    FileItemStream item = items.next();
+                    current = item.getName();
+                    if (item.isFormField() || current == null || current.isEmpty()) {
+                        continue;
+                    }
+
+                    String originalFilename = current;
+                    String extension = getFileExtension(originalFilename).toLowerCase();
+                    if (!ALLOWED_EXTENSIONS.contains(extension)) {
+                        results.add(executor.submit(() -> FileUploadResult.failed(originalFilename,
+                                "File type not allowed. Allowed types: " + String.join(", ", ALLOWED_EXTENSIONS))));
+                        continue;
+                    }
+
+                    StagedContent staged;
+                    try (InputStream in = item.openStream()) {
+                        staged = stageContent(userId, imageNormalizationService.normalize(in, extension));
+                    } catch (IOException | RuntimeException e) {
+                        if (!isFileTooLarge(e)) {
+                            throw e;
+                        }
+                        // The rest of the part is skipped and the next one read
+                        results.add(executor.submit(() -> FileUploadResult.failed(originalFilename,
+                                "File size exceeds maximum limit of 5MB")));
+                        continue;
+                    }
+                    if (staged.file().size() == 0) {
+                        attachmentStorage.discard(staged.file());
+                        continue;
+                    }
+                    if (staged.file().size() > remainingQuota) {
+                        attachmentStorage.discard(staged.file());
+                        String error = attachmentService.quotaExceededMessage();
+                        results.add(executor.submit(() -> FileUploadResult.failed(originalFilename, error)));
+                        continue;
+                    }
+                    remainingQuota -= staged.file().size();
+
+                    results.add(executor.submit(() -> finishUpload(userId, originalFilename, staged, extension)));
+                }
+                current = null;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Upload of user {} stopped: {}", userId, e.getMessage());
+                String failed = current != null ? current : "";
+                results.add(executor.submit(() -> FileUploadResult.failed(failed,
+                        "Upload interrupted: " + e.getMessage())));
+            }
+        }
 
-            if (!resource.exists() || !resource.isReadable()) {
-                return null;
+        List<FileUploadResult> uploaded = new ArrayList<>(results.size());
+        for (Future<FileUploadResult> result : results) {
+            try {
+                uploaded.add(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BadRequestException("Upload interrupted");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Upload task failed", e.getCause());
             }
+        }
+        return uploaded;
+    }
+
+    /**
+     * Storages may wrap the limit error raised while they read the part.
+     */
+    private static boolean isFileTooLarge(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FileSizeLimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private FileUploadResult finishUpload(String userId, String originalFilename, StagedContent staged,
+            String extension) {
+        try {
+            String filename = commitContent(userId, staged, extension);
+            return FileUploadResult.builder()
+                    .originalFilename(originalFilename)
+                    .url(fileUrlSigner.sign(AttachmentService.fileUrl(userId, filename)))
+                    .size(staged.file().size())
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to store upload {} of user {}", originalFilename, userId, e);
+            return FileUploadResult.failed(originalFilename, "Failed to store file");
+        }
+    }
+
+    public Resource getFile(String filename) {
+        String userId = SecurityUtils.getCurrentUserId();
+        Resource resource = attachmentStorage.load(userId, filename);
 
-            return resource;
-        } catch (MalformedURLException e) {
-            log.error("Invalid file path", e);
-            throw new BadRequestException("Invalid file path");
+        if (!resource.exists() || !resource.isReadable()) {
+            return null;
         }
+
+        return resource;
     }
 
-    public Resource getFileWithAuth(String requestedUserId, String filename, String token, String authenticatedUserId) {
+    /**
+     * Resolve a download after checking access. With thumbnail set, images
+     * are served as their thumbnail once it is ready and as the original
+     * until then.
+     */
+    public AttachmentFile getFileWithAuth(String requestedUserId, String filename, String expires,
+            String signature, String authenticatedUserId, boolean thumbnail) {
         // SECURITY: Prevent path traversal attacks
         if (filename.contains("..") || filename.contains("//") || filename.contains("\\\\")) {
             throw new BadRequestException("Invalid filename");
         }
 
-        String validatedUserId = null;
-
-        // If user is authenticated via session, use that
+        // If user is authenticated via session, they may only read their own files
         if (authenticatedUserId != null) {
-            validatedUserId = authenticatedUserId;
-        } // Otherwise, validate via token
-        else if (token != null && !token.isEmpty()) {
-            try {
-                if (!jwtTokenProvider.validateToken(token)) {
-                    throw new BadRequestException("Invalid token");
-                }
-                // Token is valid, extract email and use it as userId
-                // (In this system, userId is the email)
-                validatedUserId = jwtTokenProvider.getEmailFromToken(token);
-            } catch (Exception e) {
-                log.error("Invalid file token", e);
-                throw new BadRequestException("Invalid or expired token");
+            if (!requestedUserId.equals(authenticatedUserId)) {
+                throw new BadRequestException("Unauthorized access to file");
+            }
+        } // Otherwise, the signature grants access to exactly this path
+        else if (signature != null && !signature.isEmpty()) {
+            if (!fileUrlSigner.verify(AttachmentService.fileUrl(requestedUserId, filename), expires, signature)) {
+                throw new BadRequestException("Invalid or expired link");
             }
         } else {
             throw new BadRequestException("Authentication required");
         }
 
-        // Security: Ensure the validated user matches the requested userId
-        if (!requestedUserId.equals(validatedUserId)) {
-            throw new BadRequestException("Unauthorized access to file");
+        Optional<Attachment> attachment = attachmentRepository.findByUserIdAndFilename(requestedUserId, filename);
+        if (attachment.isPresent()) {
+            Attachment stored = attachment.get();
+            Instant lastModified = stored.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+            if (thumbnail && stored.getThumbnailStatus() == Attachment.ThumbnailStatus.READY) {
+                return new AttachmentFile(attachmentStorage.load(requestedUserId, stored.getThumbnailFilename()),
+                        stored.getThumbnailFilename(), CONTENT_TYPES.get(getFileExtension(stored.getThumbnailFilename())),
+                        -1, lastModified, "\"" + stored.getHash() + "-thumb\"", true);
+            }
+            // The original stands in for a pending thumbnail, so it must not
+            // be cached as the thumbnail for good
+            boolean immutable = !thumbnail || stored.getThumbnailStatus() != Attachment.ThumbnailStatus.PENDING;
+            return new AttachmentFile(attachmentStorage.load(requestedUserId, filename), filename, stored.getContentType(),
+                    stored.getSize(), lastModified, "\"" + stored.getHash() + "\"", immutable);
         }
 
+        // Uploaded before attachment records existed
+        Optional<AttachmentStorage.StoredFile> legacy;
         try {
-            Path filePath = Paths.get(uploadDir, requestedUserId, filename);
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (!resource.exists() || !resource.isReadable()) {
-                return null;
-            }
-
-            return resource;
-        } catch (MalformedURLException e) {
-            log.error("Invalid file path", e);
-            throw new BadRequestException("Invalid file path");
+            legacy = attachmentStorage.stat(requestedUserId, filename);
+        } catch (RuntimeException e) {
+            log.error("Failed to read file attributes", e);
+            return null;
         }
+        return legacy.map(stored -> new AttachmentFile(attachmentStorage.load(requestedUserId, filename), filename,
+                CONTENT_TYPES.getOrDefault(getFileExtension(filename).toLowerCase(), DEFAULT_CONTENT_TYPE),
+                stored.size(), stored.lastModified(), etagFor(filename, stored.size()), true))
+                .orElse(null);
     }
 
-    public String getContentType(String userId, String filename) {
-        try {
-            Path filePath = Paths.get(uploadDir, userId, filename);
-            String contentType = Files.probeContentType(filePath);
-            return contentType != null ? contentType : "application/octet-stream";
-        } catch (IOException e) {
-            log.error("Failed to determine content type", e);
-            return "application/octet-stream";
-        }
+    /**
+     * Uploads are never rewritten in place, so the name and size identify
+     * the content.
+     */
+    static String etagFor(String filename, long size) {
+        return "\"" + filename + "-" + Long.toHexString(size) + "\"";
     }
 
     public void deleteFile(String filename) {
         String userId = SecurityUtils.getCurrentUserId();
         try {
-            Path filePath = Paths.get(uploadDir, userId, filename);
-            Files.deleteIfExists(filePath);
+            // Uploads from before content addressing have no record and are
+            // deleted directly
+            Optional<Attachment> released = attachmentRepository.releaseReference(userId, filename);
+            if (released.isEmpty()) {
+                attachmentStorage.delete(userId, filename);
+                return;
+            }
+            Attachment attachment = released.get();
+            if (attachment.getRefCount() > 0) {
+                return;
+            }
+
+            // The same content may be uploaded again while the record is
+            // removed, so its files are only deleted along with the record
+            List<String> filenames = attachment.getThumbnailFilename() != null
+                    ? List.of(filename, attachment.getThumbnailFilename())
+                    : List.of(filename);
+            attachmentStorage.deleteWithRecord(userId, filenames,
+                    () -> attachmentRepository.removeIfUnreferenced(attachment));
         } catch (IOException e) {
             log.error("Failed to delete file", e);
             throw new BadRequestException("Failed to delete file: " + e.getMessage());
         }
     }
 
-    public String validateFileToken(String token) {
-        return jwtTokenProvider.getEmailFromToken(token);
+    /**
+     * Stage the upload while hashing it.
+     */
+    private StagedContent stageContent(String userId, InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        AttachmentStorage.StagedFile staged = attachmentStorage.stage(userId, new DigestInputStream(content, digest));
+        return new StagedContent(staged, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Commit staged content under its hash unless the user already stores
+     * the same content. Returns the stored filename.
+     */
+    private String commitContent(String userId, StagedContent staged, String extension) throws IOException {
+        boolean committed = false;
+        try {
+            String hash = staged.hash();
+            Attachment attachment = attachmentRepository.addReference(userId, hash, hash + "." + extension,
+                    staged.file().size(), CONTENT_TYPES.getOrDefault(extension, DEFAULT_CONTENT_TYPE));
+            if (attachment.getRefCount() == 1
+                    || attachmentStorage.stat(userId, attachment.getFilename()).isEmpty()) {
+                attachmentStorage.commit(staged.file(), attachment.getFilename());
+                committed = true;
+            }
+            if (attachment.getRefCount() == 1) {
+                thumbnailService.requestThumbnail(attachment);
+            }
+            return attachment.getFilename();
+        } finally {
+            if (!committed) {
+                attachmentStorage.discard(staged.file());
+            }
+        }
+    }
+
+    private record StagedContent(AttachmentStorage.StagedFile file, String hash) {
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     private String getFileExtension(String filename) {
@@ -2,6 +2,7 @@ package com.kerem.phinance.service;
 
 import com.kerem.phinance.dto.GoalContributionDto;
 import com.kerem.phinance.dto.GoalDto;
+import com.kerem.phinance.dto.GoalFilterDto;
 import com.kerem.phinance.dto.TransactionDto;
 import com.kerem.phinance.exception.BadRequestException;
 import com.kerem.phinance.exception.ResourceNotFoundException;
@@ -13,9 +14,10 @@ import com.kerem.phinance.repository.AccountRepository;
 import com.kerem.phinance.repository.GoalContributionRepository;
 import com.kerem.phinance.repository.GoalRepository;
 import com.kerem.phinance.security.SecurityUtils;
+import com.kerem.phinance.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -23,24 +25,50 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static com.kerem.phinance.util.FieldSelection.field;
+
 @Service
 @RequiredArgsConstructor
 public class GoalService {
 
+    /**
+     * Response fields the list endpoint can be narrowed to, with the stored
+     * fields each is built from.
+     */
+    public static final Map<String, List<String>> LIST_FIELDS = Map.ofEntries(
+            field("name"), field("description"), field("targetAmount"), field("currentAmount"), field("deadline"),
+            field("priority"), field("accountId"), field("dependencyGoalIds"), field("completed"),
+            field("savingsAccountId"), field("color"), field("icon"),
+            field("progressPercentage", "targetAmount", "currentAmount"));
+
     private final GoalRepository goalRepository;
     private final GoalContributionRepository contributionRepository;
     private final AccountRepository accountRepository;
     private final TransactionService transactionService;
     private final AccountService accountService;
+    private final DashboardCacheService dashboardCacheService;
+    private final PageCountCacheService pageCountCacheService;
+    private final UserWriteVersionService userWriteVersionService;
+    private final DisplaySnapshotService displaySnapshotService;
 
-    public Page<GoalDto> getGoalsPaginated(Pageable pageable) {
+    public Slice<GoalDto> getGoalsPaginated(GoalFilterDto filter, Pageable pageable, boolean includeTotal,
+            FieldSelection fields) {
         String userId = SecurityUtils.getCurrentUserId();
-        return goalRepository.findByUserIdCaseInsensitive(userId, pageable)
+        return goalRepository.findByUserIdCaseInsensitive(userId, filter, pageable,
+                        pageCountCacheService.totalFor(userId, includeTotal, "goals", filter), fields)
                 .map(this::mapToDto);
     }
 
+    /**
+     * Materialize the sortable progress of goals saved before it existed.
+     */
+    public long backfillDerivedFields() {
+        return goalRepository.backfillDerivedFields();
+    }
+
     public List<GoalDto> getActiveGoals() {
         String userId = SecurityUtils.getCurrentUserId();
         return goalRepository.findByUserIdAndCompletedFalse(userId).stream()
@@ -70,6 +98,7 @@ public class GoalService {
         savingsAccount.setDescription("Savings account for goal: " + dto.getName());
 
         Account savedAccount = accountRepository.save(savingsAccount);
+        dashboardCacheService.invalidate(userId);
 
         // Create the goal with the savings account ID
         Goal goal = new Goal();
@@ -86,6 +115,7 @@ public class GoalService {
         goal.setIcon(dto.getIcon());
 
         Goal saved = goalRepository.save(goal);
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -98,6 +128,8 @@ public class GoalService {
         if (goal.getSavingsAccountId() != null) {
             Account account = accountRepository.findById(goal.getSavingsAccountId()).orElse(null);
             if (account != null) {
+                String previousName = account.getName();
+                String previousColor = account.getColor();
                 boolean accountUpdated = false;
                 if (!goal.getName().equals(dto.getName())) {
                     account.setName(dto.getName());
@@ -108,7 +140,9 @@ public class GoalService {
                     accountUpdated = true;
                 }
                 if (accountUpdated) {
-                    accountRepository.save(account);
+                    Account savedAccount = accountRepository.save(account);
+                    displaySnapshotService.accountChanged(previousName, previousColor, savedAccount);
+                    dashboardCacheService.invalidate(userId);
                 }
             }
         }
@@ -126,6 +160,7 @@ public class GoalService {
         goal.setIcon(dto.getIcon());
 
         Goal saved = goalRepository.save(goal);
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -146,6 +181,7 @@ public class GoalService {
         }
 
         goalRepository.delete(goal);
+        userWriteVersionService.bump(userId);
     }
 
     public GoalDto addContribution(GoalContributionDto dto) {
@@ -201,6 +237,7 @@ public class GoalService {
         }
 
         Goal saved = goalRepository.save(goal);
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -222,6 +259,7 @@ public class GoalService {
 
         goal.setCompleted(true);
         Goal saved = goalRepository.save(goal);
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -268,6 +306,7 @@ public class GoalService {
         goal.getDependencyGoalIds().add(dependencyGoalId);
 
         Goal saved = goalRepository.save(goal);
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -281,6 +320,7 @@ public class GoalService {
         }
 
         Goal saved = goalRepository.save(goal);
+        userWriteVersionService.bump(userId);
         return mapToDto(saved);
     }
 
@@ -0,0 +1,201 @@
+package com.kerem.phinance.service;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stores attachments in a GridFS bucket of the application database, so
+ * every instance sees every upload without a shared volume.
+ *
+ * Files are named {@code userId/filename} and written and read chunk by
+ * chunk. Staged files are committed by renaming them, after which older
+ * files of the same name are removed; readers always pick the newest file
+ * of a name, so they never see a partial one.
+ */
+@Service
+@ConditionalOnProperty(name = "app.attachments.storage", havingValue = "gridfs")
+public class GridFsAttachmentStorage implements AttachmentStorage {
+
+    private final GridFSBucket bucket;
+
+    @Value("${app.attachments.gridfs.chunk-size-bytes:261120}")
+    private int chunkSizeBytes = 255 * 1024;
+
+    public GridFsAttachmentStorage(MongoDatabaseFactory mongoDatabaseFactory,
+            @Value("${app.attachments.gridfs.bucket:attachment_files}") String bucketName) {
+        this.bucket = GridFSBuckets.create(mongoDatabaseFactory.getMongoDatabase(), bucketName);
+    }
+
+    @Override
+    public StagedFile stage(String userId, InputStream content) throws IOException {
+        String name = "upload-" + UUID.randomUUID() + STAGED_SUFFIX;
+        ObjectId id = bucket.uploadFromStream(keyOf(userId, name), content,
+                new GridFSUploadOptions().chunkSizeBytes(chunkSizeBytes).metadata(new Document("userId", userId)));
+        GridFSFile staged = bucket.find(Filters.eq("_id", id)).first();
+        return new StagedFile(userId, name, staged != null ? staged.getLength() : 0);
+    }
+
+    @Override
+    public void commit(StagedFile staged, String filename) throws IOException {
+        GridFSFile file = newest(keyOf(staged.userId(), staged.name()))
+                .orElseThrow(() -> new FileNotFoundException("Staged file " + staged.name() + " not found"));
+        rename(file, keyOf(staged.userId(), filename));
+    }
+
+    @Override
+    public void discard(StagedFile staged) {
+        deleteAll(keyOf(staged.userId(), staged.name()));
+    }
+
+    @Override
+    public Resource load(String userId, String filename) {
+        return new GridFsFileResource(keyOf(userId, filename));
+    }
+
+    @Override
+    public Optional<StoredFile> stat(String userId, String filename) {
+        return newest(keyOf(userId, filename)).map(this::toStoredFile);
+    }
+
+    @Override
+    public boolean delete(String userId, String filename) {
+        return deleteAll(keyOf(userId, filename));
+    }
+
+    @Override
+    public boolean move(String userId, String filename, String newFilename) {
+        String key = keyOf(userId, filename);
+        Optional<GridFSFile> file = newest(key);
+        file.ifPresent(moved -> {
+            rename(moved, keyOf(userId, newFilename));
+            deleteAll(key);
+        });
+        return file.isPresent();
+    }
+
+    @Override
+    public Stream<StoredFile> list() {
+        MongoCursor<GridFSFile> cursor = bucket.find().iterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                .onClose(cursor::close)
+                .filter(file -> file.getFilename().indexOf('/') > 0)
+                .map(this::toStoredFile);
+    }
+
+    /**
+     * Rename the file, then remove older files of the new name.
+     */
+    private void rename(GridFSFile file, String key) {
+        bucket.rename(file.getObjectId(), key);
+
+        for (GridFSFile replaced : bucket.find(Filters.and(
+                Filters.eq("filename", key), Filters.ne("_id", file.getObjectId())))) {
+            bucket.delete(replaced.getObjectId());
+        }
+    }
+
+    private boolean deleteAll(String key) {
+        boolean deleted = false;
+        for (GridFSFile file : bucket.find(Filters.eq("filename", key))) {
+            bucket.delete(file.getObjectId());
+            deleted = true;
+        }
+        return deleted;
+    }
+
+    private Optional<GridFSFile> newest(String key) {
+        return Optional.ofNullable(bucket.find(Filters.eq("filename", key))
+                .sort(Sorts.descending("uploadDate"))
+                .limit(1)
+                .first());
+    }
+
+    private StoredFile toStoredFile(GridFSFile file) {
+        String key = file.getFilename();
+        int slash = key.indexOf('/');
+        return new StoredFile(key.substring(0, slash), key.substring(slash + 1), file.getLength(),
+                file.getUploadDate().toInstant());
+    }
+
+    private static String keyOf(String userId, String filename) {
+        return userId + "/" + filename;
+    }
+
+    /**
+     * Looks the file up when first used and opens a new download stream on
+     * every read, so multi-range responses can read it more than once.
+     */
+    private class GridFsFileResource extends AbstractResource {
+
+        private final String key;
+        private GridFSFile file;
+
+        GridFsFileResource(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean exists() {
+            return resolve().isPresent();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return file().getLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return file().getUploadDate().getTime();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return bucket.openDownloadStream(file().getObjectId());
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.indexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "GridFS file [" + key + "]";
+        }
+
+        private GridFSFile file() throws FileNotFoundException {
+            return resolve().orElseThrow(() -> new FileNotFoundException(getDescription() + " not found"));
+        }
+
+        private Optional<GridFSFile> resolve() {
+            if (file == null) {
+                file = newest(key).orElse(null);
+            }
+            return Optional.ofNullable(file);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.kerem.phinance.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shrinks large photos before they are stored: phone pictures of receipts
+ * arrive at several megabytes although a fraction of that is legible.
+ *
+ * JPEG and PNG uploads above a size threshold are decoded, downscaled to fit
+ * the configured dimension and re-encoded, JPEG at the configured quality.
+ * Only pixels are written back, so camera metadata such as location is
+ * dropped; the EXIF orientation is applied to the pixels first. The result
+ * replaces the upload only when it is smaller. A JPEG above the threshold
+ * that is kept as uploaded still loses its metadata segments, copied around
+ * without touching the image data. Everything else passes through
+ * untouched. Original and stored sizes are recorded under
+ * {@code attachments.normalization.original} and
+ * {@code attachments.normalization.stored}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageNormalizationService {
+
+    private static final Set<String> NORMALIZED_EXTENSIONS = Set.of("jpg", "jpeg", "png");
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.attachments.normalization.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${app.attachments.normalization.max-dimension:2048}")
+    private int maxDimension = 2048;
+
+    @Value("${app.attachments.normalization.jpeg-quality:0.8}")
+    private float jpegQuality = 0.8f;
+
+    @Value("${app.attachments.normalization.min-bytes:524288}")
+    private long minBytes = 512 * 1024;
+
+    // Decoded photos take tens of megabytes, so only a few are held at once
+    private final Semaphore decoding = new Semaphore(2);
+
+    /**
+     * The content to store for an upload with this extension. Images that
+     * are normalized are read whole; their size is bounded by the upload
+     * limit.
+     */
+    public InputStream normalize(InputStream content, String extension) throws IOException {
+        if (!enabled || !NORMALIZED_EXTENSIONS.contains(extension)) {
+            return content;
+        }
+
+        byte[] original = content.readAllBytes();
+        byte[] stored = original;
+        String outcome = "unchanged";
+        if (original.length >= minBytes) {
+            byte[] normalized = reencode(original, "png".equals(extension) ? "png" : "jpg");
+            if (normalized != null && normalized.length < original.length) {
+                stored = normalized;
+                outcome = "normalized";
+            } else if (!"png".equals(extension)) {
+                stored = stripMetadata(original);
+                outcome = stored != original ? "stripped" : outcome;
+            }
+        }
+
+        meterRegistry.summary("attachments.normalization.original", "outcome", outcome).record(original.length);
+        meterRegistry.summary("attachments.normalization.stored", "outcome", outcome).record(stored.length);
+        return new ByteArrayInputStream(stored);
+    }
+
+    /**
+     * The image re-encoded in the format, or null when it cannot be decoded.
+     */
+    private byte[] reencode(byte[] original, String format) throws IOException {
+        try {
+            decoding.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to normalize image", e);
+        }
+        try {
+            BufferedImage image = decode(original);
+            if (image == null) {
+                return null;
+            }
+            boolean opaque = "jpg".equals(format);
+            image = ThumbnailService.scale(image, maxDimension, opaque);
+            if ("jpg".equals(format)) {
+                image = orient(image, exifOrientation(original));
+            }
+            return encode(image, format);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Storing image unchanged, it could not be normalized: {}", e.getMessage());
+            return null;
+        } finally {
+            decoding.release();
+        }
+    }
+
+    /**
+     * Decode the image, skipping source pixels while reading when it is at
+     * least twice the target size, so large photos are never held at full
+     * resolution.
+     */
+    private BufferedImage decode(byte[] original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = longest / maxDimension;
+                if (subsampling >= 2) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            // No metadata is passed, so none is written
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The EXIF orientation tag of a JPEG, 1 (upright) when absent.
+     */
+    static int exifOrientation(byte[] jpeg) {
+        int offset = 2;
+        while (offset + 4 <= jpeg.length && (jpeg[offset] & 0xFF) == 0xFF) {
+            int marker = jpeg[offset + 1] & 0xFF;
+            int length = ((jpeg[offset + 2] & 0xFF) << 8) | (jpeg[offset + 3] & 0xFF);
+            // Metadata segments precede the image data
+            if (marker == 0xDA) {
+                break;
+            }
+            int segment = offset + 4;
+            if (marker == 0xE1 && segment + 14 <= jpeg.length
+                    && new String(jpeg, segment, 6, StandardCharsets.US_ASCII).equals("Exif\0\0")) {
+                return tiffOrientation(jpeg, segment + 6, Math.min(jpeg.length, offset + 2 + length));
+            }
+            offset += 2 + length;
+        }
+        return 1;
+    }
+
+    /**
+     * The JPEG without its APP1 segments, which hold the EXIF and XMP
+     * metadata such as location. Segments are copied as they are and the
+     * image data is not decoded. An orientation other than upright is kept
+     * in a minimal EXIF segment of its own. Returns the same array when
+     * there is nothing to remove or the data is not a well-formed JPEG.
+     */
+    static byte[] stripMetadata(byte[] jpeg) {
+        if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+            return jpeg;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(jpeg.length);
+        out.write(jpeg, 0, 2);
+        int orientation = exifOrientation(jpeg);
+        if (orientation != 1) {
+            out.writeBytes(orientationSegment(orientation));
+        }
+
+        boolean stripped = false;
+        int offset = 2;
+        while (true) {
+            if (offset + 4 > jpeg.length || (jpeg[offset] & 0xFF) != 0xFF) {
+                return jpeg;
+            }
+            int marker = jpeg[offset + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // Fill byte before a marker
+                offset++;
+                continue;
+            }
+            // The image data and everything after it is copied unchanged
+            if (marker == 0xDA) {
+                break;
+            }
+            int length = ((jpeg[offset + 2] & 0xFF) << 8) | (jpeg[offset + 3] & 0xFF);
+            int end = offset + 2 + length;
+            if (length < 2 || end > jpeg.length) {
+                return jpeg;
+            }
+            if (marker == 0xE1) {
+                stripped = true;
+            } else {
+                out.write(jpeg, offset, end - offset);
+            }
+            offset = end;
+        }
+        if (!stripped) {
+            return jpeg;
+        }
+        out.write(jpeg, offset, jpeg.length - offset);
+        return out.toByteArray();
+    }
+
+    /**
+     * An APP1 segment holding a big-endian TIFF header with the orientation
+     * as its only entry.
+     */
+    private static byte[] orientationSegment(int orientation) {
+        return new byte[]{
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0};
+    }
+
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        boolean littleEndian = data[tiff] == 'I';
+        int ifd = tiff + readInt(data, tiff + 4, littleEndian);
+        if (ifd + 2 > end) {
+            return 1;
+        }
+        int entries = readShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (readShort(data, entry, littleEndian) == 0x0112) {
+                int orientation = readShort(data, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return littleEndian ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        int low = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+
+    /**
+     * Apply an EXIF orientation to the pixels, so the image shows upright
+     * once the tag is gone.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2 -> transform.setTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> transform.setTransform(-1, 0, 0, -1, width, height);
+            case 4 -> transform.setTransform(1, 0, 0, -1, 0, height);
+            case 5 -> transform.setTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> transform.setTransform(0, 1, -1, 0, height, 0);
+            case 7 -> transform.setTransform(0, -1, -1, 0, height, width);
+            case 8 -> transform.setTransform(0, -1, 1, 0, 0, width);
+            default -> {
+                return image;
+            }
+        }
+
+        BufferedImage target = new BufferedImage(swap ? height : width, swap ? width : height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,123 @@
+package com.kerem.phinance.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stores attachments as {@code uploadDir/userId/filename} on a local or
+ * mounted disk. Files are staged in the owner's directory so the commit is
+ * an atomic rename.
+ */
+@Service
+@ConditionalOnProperty(name = "app.attachments.storage", havingValue = "local", matchIfMissing = true)
+public class LocalAttachmentStorage implements AttachmentStorage {
+
+    private final Path root;
+
+    public LocalAttachmentStorage(@Value("${file.upload.dir:uploads}") String uploadDir) {
+        this.root = Paths.get(uploadDir);
+    }
+
+    @Override
+    public StagedFile stage(String userId, InputStream content) throws IOException {
+        Path userUploadPath = Files.createDirectories(root.resolve(userId));
+        Path temp = Files.createTempFile(userUploadPath, "upload-", STAGED_SUFFIX);
+        try {
+            long size = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            return new StagedFile(userId, temp.getFileName().toString(), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit(StagedFile staged, String filename) throws IOException {
+        Path userUploadPath = root.resolve(staged.userId());
+        Files.move(userUploadPath.resolve(staged.name()), userUploadPath.resolve(filename),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void discard(StagedFile staged) throws IOException {
+        Files.deleteIfExists(root.resolve(staged.userId()).resolve(staged.name()));
+    }
+
+    @Override
+    public Resource load(String userId, String filename) {
+        // Served by region, so ranges seek instead of reading from the start
+        return new FileSystemResource(root.resolve(userId).resolve(filename));
+    }
+
+    @Override
+    public Optional<StoredFile> stat(String userId, String filename) {
+        return stat(root.resolve(userId).resolve(filename));
+    }
+
+    @Override
+    public boolean delete(String userId, String filename) throws IOException {
+        return Files.deleteIfExists(root.resolve(userId).resolve(filename));
+    }
+
+    @Override
+    public boolean move(String userId, String filename, String newFilename) throws IOException {
+        Path userUploadPath = root.resolve(userId);
+        try {
+            Files.move(userUploadPath.resolve(filename), userUploadPath.resolve(newFilename),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Stream<StoredFile> list() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return Stream.empty();
+        }
+        // Directory listings are lazy; entries deleted before they are
+        // reached are skipped
+        return Files.list(root)
+                .filter(Files::isDirectory)
+                .flatMap(userUploadPath -> {
+                    try {
+                        return Files.list(userUploadPath);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .map(this::stat)
+                .flatMap(Optional::stream);
+    }
+
+    private Optional<StoredFile> stat(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new StoredFile(path.getParent().getFileName().toString(),
+                    path.getFileName().toString(), attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
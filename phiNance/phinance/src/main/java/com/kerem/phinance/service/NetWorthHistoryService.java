@@ -0,0 +1,220 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AccountBalanceDelta;
+import com.kerem.phinance.dto.NetWorthHistoryDto;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.AccountBalanceSnapshot;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountBalanceSnapshotRepository;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Daily net worth history backed by per-account closing balance snapshots.
+ *
+ * Snapshots are written by the nightly {@link BalanceSnapshotScheduler} and
+ * kept consistent by shifting every snapshot on or after a transaction's date
+ * whenever it is created, updated or deleted. A past balance is reconstructed
+ * from the nearest snapshot before it plus the transactions since, so history
+ * queries never replay an account's full transaction log once snapshots exist.
+ * Archived accounts count towards the days before they were archived.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NetWorthHistoryService {
+
+    static final int MAX_DAYS = 3660;
+    static final int SNAPSHOT_BATCH_SIZE = 500;
+
+    private final AccountBalanceSnapshotRepository snapshotRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+
+    public NetWorthHistoryDto getNetWorthHistory(LocalDate startDate, LocalDate endDate) {
+        String userId = SecurityUtils.getCurrentUserId();
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date must not be after end date");
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (days > MAX_DAYS) {
+            throw new BadRequestException("Range too large. Maximum " + MAX_DAYS + " days allowed");
+        }
+
+        List<LocalDate> dates = startDate.datesUntil(endDate.plusDays(1)).toList();
+        List<Account> accounts = accountRepository.findByUserId(userId).stream()
+                .filter(account -> !account.isArchived() || archivedOn(account).isAfter(startDate))
+                .toList();
+
+        // Anchor every account at its latest snapshot before the range
+        LocalDate baselineDate = startDate.minusDays(1);
+        Set<String> accountIds = accounts.stream().map(Account::getId).collect(Collectors.toSet());
+        Map<String, AccountBalanceSnapshot> anchors = new HashMap<>();
+        if (!accounts.isEmpty()) {
+            for (AccountBalanceSnapshot snapshot : snapshotRepository.findLatestByUserIdOnOrBefore(userId, baselineDate)) {
+                if (accountIds.contains(snapshot.getAccountId())) {
+                    anchors.put(snapshot.getAccountId(), snapshot);
+                }
+            }
+        }
+
+        // Accounts without any snapshot yet are replayed from their initial balance
+        LocalDate deltasAfter = anchors.size() == accounts.size()
+                ? anchors.values().stream().map(AccountBalanceSnapshot::getDate)
+                        .min(Comparator.naturalOrder()).orElse(baselineDate)
+                : null;
+
+        Map<String, TreeMap<LocalDate, BigDecimal>> deltasByAccount = new HashMap<>();
+        if (!accounts.isEmpty()) {
+            for (AccountBalanceDelta delta : transactionRepository.sumBalanceDeltas(userId, deltasAfter, endDate, true)) {
+                deltasByAccount.computeIfAbsent(delta.getAccountId(), k -> new TreeMap<>())
+                        .put(delta.getDate(), delta.getDelta());
+            }
+        }
+
+        Map<String, Map<LocalDate, BigDecimal>> snapshotsByAccount = new HashMap<>();
+        if (!accounts.isEmpty()) {
+            for (AccountBalanceSnapshot snapshot : snapshotRepository.findByUserIdAndDateBetween(userId, startDate, endDate)) {
+                snapshotsByAccount.computeIfAbsent(snapshot.getAccountId(), k -> new HashMap<>())
+                        .put(snapshot.getDate(), snapshot.getBalance());
+            }
+        }
+
+        BigDecimal[] netWorth = new BigDecimal[dates.size()];
+        Arrays.fill(netWorth, BigDecimal.ZERO);
+        List<NetWorthHistoryDto.AccountHistory> histories = new ArrayList<>();
+
+        for (Account account : accounts) {
+            AccountBalanceSnapshot anchor = anchors.get(account.getId());
+            TreeMap<LocalDate, BigDecimal> deltas = deltasByAccount.getOrDefault(account.getId(), new TreeMap<>());
+            Map<LocalDate, BigDecimal> snapshots = snapshotsByAccount.getOrDefault(account.getId(), Map.of());
+
+            BigDecimal balance;
+            SortedMap<LocalDate, BigDecimal> carried;
+            if (anchor != null) {
+                balance = anchor.getBalance();
+                carried = deltas.subMap(anchor.getDate(), false, startDate, false);
+            } else {
+                balance = account.getInitialBalance() != null ? account.getInitialBalance() : BigDecimal.ZERO;
+                carried = deltas.headMap(startDate, false);
+            }
+            for (BigDecimal delta : carried.values()) {
+                balance = balance.add(delta);
+            }
+
+            // Days with a snapshot re-anchor the series, the gaps are filled from deltas
+            LocalDate archivedOn = account.isArchived() ? archivedOn(account) : LocalDate.MAX;
+            List<BigDecimal> balances = new ArrayList<>(dates.size());
+            for (int i = 0; i < dates.size(); i++) {
+                LocalDate date = dates.get(i);
+                if (!date.isBefore(archivedOn)) {
+                    balances.add(BigDecimal.ZERO);
+                    continue;
+                }
+                BigDecimal snapshot = snapshots.get(date);
+                balance = snapshot != null ? snapshot : balance.add(deltas.getOrDefault(date, BigDecimal.ZERO));
+                balances.add(balance);
+                netWorth[i] = netWorth[i].add(balance);
+            }
+
+            histories.add(NetWorthHistoryDto.AccountHistory.builder()
+                    .accountId(account.getId())
+                    .name(account.getName())
+                    .color(account.getColor())
+                    .balances(balances)
+                    .build());
+        }
+
+        return NetWorthHistoryDto.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .dates(dates)
+                .netWorth(Arrays.asList(netWorth))
+                .accounts(histories)
+                .build();
+    }
+
+    /**
+     * The day an archived account was archived. Accounts archived before the
+     * date was recorded fall back to their last modification, the archiving
+     * being the last write to them, or are left out when that is unknown too.
+     */
+    private static LocalDate archivedOn(Account account) {
+        LocalDateTime archivedAt = account.getArchivedAt() != null ? account.getArchivedAt() : account.getUpdatedAt();
+        return archivedAt != null ? archivedAt.toLocalDate() : LocalDate.MIN;
+    }
+
+    /**
+     * Write the closing balance of every active account for the given day.
+     * Transactions dated after the day are already part of the current
+     * balance, so they are subtracted back out.
+     */
+    public int snapshotBalances(LocalDate date) {
+        Map<String, BigDecimal> laterDeltas = transactionRepository.sumBalanceDeltas(null, date, null, false).stream()
+                .filter(delta -> delta.getAccountId() != null)
+                .collect(Collectors.toMap(AccountBalanceDelta::getAccountId, AccountBalanceDelta::getDelta));
+
+        int written = 0;
+        String lastAccountId = null;
+        List<Account> batch;
+        do {
+            batch = accountRepository.findActiveBatchAfterId(lastAccountId, SNAPSHOT_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastAccountId = batch.get(batch.size() - 1).getId();
+
+            List<AccountBalanceSnapshot> snapshots = batch.stream()
+                    .map(account -> {
+                        AccountBalanceSnapshot snapshot = new AccountBalanceSnapshot();
+                        snapshot.setUserId(account.getUserId());
+                        snapshot.setAccountId(account.getId());
+                        snapshot.setDate(date);
+                        snapshot.setBalance(account.getCurrentBalance()
+                                .subtract(laterDeltas.getOrDefault(account.getId(), BigDecimal.ZERO)));
+                        return snapshot;
+                    })
+                    .toList();
+            written += snapshotRepository.upsertAll(snapshots);
+        } while (batch.size() == SNAPSHOT_BATCH_SIZE);
+
+        return written;
+    }
+
+    public void applyTransaction(Transaction transaction) {
+        shiftSnapshots(transaction, false);
+    }
+
+    public void revertTransaction(Transaction transaction) {
+        shiftSnapshots(transaction, true);
+    }
+
+    public void deleteAccountHistory(String accountId) {
+        snapshotRepository.deleteByAccountId(accountId);
+    }
+
+    private void shiftSnapshots(Transaction transaction, boolean reverse) {
+        BigDecimal amount = reverse ? transaction.getAmount().negate() : transaction.getAmount();
+
+        switch (transaction.getType()) {
+            case INCOME -> snapshotRepository.shiftBalances(transaction.getAccountId(), transaction.getDate(), amount);
+            case EXPENSE -> snapshotRepository.shiftBalances(transaction.getAccountId(), transaction.getDate(), amount.negate());
+            case TRANSFER -> {
+                snapshotRepository.shiftBalances(transaction.getAccountId(), transaction.getDate(), amount.negate());
+                snapshotRepository.shiftBalances(transaction.getTransferToAccountId(), transaction.getDate(), amount);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.kerem.phinance.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kerem.phinance.util.PageTotal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Cache of the totals of paged lists, per user and per filter.
+ *
+ * Each count is stamped with the user's write version at the time it was
+ * counted and only served while that version is current, so any write to
+ * the user's data invalidates all of the user's counts. Metrics are
+ * published under the {@code cache="page-count"} tag.
+ */
+@Service
+public class PageCountCacheService {
+
+    private static final String CACHE_NAME = "page-count";
+
+    private final Cache<String, CachedCount> cache;
+    private final UserWriteVersionService writeVersions;
+
+    public PageCountCacheService(MeterRegistry meterRegistry, UserWriteVersionService writeVersions,
+            @Value("${app.page-count.cache.max-size:10000}") long maxSize,
+            @Value("${app.page-count.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.writeVersions = writeVersions;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * The total of a paged list of the user, or {@code null} when the caller
+     * did not ask for one. The list name and filter values identify the
+     * count; they must not include paging or sorting.
+     */
+    public PageTotal totalFor(String userId, boolean includeTotal, String list, Object... filter) {
+        if (!includeTotal) {
+            return null;
+        }
+
+        String key = userId + ':' + list + ':' + Arrays.deepToString(filter);
+        return counter -> {
+            long version = writeVersions.current(userId);
+            CachedCount cached = cache.getIfPresent(key);
+            if (cached != null && cached.version() == version) {
+                return cached.count();
+            }
+
+            long count = counter.getAsLong();
+            // A slower count of an older version must not replace a newer one
+            cache.asMap().merge(key, new CachedCount(version, count),
+                    (existing, fresh) -> fresh.version() >= existing.version() ? fresh : existing);
+            return count;
+        };
+    }
+
+    private record CachedCount(long version, long count) {
+    }
+}
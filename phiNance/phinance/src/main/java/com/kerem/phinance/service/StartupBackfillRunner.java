@@ -0,0 +1,57 @@
+package com.kerem.phinance.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the idempotent data backfills once the application has started, so
+ * data written before a stored field existed is brought up to date without
+ * an administrator calling the admin endpoints. Each backfill only touches
+ * documents that still need it, so a restart finds little or nothing to do.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StartupBackfillRunner {
+
+    private final BudgetService budgetService;
+    private final GoalService goalService;
+    private final DisplaySnapshotService displaySnapshotService;
+    private final AttachmentService attachmentService;
+
+    @Value("${app.backfill.on-startup:true}")
+    private boolean enabled = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            long budgets = budgetService.backfillDerivedFields();
+            long goals = goalService.backfillDerivedFields();
+            log.info("Sort field backfill completed. Budgets: {}, goals: {}", budgets, goals);
+        } catch (Exception e) {
+            log.error("Sort field backfill failed: {}", e.getMessage(), e);
+        }
+
+        try {
+            long attachments = attachmentService.backfillTransactionLinks();
+            log.info("Attachment link backfill completed. Attachments: {}", attachments);
+        } catch (Exception e) {
+            log.error("Attachment link backfill failed: {}", e.getMessage(), e);
+        }
+
+        try {
+            // Only requested here; the propagation scheduler copies the fields
+            displaySnapshotService.requestBackfillIfNeeded();
+        } catch (Exception e) {
+            log.error("Display snapshot backfill request failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.model.Attachment;
+import com.kerem.phinance.repository.AttachmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates downscaled previews of uploaded images, so lists of receipts do
+ * not transfer the full-size originals.
+ *
+ * Generation runs after the upload has returned, on a small pool with a
+ * bounded queue so only a few large originals are decoded at a time.
+ * Thumbnails are stored next to the original as {@code <hash>.thumb.jpg} or
+ * {@code .png}, and downloads fall back to the original until one is ready.
+ * An image that could not be queued or decoded is served without one, and
+ * a thumbnail finished after its original was deleted is deleted as well.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailService {
+
+    private static final Set<String> IMAGE_CONTENT_TYPES = Set.of("image/jpeg", "image/png", "image/gif");
+
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentStorage attachmentStorage;
+
+    @Value("${app.attachments.thumbnails.max-dimension:320}")
+    private int maxDimension = 320;
+
+    @Value("${app.attachments.thumbnails.workers:2}")
+    private int workers = 2;
+
+    @Value("${app.attachments.thumbnails.queue-capacity:100}")
+    private int queueCapacity = 100;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("thumbnail-", 0).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    public static boolean supports(String contentType) {
+        return contentType != null && IMAGE_CONTENT_TYPES.contains(contentType);
+    }
+
+    /**
+     * Queue a thumbnail for a newly stored image.
+     */
+    public void requestThumbnail(Attachment attachment) {
+        if (!supports(attachment.getContentType())) {
+            return;
+        }
+
+        attachmentRepository.updateThumbnail(attachment.getId(), Attachment.ThumbnailStatus.PENDING, null);
+        try {
+            executor.execute(() -> generate(attachment));
+        } catch (RejectedExecutionException e) {
+            log.warn("Thumbnail queue full, serving {} without one", attachment.getFilename());
+            attachmentRepository.updateThumbnail(attachment.getId(), Attachment.ThumbnailStatus.FAILED, null);
+        }
+    }
+
+    void generate(Attachment attachment) {
+        // JPEG has no transparency, so only photos are re-encoded as JPEG
+        String format = "image/jpeg".equals(attachment.getContentType()) ? "jpg" : "png";
+        String thumbnailFilename = attachment.getHash() + ".thumb." + format;
+
+        try {
+            BufferedImage original;
+            try (InputStream in = attachmentStorage.load(attachment.getUserId(), attachment.getFilename())
+                    .getInputStream()) {
+                original = ImageIO.read(in);
+            }
+            if (original == null) {
+                throw new IOException("Unsupported image format");
+            }
+
+            BufferedImage thumbnail = scale(original, maxDimension, "jpg".equals(format));
+            // Thumbnails are a few kilobytes, so they are encoded in memory
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            if (!ImageIO.write(thumbnail, format, encoded)) {
+                throw new IOException("No " + format + " writer available");
+            }
+            AttachmentStorage.StagedFile staged = attachmentStorage.stage(attachment.getUserId(),
+                    new ByteArrayInputStream(encoded.toByteArray()));
+            try {
+                attachmentStorage.commit(staged, thumbnailFilename);
+            } catch (IOException | RuntimeException e) {
+                attachmentStorage.discard(staged);
+                throw e;
+            }
+
+            if (!attachmentRepository.updateThumbnail(attachment.getId(), Attachment.ThumbnailStatus.READY,
+                    thumbnailFilename)) {
+                // The original was deleted while the thumbnail was pending;
+                // a new upload of it meanwhile keeps the thumbnail
+                attachmentStorage.deleteWithRecord(attachment.getUserId(), List.of(thumbnailFilename),
+                        () -> !attachmentRepository.existsById(attachment.getId()));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to generate thumbnail for {}: {}", attachment.getFilename(), e.getMessage(), e);
+            attachmentRepository.updateThumbnail(attachment.getId(), Attachment.ThumbnailStatus.FAILED, null);
+        }
+    }
+
+    /**
+     * Scale the image to fit within maxDimension on its longer side, halving
+     * it in steps first so large originals do not alias. Images already
+     * small enough keep their size.
+     */
+    static BufferedImage scale(BufferedImage image, int maxDimension, boolean opaque) {
+        double factor = Math.min(1.0, (double) maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * factor));
+
+        BufferedImage current = image;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            current = draw(current, width, height, opaque);
+        } while (current.getWidth() > targetWidth || current.getHeight() > targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean opaque) {
+        BufferedImage target = new BufferedImage(width, height,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (opaque) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -11,10 +11,11 @@ import com.kerem.phinance.repository.GoalContributionRepository;
 import com.kerem.phinance.repository.GoalRepository;
 import com.kerem.phinance.repository.TransactionRepository;
 import com.kerem.phinance.security.SecurityUtils;
+import com.kerem.phinance.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,20 +23,38 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import static com.kerem.phinance.util.FieldSelection.field;
+
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
 
+    /**
+     * Response fields the list endpoint can be narrowed to, with the stored
+     * fields each is built from.
+     */
+    public static final Map<String, List<String>> LIST_FIELDS = Map.ofEntries(
+            field("accountId"), field("type"), field("amount"), field("categoryId"), field("description"),
+            field("date"), field("recurring"), field("recurrencePattern"), field("autoGenerated"),
+            field("transferToAccountId"), field("attachmentUrls"),
+            field("accountName"), field("accountColor"), field("transferToAccountName"), field("categoryName"),
+            field("categoryColor"), field("categoryIcon"));
+
     private final TransactionRepository transactionRepository;
     private final AccountService accountService;
     private final BudgetService budgetService;
     private final GoalContributionRepository goalContributionRepository;
     private final GoalRepository goalRepository;
+    private final DashboardCacheService dashboardCacheService;
+    private final NetWorthHistoryService netWorthHistoryService;
+    private final PageCountCacheService pageCountCacheService;
+    private final AttachmentService attachmentService;
 
-    public Page<TransactionDto> getTransactions(TransactionFilterDto filter) {
+    public Slice<TransactionDto> getTransactions(TransactionFilterDto filter, FieldSelection fields) {
         String userId = SecurityUtils.getCurrentUserId();
         // Build sort
         Sort sort;
@@ -43,14 +62,14 @@ public class TransactionService {
             Sort.Direction direction = filter.getSortDirection() != null
                     && filter.getSortDirection().equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
 
-            // Map frontend sort fields to backend fields
+            // Map frontend sort fields to backend fields; account and category sort by name
             String sortField = filter.getSortBy();
             switch (sortField) {
                 case "account":
-                    sortField = "accountId";
+                    sortField = "accountName";
                     break;
                 case "category":
-                    sortField = "categoryId";
+                    sortField = "categoryName";
                     break;
                 // date, amount, type stay the same
             }
@@ -74,32 +93,17 @@ public class TransactionService {
                 filter.getMinAmount(),
                 filter.getMaxAmount(),
                 filter.getSearchQuery(),
-                pageable
-        ).map(this::mapToDto);
+                pageable,
+                pageCountCacheService.totalFor(userId, filter.isIncludeTotal(), "transactions",
+                        filter.getStartDate(), filter.getEndDate(), filter.getAccountId(), filter.getCategoryId(),
+                        filter.getType(), filter.getMinAmount(), filter.getMaxAmount(), filter.getSearchQuery()),
+                fields
+        ).map(transaction -> mapToDto(transaction, userId));
     }
 
     public List<TransactionDto> getTransactionsForExport(TransactionFilterDto filter) {
         String userId = SecurityUtils.getCurrentUserId();
-        // Build sort (same as getTransactions)
-        Sort sort;
-        if (filter.getSortBy() != null) {
-            Sort.Direction direction = filter.getSortDirection() != null
-                    && filter.getSortDirection().equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
-
-            String sortField = filter.getSortBy();
-            switch (sortField) {
-                case "account":
-                    sortField = "accountId";
-                    break;
-                case "category":
-                    sortField = "categoryId";
-                    break;
-            }
-
-            sort = Sort.by(direction, sortField);
-        } else {
-            sort = Sort.by(Sort.Direction.DESC, "date");
-        }
+        Sort sort = exportSort(filter);
 
         // Fetch all matching transactions without pagination
         return transactionRepository.findAllByFilters(
@@ -116,6 +120,29 @@ public class TransactionService {
         ).stream().map(this::mapToDto).collect(Collectors.toList());
     }
 
+    /**
+     * Sort of the unpaginated exports (same as getTransactions).
+     */
+    static Sort exportSort(TransactionFilterDto filter) {
+        if (filter.getSortBy() == null) {
+            return Sort.by(Sort.Direction.DESC, "date");
+        }
+        Sort.Direction direction = filter.getSortDirection() != null
+                && filter.getSortDirection().equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+
+        String sortField = filter.getSortBy();
+        switch (sortField) {
+            case "account":
+                sortField = "accountId";
+                break;
+            case "category":
+                sortField = "categoryId";
+                break;
+        }
+
+        return Sort.by(direction, sortField);
+    }
+
     public TransactionDto getTransactionById(String transactionId) {
         String userId = SecurityUtils.getCurrentUserId();
         Transaction transaction = transactionRepository.findByIdAndUserId(transactionId, userId)
@@ -142,7 +169,7 @@ public class TransactionService {
         transaction.setRecurring(dto.isRecurring());
         transaction.setRecurrencePattern(dto.getRecurrencePattern());
         transaction.setAutoGenerated(dto.isAutoGenerated());
-        transaction.setAttachmentUrls(dto.getAttachmentUrls());
+        transaction.setAttachmentUrls(AttachmentService.unsignedUrls(userId, dto.getAttachmentUrls()));
 
         // Handle transfer
         if (dto.getType() == Transaction.TransactionType.TRANSFER) {
@@ -173,6 +200,9 @@ public class TransactionService {
         }
 
         Transaction saved = transactionRepository.save(transaction);
+        attachmentService.linkTransaction(userId, saved.getId(), saved.getAttachmentUrls());
+        netWorthHistoryService.applyTransaction(transaction);
+        dashboardCacheService.invalidate(userId);
         return mapToDto(saved);
     }
 
@@ -195,7 +225,7 @@ public class TransactionService {
         transaction.setRecurring(dto.isRecurring());
         transaction.setRecurrencePattern(dto.getRecurrencePattern());
         transaction.setAutoGenerated(dto.isAutoGenerated());
-        transaction.setAttachmentUrls(dto.getAttachmentUrls());
+        transaction.setAttachmentUrls(AttachmentService.unsignedUrls(userId, dto.getAttachmentUrls()));
 
         // Handle transfer
         if (dto.getType() == Transaction.TransactionType.TRANSFER) {
@@ -226,6 +256,9 @@ public class TransactionService {
         }
 
         Transaction saved = transactionRepository.save(transaction);
+        attachmentService.linkTransaction(userId, saved.getId(), saved.getAttachmentUrls());
+        netWorthHistoryService.applyTransaction(transaction);
+        dashboardCacheService.invalidate(userId);
         return mapToDto(saved);
     }
 
@@ -259,6 +292,7 @@ public class TransactionService {
         } else {
             reverseAccountBalance(transaction);
         }
+        netWorthHistoryService.revertTransaction(transaction);
 
         // Update transaction
         transaction.setAmount(dto.getAmount());
@@ -267,7 +301,7 @@ public class TransactionService {
         transaction.setDate(dto.getDate());
         transaction.setRecurring(dto.isRecurring());
         transaction.setRecurrencePattern(dto.getRecurrencePattern());
-        transaction.setAttachmentUrls(dto.getAttachmentUrls());
+        transaction.setAttachmentUrls(AttachmentService.unsignedUrls(userId, dto.getAttachmentUrls()));
 
         // Apply new balance change
         if (transaction.getType() == Transaction.TransactionType.TRANSFER) {
@@ -277,6 +311,7 @@ public class TransactionService {
         } else {
             updateAccountBalance(transaction);
         }
+        netWorthHistoryService.applyTransaction(transaction);
 
         // Update goal contribution if this is a goal contribution transaction
         GoalContribution contribution = goalContributionRepository.findByTransactionId(transactionId);
@@ -325,6 +360,8 @@ public class TransactionService {
         }
 
         Transaction saved = transactionRepository.save(transaction);
+        attachmentService.linkTransaction(userId, saved.getId(), saved.getAttachmentUrls());
+        dashboardCacheService.invalidate(userId);
         return mapToDto(saved);
     }
 
@@ -342,6 +379,7 @@ public class TransactionService {
         } else {
             reverseAccountBalance(transaction);
         }
+        netWorthHistoryService.revertTransaction(transaction);
 
         // Subtract from budget if expense
         if (transaction.getType() == Transaction.TransactionType.EXPENSE && transaction.getCategoryId() != null) {
@@ -374,6 +412,8 @@ public class TransactionService {
         }
 
         transactionRepository.delete(transaction);
+        attachmentService.unlinkTransaction(userId, transactionId);
+        dashboardCacheService.invalidate(userId);
     }
 
     public List<TransactionDto> getTransactionsByDateRange(LocalDate startDate, LocalDate endDate) {
@@ -409,6 +449,14 @@ public class TransactionService {
     }
 
     private TransactionDto mapToDto(Transaction transaction) {
+        return mapToDto(transaction, transaction.getUserId());
+    }
+
+    /**
+     * Map a transaction of the user. Projected list reads may not load the
+     * owner, so links are signed for the user the request is made by.
+     */
+    private TransactionDto mapToDto(Transaction transaction, String userId) {
         TransactionDto dto = new TransactionDto();
         dto.setId(transaction.getId());
         dto.setAccountId(transaction.getAccountId());
@@ -421,7 +469,13 @@ public class TransactionService {
         dto.setRecurrencePattern(transaction.getRecurrencePattern());
         dto.setAutoGenerated(transaction.isAutoGenerated());
         dto.setTransferToAccountId(transaction.getTransferToAccountId());
-        dto.setAttachmentUrls(transaction.getAttachmentUrls());
+        dto.setAttachmentUrls(attachmentService.signedUrls(userId, transaction.getAttachmentUrls()));
+        dto.setAccountName(transaction.getAccountName());
+        dto.setAccountColor(transaction.getAccountColor());
+        dto.setTransferToAccountName(transaction.getTransferToAccountName());
+        dto.setCategoryName(transaction.getCategoryName());
+        dto.setCategoryColor(transaction.getCategoryColor());
+        dto.setCategoryIcon(transaction.getCategoryIcon());
         return dto;
     }
 }
@@ -0,0 +1,67 @@
+package com.kerem.phinance.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user write versions shared by the caches of user data.
+ *
+ * Every write to a user's data bumps the version, so a cached value stamped
+ * with the version it was computed at is recognised as stale afterwards.
+ * Inside a transaction the version is bumped again after completion, so a
+ * read racing with the commit cannot be stamped as current.
+ *
+ * Versions of inactive users are evicted. All versions are drawn from one
+ * increasing sequence, so a user whose version was evicted starts again at
+ * a value that no cached entry can carry.
+ */
+@Service
+public class UserWriteVersionService {
+
+    private final Cache<String, AtomicLong> versions;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public UserWriteVersionService(@Value("${app.write-versions.max-size:100000}") long maxSize,
+            @Value("${app.write-versions.expire-after-access:1h}") Duration expireAfterAccess) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    public long current(String userId) {
+        return versionOf(userId).get();
+    }
+
+    public void bump(String userId) {
+        if (userId == null) {
+            return;
+        }
+
+        increment(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    increment(userId);
+                }
+            });
+        }
+    }
+
+    private void increment(String userId) {
+        versionOf(userId).accumulateAndGet(sequence.incrementAndGet(), Math::max);
+    }
+
+    private AtomicLong versionOf(String userId) {
+        return versions.get(userId, key -> new AtomicLong(sequence.incrementAndGet()));
+    }
+}
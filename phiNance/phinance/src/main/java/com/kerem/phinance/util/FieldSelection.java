@@ -0,0 +1,108 @@
+package com.kerem.phinance.util;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.kerem.phinance.exception.BadRequestException;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sparse fieldset requested through the {@code fields} parameter of a list
+ * endpoint. Knows which document fields the query has to load for the
+ * requested response fields, and which fields the rows serialize with.
+ */
+public final class FieldSelection {
+
+    /**
+     * Jackson filter id carried by the DTOs whose fields can be selected.
+     */
+    public static final String FILTER_ID = "fieldSelection";
+
+    private static final FieldSelection ALL = new FieldSelection(null, null);
+
+    private final Set<String> responseFields;
+    private final Set<String> documentFields;
+
+    private FieldSelection(Set<String> responseFields, Set<String> documentFields) {
+        this.responseFields = responseFields;
+        this.documentFields = documentFields;
+    }
+
+    public static FieldSelection all() {
+        return ALL;
+    }
+
+    /**
+     * Selectable response field built from the given document fields, or
+     * from the document field of the same name when none are given.
+     */
+    public static Map.Entry<String, List<String>> field(String name, String... documentFields) {
+        return Map.entry(name, documentFields.length == 0 ? List.of(name) : List.of(documentFields));
+    }
+
+    /**
+     * Parse a comma separated field list. The id is always returned; a
+     * missing or blank list selects every field.
+     */
+    public static FieldSelection parse(String fields, Map<String, List<String>> selectable) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+
+        Set<String> responseFields = new LinkedHashSet<>();
+        Set<String> documentFields = new LinkedHashSet<>();
+        responseFields.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || name.equals("id")) {
+                continue;
+            }
+            List<String> sources = selectable.get(name);
+            if (sources == null) {
+                throw new BadRequestException("Unknown field '" + name + "'. Allowed fields: "
+                        + String.join(", ", new TreeSet<>(selectable.keySet())));
+            }
+            responseFields.add(name);
+            documentFields.addAll(sources);
+        }
+        return new FieldSelection(responseFields, documentFields);
+    }
+
+    public boolean isAll() {
+        return responseFields == null;
+    }
+
+    public Set<String> getResponseFields() {
+        return isAll() ? Collections.emptySet() : Collections.unmodifiableSet(responseFields);
+    }
+
+    public Set<String> getDocumentFields() {
+        return isAll() ? Collections.emptySet() : Collections.unmodifiableSet(documentFields);
+    }
+
+    /**
+     * Load only the selected document fields; the id is always returned.
+     */
+    public Query applyTo(Query query) {
+        if (!isAll()) {
+            documentFields.forEach(field -> query.fields().include(field));
+        }
+        return query;
+    }
+
+    /**
+     * Serialization filters that keep only the selected response fields.
+     */
+    public FilterProvider filters() {
+        SimpleFilterProvider provider = new SimpleFilterProvider().setFailOnUnknownId(false);
+        return isAll() ? provider : provider.addFilter(FILTER_ID,
+                SimpleBeanPropertyFilter.filterOutAllExcept(responseFields));
+    }
+}
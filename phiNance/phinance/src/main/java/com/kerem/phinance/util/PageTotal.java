@@ -0,0 +1,21 @@
+package com.kerem.phinance.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Resolves the total element count of a paged query, calling the counter
+ * only when it has to (e.g. on a cache miss). Paged repository methods take
+ * {@code null} instead when the caller does not need a total.
+ */
+@FunctionalInterface
+public interface PageTotal {
+
+    long resolve(LongSupplier counter);
+
+    /**
+     * Always run the count.
+     */
+    static PageTotal counted() {
+        return LongSupplier::getAsLong;
+    }
+}
@@ -0,0 +1,73 @@
+package com.kerem.phinance.util;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Paged finds that fetch one row beyond the page to tell whether a next page
+ * exists, and only count the matching documents when a total is asked for
+ * and the page itself does not reveal it.
+ */
+public final class PagedQueries {
+
+    private PagedQueries() {
+    }
+
+    /**
+     * Case-insensitive paged find. Returns a {@link org.springframework.data.domain.Page}
+     * when a total is requested, a plain {@link Slice} otherwise.
+     */
+    public static <T> Slice<T> find(MongoTemplate mongoTemplate, Criteria criteria, Pageable pageable,
+            Class<T> entityClass, PageTotal total) {
+        return find(mongoTemplate, criteria, pageable, entityClass, total, FieldSelection.all());
+    }
+
+    /**
+     * Case-insensitive paged find loading only the selected fields.
+     */
+    public static <T> Slice<T> find(MongoTemplate mongoTemplate, Criteria criteria, Pageable pageable,
+            Class<T> entityClass, PageTotal total, FieldSelection fields) {
+        Query query = fields.applyTo(new Query(criteria))
+                .with(pageable)
+                .collation(SortingUtils.getCaseInsensitiveCollation());
+        List<T> rows = mongoTemplate.find(withLookahead(query, pageable), entityClass);
+
+        return toSlice(rows, pageable, total, () -> mongoTemplate.count(
+                new Query(criteria).collation(SortingUtils.getCaseInsensitiveCollation()), entityClass));
+    }
+
+    /**
+     * Limit the query to the page size plus one lookahead row.
+     */
+    public static Query withLookahead(Query query, Pageable pageable) {
+        return pageable.isPaged() ? query.limit(pageable.getPageSize() + 1) : query;
+    }
+
+    /**
+     * Build the page from rows fetched with {@link #withLookahead}.
+     */
+    public static <T> Slice<T> toSlice(List<T> rows, Pageable pageable, PageTotal total, LongSupplier counter) {
+        boolean hasNext = pageable.isPaged() && rows.size() > pageable.getPageSize();
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, pageable.getPageSize())) : rows;
+
+        if (total == null) {
+            return new SliceImpl<>(content, pageable, hasNext);
+        }
+
+        // The last page already tells the total
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        if (!hasNext && (!content.isEmpty() || offset == 0)) {
+            return new PageImpl<>(content, pageable, offset + content.size());
+        }
+        return new PageImpl<>(content, pageable, total.resolve(counter));
+    }
+}
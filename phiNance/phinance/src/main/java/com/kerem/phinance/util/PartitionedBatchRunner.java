@@ -0,0 +1,71 @@
+package com.kerem.phinance.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Runs a batch job over a collection read in keyset order. Each batch is
+ * processed as one partition on a bounded pool while the next batches are
+ * read, with at most twice the parallelism of batches held in memory.
+ */
+public class PartitionedBatchRunner {
+
+    private PartitionedBatchRunner() {
+    }
+
+    /**
+     * @param parallelism number of partitions processed concurrently
+     * @param batchSize   maximum number of items per partition
+     * @param fetchAfter  reads the next batch after the given id (null for the first) with the given limit
+     * @param idOf        keyset id of an item
+     * @param processor   processes one partition
+     * @return the partition results in read order
+     */
+    public static <T, R> List<R> run(int parallelism, int batchSize,
+            BiFunction<String, Integer, List<T>> fetchAfter,
+            Function<T, String> idOf,
+            Function<List<T>, R> processor) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<Future<R>> futures = new ArrayList<>();
+
+        try {
+            String lastId = null;
+            List<T> batch;
+            do {
+                inFlight.acquire();
+                batch = fetchAfter.apply(lastId, batchSize);
+                if (batch.isEmpty()) {
+                    inFlight.release();
+                    break;
+                }
+                lastId = idOf.apply(batch.get(batch.size() - 1));
+
+                List<T> partition = batch;
+                futures.add(executor.submit(() -> {
+                    try {
+                        return processor.apply(partition);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            } while (batch.size() == batchSize);
+
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Partitioned batch job interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Partitioned batch job failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -12,6 +12,13 @@ import org.springframework.data.domain.Sort;
  */
 public class SortingUtils {
 
+    /**
+     * The one collation of case-insensitive paged queries. Indexes serving
+     * those queries must declare the same collation, otherwise MongoDB
+     * cannot use them and sorts in memory.
+     */
+    public static final String CASE_INSENSITIVE_COLLATION = "{'locale': 'en', 'strength': 2}";
+
     /**
      * Create a Pageable with case-insensitive collation for MongoDB queries
      * Uses strength=SECONDARY which means case-insensitive but accent-sensitive
@@ -32,7 +39,7 @@ public class SortingUtils {
      * accent-sensitive)
      */
     public static Collation getCaseInsensitiveCollation() {
-        return Collation.of("en");
+        return Collation.parse(CASE_INSENSITIVE_COLLATION);
     }
 
     /**
@@ -0,0 +1,194 @@
+package com.kerem.phinance.repository;
+
+import com.kerem.phinance.config.MongoConfig;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.*;
+import com.kerem.phinance.service.GoalService;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.SortingUtils;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.abort;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Paged case-insensitive queries can only use an index for their filter and
+ * sort when the index has the same collation as the query.
+ */
+class PagedQueryIndexTest {
+
+    private static final List<Class<?>> PAGED_ENTITIES = List.of(
+            Account.class, Budget.class, Category.class, FavoriteFilter.class, Goal.class, Transaction.class);
+
+    @Test
+    void collatedIndexesMatchPagedQueryCollation() {
+        Document collation = SortingUtils.getCaseInsensitiveCollation().toDocument();
+
+        for (Class<?> entity : PAGED_ENTITIES) {
+            List<Document> collated = indexDefinitions(entity).stream()
+                    .map(IndexDefinition::getIndexOptions)
+                    .filter(options -> options.getString("name").endsWith("_ci_idx"))
+                    .toList();
+
+            assertFalse(collated.isEmpty(), entity.getSimpleName() + " has no collated index");
+            for (Document options : collated) {
+                assertEquals(collation, options.get("collation"), options.getString("name"));
+            }
+        }
+    }
+
+    @Test
+    void pagedQueriesUseTheSharedCollation() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        // Past the end, so the page cannot tell the total and it is counted
+        PageRequest pageable = PageRequest.of(1, 10, Sort.by("name"));
+
+        new GoalRepositoryImpl(mongoTemplate).findByUserIdCaseInsensitive("user1", null, pageable, PageTotal.counted(),
+                FieldSelection.all());
+        new CategoryRepositoryImpl(mongoTemplate).findByUserIdOrIsDefaultTrueCaseInsensitive("user1", pageable, PageTotal.counted(),
+                FieldSelection.all());
+        new AccountRepositoryImpl(mongoTemplate).findByUserIdAndArchivedFalseCaseInsensitive("user1", pageable, PageTotal.counted(),
+                FieldSelection.all());
+
+        ArgumentCaptor<Query> finds = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Query> counts = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).find(finds.capture(), any());
+        verify(mongoTemplate, times(3)).count(counts.capture(), any(Class.class));
+        for (Query query : concat(finds.getAllValues(), counts.getAllValues())) {
+            assertEquals(SortingUtils.getCaseInsensitiveCollation(), query.getCollation().orElseThrow());
+        }
+    }
+
+    @Test
+    void selectedFieldsAreProjectedFromTheirStoredFields() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        FieldSelection fields = FieldSelection.parse("name, progressPercentage", GoalService.LIST_FIELDS);
+
+        new GoalRepositoryImpl(mongoTemplate).findByUserIdCaseInsensitive("user1", null, PageRequest.of(0, 10),
+                PageTotal.counted(), fields);
+
+        ArgumentCaptor<Query> find = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(find.capture(), eq(Goal.class));
+        assertEquals(new Document("name", 1).append("targetAmount", 1).append("currentAmount", 1),
+                find.getValue().getFieldsObject());
+        assertEquals(List.of("id", "name", "progressPercentage"), List.copyOf(fields.getResponseFields()));
+        assertThrows(BadRequestException.class, () -> FieldSelection.parse("userId", GoalService.LIST_FIELDS));
+    }
+
+    /**
+     * Runs the default sorted pages against a real server and checks their
+     * winning plans. The server is an embedded mongod, or the one given with
+     * e.g. {@code mvn test -Dmongo.uri=mongodb://localhost:27017}. Without
+     * either, e.g. offline before the mongod binary was downloaded once, the
+     * test is aborted rather than passed.
+     */
+    @Test
+    void sortedPagesUseIndexScanWithoutBlockingSort() {
+        String uri = System.getProperty("mongo.uri");
+        TransitionWalker.ReachedState<RunningMongodProcess> embedded = null;
+        if (uri == null || uri.isBlank()) {
+            try {
+                embedded = Mongod.instance().start(Version.Main.V6_0);
+            } catch (RuntimeException e) {
+                abort("Embedded MongoDB could not be started: " + e.getMessage());
+            }
+            ServerAddress address = embedded.current().getServerAddress();
+            uri = "mongodb://" + address.getHost() + ":" + address.getPort();
+        }
+
+        try (TransitionWalker.ReachedState<RunningMongodProcess> server = embedded;
+             MongoClient client = MongoClients.create(uri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "phinance_index_test");
+            mongoTemplate.getDb().drop();
+            for (Class<?> entity : PAGED_ENTITIES) {
+                indexDefinitions(entity).forEach(index -> mongoTemplate.indexOps(entity).ensureIndex(index));
+            }
+            for (int i = 0; i < 50; i++) {
+                for (String collection : List.of("accounts", "budgets", "categories", "favorite_filters", "goals", "transactions")) {
+                    mongoTemplate.getCollection(collection).insertOne(new Document("userId", "user" + (i % 5))
+                            .append("name", (i % 2 == 0 ? "a" : "B") + i)
+                            .append("archived", false)
+                            .append("isDefault", i % 10 == 0)
+                            .append("year", 2024)
+                            .append("month", 1 + i % 3)
+                            .append("spentPercentage", i * 2.5)
+                            .append("progressPercentage", i * 2.0)
+                            .append("date", "2024-01-" + String.format("%02d", 1 + i % 28)));
+                }
+            }
+
+            Map<String, Document[]> pages = Map.of(
+                    "accounts", new Document[]{new Document("userId", "user1").append("archived", false), new Document("name", 1)},
+                    "budgets", new Document[]{new Document("userId", "user1").append("year", 2024).append("month", 2),
+                            new Document("spentPercentage", -1)},
+                    "categories", new Document[]{new Document("$or", List.of(new Document("userId", "user1"),
+                            new Document("isDefault", true))), new Document("name", 1)},
+                    "favorite_filters", new Document[]{new Document("userId", "user1"), new Document("name", 1)},
+                    "goals", new Document[]{new Document("userId", "user1"), new Document("progressPercentage", -1)},
+                    "transactions", new Document[]{new Document("$and", List.of(new Document("userId", "user1"))),
+                            new Document("date", -1)});
+
+            pages.forEach((collection, page) -> {
+                Document explain = mongoTemplate.getDb().runCommand(new Document("explain", new Document("find", collection)
+                        .append("filter", page[0])
+                        .append("sort", page[1])
+                        .append("limit", 10)
+                        .append("collation", SortingUtils.getCaseInsensitiveCollation().toDocument()))
+                        .append("verbosity", "queryPlanner"));
+                List<String> stages = new ArrayList<>();
+                collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+
+                assertTrue(stages.contains("IXSCAN"), collection + " plan: " + stages);
+                assertFalse(stages.contains("SORT"), collection + " plan: " + stages);
+            });
+        }
+    }
+
+    private List<IndexDefinition> indexDefinitions(Class<?> entity) {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoConfig().customConversions().getSimpleTypeHolder());
+        List<IndexDefinition> definitions = new ArrayList<>();
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(entity).forEach(definitions::add);
+        return definitions;
+    }
+
+    private static void collectStages(Object plan, List<String> stages) {
+        if (plan instanceof Document document) {
+            if (document.containsKey("stage")) {
+                stages.add(document.getString("stage"));
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (plan instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    private static List<Query> concat(List<Query> first, List<Query> second) {
+        List<Query> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+}
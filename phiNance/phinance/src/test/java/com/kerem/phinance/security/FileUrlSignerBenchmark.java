@@ -0,0 +1,80 @@
+package com.kerem.phinance.security;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Compares the per-download cost of checking a signed file URL with the
+ * JWT check it replaced. Not a test; run it by hand after compiling the
+ * test sources:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.kerem.phinance.security.FileUrlSignerBenchmark [iterations]
+ * </pre>
+ *
+ * Each check is warmed up with the same number of iterations before it is
+ * timed, and its results are accumulated so the JIT cannot drop the work.
+ */
+public final class FileUrlSignerBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-for-signing-file-urls-minimum-256-bits";
+    private static final String PATH = "/api/files/user123/"
+            + "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.jpg";
+
+    private FileUrlSignerBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        JwtTokenProvider jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpiration", Duration.ofHours(24).toMillis());
+        String token = jwtTokenProvider.generateToken("user@example.com");
+
+        FileUrlSigner fileUrlSigner = new FileUrlSigner(SECRET, Duration.ofHours(12));
+        String signed = fileUrlSigner.sign(PATH);
+        String expires = parameter(signed, FileUrlSigner.EXPIRES_PARAM);
+        String signature = parameter(signed, FileUrlSigner.SIGNATURE_PARAM);
+
+        // What the download endpoint did per request before and after signing
+        report("JWT", iterations, () -> jwtTokenProvider.validateToken(token)
+                && jwtTokenProvider.getEmailFromToken(token) != null);
+        report("HMAC", iterations, () -> fileUrlSigner.verify(PATH, expires, signature));
+    }
+
+    private static void report(String name, int iterations, BooleanSupplier check) {
+        run(iterations, check);
+        long start = System.nanoTime();
+        int valid = run(iterations, check);
+        long elapsed = System.nanoTime() - start;
+        if (valid != iterations) {
+            throw new IllegalStateException(name + " check rejected a valid request");
+        }
+        System.out.printf("%-5s %,10.2f us per check (%,d iterations)%n",
+                name, elapsed / 1_000.0 / iterations, iterations);
+    }
+
+    private static int run(int iterations, BooleanSupplier check) {
+        int valid = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (check.getAsBoolean()) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static String parameter(String url, String name) {
+        for (String pair : url.substring(url.indexOf('?') + 1).split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        throw new IllegalArgumentException("No " + name + " in " + url);
+    }
+}
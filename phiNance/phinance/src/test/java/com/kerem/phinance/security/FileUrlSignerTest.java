@@ -0,0 +1,68 @@
+package com.kerem.phinance.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUrlSignerTest {
+
+    private static final String PATH = "/api/files/user123/abc.jpg";
+    private static final Instant NOW = Instant.parse("2024-03-01T10:00:00Z");
+
+    private FileUrlSigner fileUrlSigner;
+
+    @BeforeEach
+    void setUp() {
+        fileUrlSigner = new FileUrlSigner("test-secret", Duration.ofHours(12));
+        at(NOW);
+    }
+
+    @Test
+    void sign_KeepsTheSameUrlWithinAWindow() {
+        String url = fileUrlSigner.sign(PATH + "?expires=1&signature=old");
+
+        // Expires at the end of the window after the current one
+        assertTrue(url.startsWith(PATH + "?expires=" + Instant.parse("2024-03-02T00:00:00Z").getEpochSecond() + "&"));
+        at(NOW.plus(Duration.ofHours(1)));
+        assertEquals(url, fileUrlSigner.sign(PATH));
+        at(NOW.plus(Duration.ofHours(3)));
+        assertNotEquals(url, fileUrlSigner.sign(PATH));
+    }
+
+    @Test
+    void verify_AcceptsOnlyTheSignedPathUntilItExpires() {
+        String url = fileUrlSigner.sign(PATH);
+        String expires = param(url, "expires");
+        String signature = param(url, "signature");
+
+        assertTrue(fileUrlSigner.verify(PATH, expires, signature));
+        assertFalse(fileUrlSigner.verify("/api/files/user456/abc.jpg", expires, signature));
+        assertFalse(fileUrlSigner.verify(PATH, String.valueOf(Long.parseLong(expires) + 1), signature));
+        assertFalse(fileUrlSigner.verify(PATH, expires, "not base64!"));
+        assertFalse(fileUrlSigner.verify(PATH, "soon", signature));
+        assertFalse(new FileUrlSigner("other-secret", Duration.ofHours(12)).verify(PATH, expires, signature));
+
+        at(Instant.ofEpochSecond(Long.parseLong(expires)));
+        assertFalse(fileUrlSigner.verify(PATH, expires, signature));
+    }
+
+    private void at(Instant instant) {
+        ReflectionTestUtils.setField(fileUrlSigner, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private static String param(String url, String name) {
+        for (String pair : url.substring(url.indexOf('?') + 1).split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AccountLedgerDto;
+import com.kerem.phinance.dto.TransactionLedgerRow;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.repository.UserRepository;
+import com.kerem.phinance.security.CursorSigner;
+import com.kerem.phinance.security.SecurityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLedgerTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private DashboardCacheService dashboardCacheService;
+
+    @Mock
+    private NetWorthHistoryService netWorthHistoryService;
+
+    @Mock
+    private BalanceLedgerService balanceLedgerService;
+
+    @Spy
+    private CursorSigner cursorSigner = new CursorSigner("test-secret");
+
+    @InjectMocks
+    private AccountService accountService;
+
+    private final String userId = "user123";
+    private final String accountId = "account123";
+    private MockedStatic<SecurityUtils> securityUtilsMock;
+
+    @BeforeEach
+    void setUp() {
+        securityUtilsMock = mockStatic(SecurityUtils.class);
+        securityUtilsMock.when(SecurityUtils::getCurrentUserId).thenReturn(userId);
+
+        Account account = new Account();
+        account.setId(accountId);
+        account.setUserId(userId);
+        account.setInitialBalance(new BigDecimal("100"));
+        account.setCurrentBalance(new BigDecimal("160"));
+        when(accountRepository.findByIdAndUserId(accountId, userId)).thenReturn(Optional.of(account));
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtilsMock.close();
+    }
+
+    @Test
+    void getLedger_AscendingStartsFromInitialBalanceAndCarriesCursor() {
+        when(transactionRepository.findLedgerPage(userId, accountId, null, null, Sort.Direction.ASC, 3))
+                .thenReturn(List.of(
+                        row("t1", Transaction.TransactionType.INCOME, accountId, null, "50", "50", 1),
+                        row("t2", Transaction.TransactionType.TRANSFER, "other", accountId, "30", "80", 2),
+                        row("t3", Transaction.TransactionType.EXPENSE, accountId, null, "-20", "60", 3)));
+
+        AccountLedgerDto first = accountService.getLedger(accountId, null, 2, Sort.Direction.ASC);
+
+        assertTrue(first.isHasNext());
+        assertEquals(2, first.getEntries().size());
+        assertEquals(new BigDecimal("150"), first.getEntries().get(0).getBalance());
+        assertEquals(new BigDecimal("180"), first.getEntries().get(1).getBalance());
+        assertEquals("other", first.getEntries().get(1).getCounterpartyAccountId());
+
+        when(transactionRepository.findLedgerPage(userId, accountId, LocalDate.of(2024, 1, 2), "t2", Sort.Direction.ASC, 3))
+                .thenReturn(List.of(row("t3", Transaction.TransactionType.EXPENSE, accountId, null, "-20", "-20", 3)));
+
+        AccountLedgerDto second = accountService.getLedger(accountId, first.getNextCursor(), 2, Sort.Direction.ASC);
+
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+        assertEquals(new BigDecimal("160"), second.getEntries().get(0).getBalance());
+    }
+
+    @Test
+    void getLedger_DescendingStartsFromCurrentBalance() {
+        when(transactionRepository.findLedgerPage(userId, accountId, null, null, Sort.Direction.DESC, 51))
+                .thenReturn(List.of(
+                        row("t3", Transaction.TransactionType.EXPENSE, accountId, null, "-20", "-20", 3),
+                        row("t2", Transaction.TransactionType.TRANSFER, "other", accountId, "30", "10", 2),
+                        row("t1", Transaction.TransactionType.INCOME, accountId, null, "50", "60", 1)));
+
+        AccountLedgerDto ledger = accountService.getLedger(accountId, null, 50, Sort.Direction.DESC);
+
+        assertEquals(List.of(new BigDecimal("160"), new BigDecimal("180"), new BigDecimal("150")),
+                ledger.getEntries().stream().map(AccountLedgerDto.Entry::getBalance).toList());
+        assertFalse(ledger.isHasNext());
+    }
+
+    @Test
+    void getLedger_InvalidCursor_ThrowsException() {
+        assertThrows(BadRequestException.class,
+                () -> accountService.getLedger(accountId, "not-a-cursor", 50, Sort.Direction.DESC));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getLedger_RejectsAlteredCursorsAndCursorsOfOtherLedgers() {
+        when(transactionRepository.findLedgerPage(userId, accountId, null, null, Sort.Direction.ASC, 2))
+                .thenReturn(List.of(
+                        row("t1", Transaction.TransactionType.INCOME, accountId, null, "50", "50", 1),
+                        row("t2", Transaction.TransactionType.INCOME, accountId, null, "30", "80", 2)));
+        String cursor = accountService.getLedger(accountId, null, 1, Sort.Direction.ASC).getNextCursor();
+        String payload = cursorSigner.verify(cursor).orElseThrow();
+        // Raised carried balance under the original signature
+        String raised = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replace("|150", "|1000150").getBytes(StandardCharsets.UTF_8));
+        String forged = raised + cursor.substring(cursor.indexOf('.'));
+
+        assertThrows(BadRequestException.class,
+                () -> accountService.getLedger(accountId, forged, 1, Sort.Direction.ASC));
+        assertThrows(BadRequestException.class,
+                () -> accountService.getLedger(accountId, cursor, 1, Sort.Direction.DESC));
+        assertThrows(BadRequestException.class,
+                () -> accountService.getLedger(accountId, new CursorSigner("other-secret").sign(payload), 1,
+                        Sort.Direction.ASC));
+        verify(transactionRepository, times(1)).findLedgerPage(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    private TransactionLedgerRow row(String id, Transaction.TransactionType type, String from, String to,
+            String delta, String runningTotal, int day) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(type);
+        transaction.setAccountId(from);
+        transaction.setTransferToAccountId(to);
+        transaction.setAmount(new BigDecimal(delta).abs());
+        transaction.setDate(LocalDate.of(2024, 1, day));
+        return new TransactionLedgerRow(transaction, new BigDecimal(delta), new BigDecimal(runningTotal));
+    }
+}
@@ -41,6 +41,15 @@ class AccountTransferTest {
     @Mock
     private BudgetService budgetService;
 
+    @Mock
+    private DashboardCacheService dashboardCacheService;
+
+    @Mock
+    private NetWorthHistoryService netWorthHistoryService;
+
+    @Mock
+    private AttachmentService attachmentService;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -0,0 +1,116 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.TimeSeriesDto;
+import com.kerem.phinance.dto.TransactionPeriodTotal;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Category;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.CategoryRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.SecurityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private AnalyticsService analyticsService;
+
+    private final String userId = "user123";
+    private final LocalDate start = LocalDate.of(2024, 1, 15);
+    private final LocalDate end = LocalDate.of(2024, 4, 10);
+    private MockedStatic<SecurityUtils> securityUtilsMock;
+
+    @BeforeEach
+    void setUp() {
+        securityUtilsMock = mockStatic(SecurityUtils.class);
+        securityUtilsMock.when(SecurityUtils::getCurrentUserId).thenReturn(userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtilsMock.close();
+    }
+
+    @Test
+    void getTimeSeries_FillsEmptyBucketsWithZero() {
+        when(transactionRepository.sumByPeriod(userId, start, end,
+                TimeSeriesDto.Granularity.MONTH, TimeSeriesDto.GroupBy.NONE)).thenReturn(List.of(
+                new TransactionPeriodTotal("2024-01", null, Transaction.TransactionType.INCOME, new BigDecimal("3000.00")),
+                new TransactionPeriodTotal("2024-01", null, Transaction.TransactionType.EXPENSE, new BigDecimal("1200.00")),
+                new TransactionPeriodTotal("2024-03", null, Transaction.TransactionType.EXPENSE, new BigDecimal("400.00"))));
+
+        TimeSeriesDto result = analyticsService.getTimeSeries(start, end,
+                TimeSeriesDto.Granularity.MONTH, TimeSeriesDto.GroupBy.NONE);
+
+        assertEquals(List.of("2024-01", "2024-02", "2024-03", "2024-04"), result.getBuckets());
+        assertEquals(1, result.getSeries().size());
+        TimeSeriesDto.Series series = result.getSeries().get(0);
+        assertEquals(List.of(new BigDecimal("3000.00"), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO),
+                series.getIncome());
+        assertEquals(new BigDecimal("1800.00"), series.getNet().get(0));
+        assertEquals(new BigDecimal("-400.00"), series.getNet().get(2));
+    }
+
+    @Test
+    void getTimeSeries_SplitsByCategory() {
+        Category category = new Category();
+        category.setId("category123");
+        category.setName("Groceries");
+
+        when(categoryRepository.findByUserIdOrIsDefaultTrue(userId)).thenReturn(List.of(category));
+        when(transactionRepository.sumByPeriod(userId, start, end,
+                TimeSeriesDto.Granularity.QUARTER, TimeSeriesDto.GroupBy.CATEGORY)).thenReturn(List.of(
+                new TransactionPeriodTotal("2024-Q1", "category123", Transaction.TransactionType.EXPENSE, new BigDecimal("50.00")),
+                new TransactionPeriodTotal("2024-Q2", null, Transaction.TransactionType.EXPENSE, new BigDecimal("20.00"))));
+
+        TimeSeriesDto result = analyticsService.getTimeSeries(start, end,
+                TimeSeriesDto.Granularity.QUARTER, TimeSeriesDto.GroupBy.CATEGORY);
+
+        assertEquals(List.of("2024-Q1", "2024-Q2"), result.getBuckets());
+        assertEquals(2, result.getSeries().size());
+        assertEquals("Groceries", result.getSeries().get(0).getName());
+        assertEquals("Uncategorized", result.getSeries().get(1).getName());
+        assertEquals(new BigDecimal("20.00"), result.getSeries().get(1).getExpense().get(1));
+    }
+
+    @Test
+    void bucketLabels_WeeksStartOnMonday() {
+        List<String> labels = AnalyticsService.bucketLabels(
+                LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 16), TimeSeriesDto.Granularity.WEEK);
+
+        assertEquals(List.of("2024-01-01", "2024-01-08", "2024-01-15"), labels);
+    }
+
+    @Test
+    void getTimeSeries_RangeTooLarge_ThrowsException() {
+        assertThrows(BadRequestException.class, () -> analyticsService.getTimeSeries(
+                LocalDate.of(2000, 1, 1), LocalDate.of(2024, 1, 1),
+                TimeSeriesDto.Granularity.DAY, TimeSeriesDto.GroupBy.NONE));
+        verifyNoInteractions(transactionRepository);
+    }
+}
@@ -0,0 +1,144 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AttachmentCleanupReport;
+import com.kerem.phinance.model.Attachment;
+import com.kerem.phinance.repository.AttachmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentCleanupServiceTest {
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @TempDir
+    Path uploadDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AttachmentCleanupService attachmentCleanupService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        attachmentCleanupService = new AttachmentCleanupService(attachmentRepository,
+                new LocalAttachmentStorage(uploadDir.toString()), meterRegistry);
+        ReflectionTestUtils.setField(attachmentCleanupService, "batchSize", 2);
+    }
+
+    @Test
+    void sweep_DeletesOrphanedFilesAndKeepsLinkedAndUntrackedOnes() throws Exception {
+        Path userDir = Files.createDirectories(uploadDir.resolve("user123"));
+        Files.write(userDir.resolve("aaa.jpg"), new byte[100]);
+        Files.write(userDir.resolve("aaa.thumb.jpg"), new byte[10]);
+        Files.write(userDir.resolve("bbb.pdf"), new byte[50]);
+        Files.write(userDir.resolve("legacy.pdf"), new byte[20]);
+        Path staleTemp = Files.write(userDir.resolve("upload-1.tmp"), new byte[5]);
+        Files.setLastModifiedTime(staleTemp, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+
+        Attachment orphaned = attachment("aaa", "aaa.jpg", List.of());
+        orphaned.setThumbnailFilename("aaa.thumb.jpg");
+        Attachment linked = attachment("bbb", "bbb.pdf", List.of("tx1"));
+        when(attachmentRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<String> ids = invocation.getArgument(0);
+            Set<String> requested = new HashSet<>();
+            ids.forEach(requested::add);
+            return List.of(orphaned, linked).stream().filter(a -> requested.contains(a.getId())).toList();
+        });
+        when(attachmentRepository.removeIfOrphaned(eq("user123:aaa"), any())).thenReturn(true);
+
+        AttachmentCleanupReport report = attachmentCleanupService.sweep();
+
+        assertFalse(Files.exists(userDir.resolve("aaa.jpg")));
+        assertFalse(Files.exists(userDir.resolve("aaa.thumb.jpg")));
+        assertFalse(Files.exists(staleTemp));
+        assertTrue(Files.exists(userDir.resolve("bbb.pdf")));
+        assertTrue(Files.exists(userDir.resolve("legacy.pdf")));
+        assertEquals(2, report.getFilesDeleted());
+        assertEquals(1, report.getTempFilesDeleted());
+        assertEquals(1, report.getUntrackedFiles());
+        assertEquals(115, report.getBytesReclaimed());
+        assertEquals(115.0, meterRegistry.get("attachments.cleanup.reclaimed").counter().count());
+        verify(attachmentRepository, never()).removeIfOrphaned(eq("user123:bbb"), any());
+    }
+
+    @Test
+    void sweep_KeepsUnattachedUploadsWithinGracePeriod() throws Exception {
+        Path userDir = Files.createDirectories(uploadDir.resolve("user123"));
+        Files.write(userDir.resolve("ccc.png"), new byte[10]);
+        Attachment recent = attachment("ccc", "ccc.png", List.of());
+        recent.setLastReferencedAt(LocalDateTime.now().minusHours(1));
+        when(attachmentRepository.findAllById(any())).thenReturn(List.of(recent));
+
+        AttachmentCleanupReport report = attachmentCleanupService.sweep();
+
+        assertTrue(Files.exists(userDir.resolve("ccc.png")));
+        assertEquals(0, report.getFilesDeleted());
+        verify(attachmentRepository, never()).removeIfOrphaned(any(), any());
+    }
+
+    @Test
+    void sweep_KeepsFilesLinkedAgainAndDeletesLeftoverTombstones() throws Exception {
+        Path userDir = Files.createDirectories(uploadDir.resolve("user123"));
+        Files.write(userDir.resolve("ddd.jpg"), new byte[10]);
+        Files.write(userDir.resolve("eee.pdf" + AttachmentStorage.TOMBSTONE_SUFFIX), new byte[30]);
+        Attachment relinked = attachment("ddd", "ddd.jpg", List.of());
+        when(attachmentRepository.findAllById(any())).thenReturn(List.of(relinked));
+        // Linked again after it was read
+        when(attachmentRepository.removeIfOrphaned(eq("user123:ddd"), any())).thenReturn(false);
+
+        AttachmentCleanupReport report = attachmentCleanupService.sweep();
+
+        assertTrue(Files.exists(userDir.resolve("ddd.jpg")));
+        assertFalse(Files.exists(userDir.resolve("ddd.jpg" + AttachmentStorage.TOMBSTONE_SUFFIX)));
+        assertFalse(Files.exists(userDir.resolve("eee.pdf" + AttachmentStorage.TOMBSTONE_SUFFIX)));
+        assertEquals(1, report.getFilesDeleted());
+        assertEquals(30, report.getBytesReclaimed());
+        assertEquals(0, report.getUntrackedFiles());
+    }
+
+    @Test
+    void sweep_KeepsRecordsWhoseLinksWereNeverRecorded() throws Exception {
+        Path userDir = Files.createDirectories(uploadDir.resolve("user123"));
+        Files.write(userDir.resolve("fff.jpg"), new byte[10]);
+        when(attachmentRepository.findAllById(any())).thenReturn(List.of(attachment("fff", "fff.jpg", null)));
+
+        AttachmentCleanupReport report = attachmentCleanupService.sweep();
+
+        assertTrue(Files.exists(userDir.resolve("fff.jpg")));
+        assertEquals(0, report.getFilesDeleted());
+        verify(attachmentRepository, never()).removeIfOrphaned(any(), any());
+    }
+
+    private Attachment attachment(String hash, String filename, List<String> transactionIds) {
+        Attachment attachment = new Attachment();
+        attachment.setId("user123:" + hash);
+        attachment.setUserId("user123");
+        attachment.setHash(hash);
+        attachment.setFilename(filename);
+        attachment.setTransactionIds(transactionIds);
+        attachment.setLastReferencedAt(LocalDateTime.now().minusDays(3));
+        return attachment;
+    }
+}
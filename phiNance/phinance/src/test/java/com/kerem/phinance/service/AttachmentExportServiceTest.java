@@ -0,0 +1,105 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.TransactionFilterDto;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentExportServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalAttachmentStorage attachmentStorage;
+    private AttachmentExportService attachmentExportService;
+
+    @BeforeEach
+    void setUp() {
+        attachmentStorage = new LocalAttachmentStorage(uploadDir.toString());
+        attachmentExportService = new AttachmentExportService(transactionRepository, attachmentStorage);
+    }
+
+    @Test
+    void writeZip_StreamsFilesOfMatchingTransactionsWithManifest() throws Exception {
+        attachmentStorage.commit(attachmentStorage.stage("user123", new ByteArrayInputStream("jpeg".getBytes())),
+                "aaa.jpg");
+        Transaction lunch = transaction("t1", LocalDate.of(2024, 3, 1), "=Lunch \"team\"",
+                "/api/files/user123/aaa.jpg?token=x", "/api/files/user123/gone.pdf?token=x");
+        Transaction dinner = transaction("t2", LocalDate.of(2024, 3, 2), "Dinner",
+                "/api/files/user123/aaa.jpg?token=x");
+        Stream<Transaction> cursor = Stream.of(lunch, dinner);
+        Runnable closed = mock(Runnable.class);
+        when(transactionRepository.streamWithAttachmentsByFilters(eq("user123"), eq(LocalDate.of(2024, 1, 1)),
+                any(), any(), any(), any(), any(), any(), any(), eq(Sort.by(Sort.Direction.ASC, "date"))))
+                .thenReturn(cursor.onClose(closed));
+        TransactionFilterDto filter = new TransactionFilterDto();
+        filter.setStartDate(LocalDate.of(2024, 1, 1));
+        filter.setSortDirection("asc");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        attachmentExportService.writeZip("user123", filter, out);
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(List.of("receipts/2024-03-01_t1_1.jpg", "receipts/2024-03-02_t2_1.jpg",
+                AttachmentExportService.MANIFEST_ENTRY), List.copyOf(entries.keySet()));
+        assertEquals("jpeg", entries.get("receipts/2024-03-01_t1_1.jpg"));
+        String[] manifest = entries.get(AttachmentExportService.MANIFEST_ENTRY).split("\r\n");
+        assertEquals(4, manifest.length);
+        assertEquals("\"2024-03-01\",\"EXPENSE\",\"12.50\",\"Cash\",\"Food\",\"'=Lunch \"\"team\"\"\","
+                + "\"receipts/2024-03-01_t1_1.jpg\",\"included\"", manifest[1]);
+        assertTrue(manifest[2].endsWith("\"\",\"missing\""));
+        verify(closed).run();
+    }
+
+    private static Map<String, String> unzip(byte[] zip) throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static Transaction transaction(String id, LocalDate date, String description, String... urls) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setType(Transaction.TransactionType.EXPENSE);
+        transaction.setAmount(new BigDecimal("12.50"));
+        transaction.setAccountName("Cash");
+        transaction.setCategoryName("Food");
+        transaction.setDescription(description);
+        transaction.setDate(date);
+        transaction.setAttachmentUrls(List.of(urls));
+        return transaction;
+    }
+}
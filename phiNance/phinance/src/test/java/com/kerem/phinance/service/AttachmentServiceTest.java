@@ -0,0 +1,96 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AttachmentRepository;
+import com.kerem.phinance.repository.AttachmentRepositoryCustom.AttachmentUsage;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.FileUrlSigner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttachmentServiceTest {
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private FileUrlSigner fileUrlSigner;
+
+    @InjectMocks
+    private AttachmentService attachmentService;
+
+    @Test
+    void linkTransaction_LinksOwnFilesAndUnlinksTheRest() {
+        attachmentService.linkTransaction("user123", "tx1", List.of(
+                "/api/files/user123/abc.jpg?token=t1",
+                "/api/files/user123/def.pdf",
+                "/api/files/user456/ghi.jpg?token=t2"));
+
+        verify(attachmentRepository).unlinkTransaction("user123", "tx1", List.of("abc.jpg", "def.pdf"));
+        verify(attachmentRepository).linkTransaction("user123", "tx1", List.of("abc.jpg", "def.pdf"));
+    }
+
+    @Test
+    void signedUrls_SignsOnlyTheOwnersFiles() {
+        when(fileUrlSigner.sign("/api/files/user123/abc.jpg")).thenReturn("/api/files/user123/abc.jpg?signature=s");
+
+        List<String> signed = attachmentService.signedUrls("user123", List.of(
+                "/api/files/user123/abc.jpg",
+                "/api/files/user456/def.jpg",
+                "/api/files/user123/../user456/def.jpg",
+                "https://example.com/receipt"));
+
+        assertEquals(List.of("/api/files/user123/abc.jpg?signature=s", "/api/files/user456/def.jpg",
+                "/api/files/user123/../user456/def.jpg", "https://example.com/receipt"), signed);
+    }
+
+    @Test
+    void unsignedUrls_RejectsLinksToOtherUsersFiles() {
+        assertEquals(List.of("/api/files/user123/abc.jpg", "https://example.com/receipt"),
+                AttachmentService.unsignedUrls("user123",
+                        List.of("/api/files/user123/abc.jpg?expires=1&signature=s", "https://example.com/receipt")));
+        assertThrows(BadRequestException.class,
+                () -> AttachmentService.unsignedUrls("user123", List.of("/api/files/user456/def.jpg")));
+    }
+
+    @Test
+    void backfillTransactionLinks_LinksExistingTransactionsOnce() {
+        Transaction transaction = new Transaction();
+        transaction.setId("tx1");
+        transaction.setUserId("user123");
+        transaction.setAttachmentUrls(List.of("/api/files/user123/abc.jpg", "https://example.com/receipt"));
+        when(attachmentRepository.existsWithoutTransactionLinks()).thenReturn(true).thenReturn(false);
+        when(transactionRepository.streamAllWithAttachments()).thenReturn(Stream.of(transaction));
+        when(attachmentRepository.initTransactionLinks()).thenReturn(2L);
+
+        assertEquals(2, attachmentService.backfillTransactionLinks());
+        assertEquals(0, attachmentService.backfillTransactionLinks());
+
+        verify(attachmentRepository).linkTransaction("user123", "tx1", List.of("abc.jpg"));
+        verify(transactionRepository, times(1)).streamAllWithAttachments();
+    }
+
+    @Test
+    void checkQuota_RejectsUploadsPastTheQuota() {
+        ReflectionTestUtils.setField(attachmentService, "quotaBytes", 1000L);
+        when(attachmentRepository.usage("user123")).thenReturn(new AttachmentUsage(3, 900));
+
+        assertDoesNotThrow(() -> attachmentService.checkQuota("user123", 100));
+        assertThrows(BadRequestException.class, () -> attachmentService.checkQuota("user123", 101));
+    }
+}
@@ -0,0 +1,129 @@
+package com.kerem.phinance.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link AttachmentStorage} must share, run against each
+ * implementation by its subclass.
+ */
+abstract class AttachmentStorageContractTest {
+
+    protected abstract AttachmentStorage storage();
+
+    @Test
+    void stagedFileIsOnlyVisibleUnderItsNameOnceCommitted() throws Exception {
+        byte[] content = randomBytes(1024 * 1024 + 17);
+
+        AttachmentStorage.StagedFile staged = storage().stage("user123", new ByteArrayInputStream(content));
+        assertEquals(content.length, staged.size());
+        assertTrue(storage().stat("user123", "abc.jpg").isEmpty());
+
+        storage().commit(staged, "abc.jpg");
+
+        AttachmentStorage.StoredFile stored = storage().stat("user123", "abc.jpg").orElseThrow();
+        assertEquals(content.length, stored.size());
+        assertFalse(stored.isStaged());
+        try (InputStream in = storage().load("user123", "abc.jpg").getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertTrue(storage().stat("user123", staged.name()).isEmpty());
+    }
+
+    @Test
+    void commitReplacesExistingFile() throws Exception {
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[]{1, 2})), "abc.pdf");
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[]{3, 4, 5})), "abc.pdf");
+
+        Resource resource = storage().load("user123", "abc.pdf");
+        assertEquals(3, resource.contentLength());
+        // Range responses open the resource once per range
+        for (int i = 0; i < 2; i++) {
+            try (InputStream in = resource.getInputStream()) {
+                assertArrayEquals(new byte[]{3, 4, 5}, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void discardAndDeleteRemoveFiles() throws Exception {
+        AttachmentStorage.StagedFile discarded = storage().stage("user123", new ByteArrayInputStream(new byte[4]));
+        storage().discard(discarded);
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[4])), "abc.png");
+
+        assertTrue(storage().delete("user123", "abc.png"));
+        assertFalse(storage().delete("user123", "abc.png"));
+        assertTrue(storage().stat("user123", "abc.png").isEmpty());
+        assertFalse(storage().load("user123", "abc.png").exists());
+        try (Stream<AttachmentStorage.StoredFile> files = storage().list()) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void moveRenamesFileReplacingTheTarget() throws Exception {
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[]{1, 2})), "abc.jpg");
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[]{3})), "abc.jpg.deleted");
+
+        assertTrue(storage().move("user123", "abc.jpg", "abc.jpg.deleted"));
+        assertFalse(storage().move("user123", "abc.jpg", "abc.jpg.deleted"));
+
+        assertTrue(storage().stat("user123", "abc.jpg").isEmpty());
+        assertTrue(storage().stat("user123", "abc.jpg.deleted").orElseThrow().isTombstone());
+        try (InputStream in = storage().load("user123", "abc.jpg.deleted").getInputStream()) {
+            assertArrayEquals(new byte[]{1, 2}, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void deleteWithRecordKeepsFilesWhenTheRecordIsInUseAgain() throws Exception {
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[3])), "abc.jpg");
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[2])), "abc.thumb.jpg");
+
+        assertEquals(List.of(), storage().deleteWithRecord("user123",
+                List.of("abc.jpg", "abc.thumb.jpg", "missing.pdf"), () -> false));
+        assertEquals(3, storage().stat("user123", "abc.jpg").orElseThrow().size());
+        assertEquals(2, storage().stat("user123", "abc.thumb.jpg").orElseThrow().size());
+
+        List<AttachmentStorage.StoredFile> deleted = storage().deleteWithRecord("user123",
+                List.of("abc.jpg", "abc.thumb.jpg", "missing.pdf"), () -> true);
+        assertEquals(5, deleted.stream().mapToLong(AttachmentStorage.StoredFile::size).sum());
+        try (Stream<AttachmentStorage.StoredFile> files = storage().list()) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void listIncludesCommittedAndStagedFilesOfEveryUser() throws Exception {
+        storage().commit(storage().stage("user123", new ByteArrayInputStream(new byte[3])), "abc.jpg");
+        storage().commit(storage().stage("user456", new ByteArrayInputStream(new byte[5])), "def.pdf");
+        AttachmentStorage.StagedFile pending = storage().stage("user456", new ByteArrayInputStream(new byte[7]));
+
+        List<AttachmentStorage.StoredFile> files;
+        try (Stream<AttachmentStorage.StoredFile> listed = storage().list()) {
+            files = listed.toList();
+        }
+
+        assertEquals(3, files.size());
+        assertTrue(files.stream().anyMatch(file -> file.userId().equals("user123")
+                && file.filename().equals("abc.jpg") && file.size() == 3));
+        assertTrue(files.stream().anyMatch(file -> file.userId().equals("user456")
+                && file.filename().equals("def.pdf") && file.size() == 5));
+        assertTrue(files.stream().anyMatch(file -> file.userId().equals("user456")
+                && file.filename().equals(pending.name()) && file.isStaged()));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,114 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.BalanceLedgerTail;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.BalanceCheckpoint;
+import com.kerem.phinance.model.BalanceLedgerEntry;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.BalanceCheckpointRepository;
+import com.kerem.phinance.repository.BalanceLedgerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceLedgerServiceTest {
+
+    @Mock
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Mock
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private BalanceLedgerService balanceLedgerService;
+
+    private Account checkpointed;
+    private Account fresh;
+
+    @BeforeEach
+    void setUp() {
+        checkpointed = new Account();
+        checkpointed.setId("a1");
+        checkpointed.setUserId("user123");
+        checkpointed.setInitialBalance(new BigDecimal("100"));
+
+        fresh = new Account();
+        fresh.setId("a2");
+        fresh.setUserId("user123");
+        fresh.setInitialBalance(new BigDecimal("20"));
+        fresh.setCurrentBalance(new BigDecimal("70"));
+
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAccountId("a1");
+        checkpoint.setBalance(new BigDecimal("300"));
+        checkpoint.setLastEntryId("65f000000000000000000001");
+        when(balanceCheckpointRepository.findAllById(List.of("a1", "a2"))).thenReturn(List.of(checkpoint));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getLedgerBalances_SeedsMissingCheckpointBeforeFirstEntry() {
+        BalanceLedgerEntry first = new BalanceLedgerEntry();
+        first.setAmount(new BigDecimal("5"));
+        first.setBalanceAfter(new BigDecimal("55"));
+        when(balanceLedgerRepository.findFirstByAccountIdOrderByIdAsc("a2")).thenReturn(Optional.of(first));
+        Map<String, String> lastEntryIds = new HashMap<>();
+        lastEntryIds.put("a1", "65f000000000000000000001");
+        lastEntryIds.put("a2", null);
+        when(balanceLedgerRepository.sumTails(lastEntryIds, null)).thenReturn(List.of(
+                new BalanceLedgerTail("a1", new BigDecimal("-40"), "65f000000000000000000005"),
+                new BalanceLedgerTail("a2", new BigDecimal("5"), "65f000000000000000000004")));
+
+        Map<String, BigDecimal> balances = balanceLedgerService.getLedgerBalances(List.of(checkpointed, fresh));
+
+        ArgumentCaptor<List<BalanceCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+        verify(balanceCheckpointRepository).saveAll(captor.capture());
+        assertEquals(new BigDecimal("260"), balances.get("a1"));
+        // Opening balance 50 from an account that predates the ledger, not its initial 20
+        assertEquals(new BigDecimal("55"), balances.get("a2"));
+        assertEquals(new BigDecimal("50"), captor.getValue().get(0).getBalance());
+        assertNull(captor.getValue().get(0).getLastEntryId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkpointAll_FoldsTailIntoCheckpoints() {
+        when(accountRepository.findBatchAfterId(isNull(), eq(BalanceLedgerService.CHECKPOINT_BATCH_SIZE)))
+                .thenReturn(List.of(checkpointed, fresh));
+        when(balanceLedgerRepository.findFirstByAccountIdOrderByIdAsc("a2")).thenReturn(Optional.empty());
+        when(balanceLedgerRepository.sumTails(any(), anyString())).thenReturn(List.of(
+                new BalanceLedgerTail("a2", new BigDecimal("5"), "65f000000000000000000004")));
+
+        int written = balanceLedgerService.checkpointAll();
+
+        ArgumentCaptor<List<BalanceCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+        verify(balanceCheckpointRepository, times(2)).saveAll(captor.capture());
+        assertEquals(1, written);
+        assertEquals("a2", captor.getValue().get(0).getAccountId());
+        // Seeded from the current balance of an account without entries
+        assertEquals(new BigDecimal("75"), captor.getValue().get(0).getBalance());
+        assertEquals("65f000000000000000000004", captor.getValue().get(0).getLastEntryId());
+        verify(accountRepository, times(1)).findBatchAfterId(any(), eq(BalanceLedgerService.CHECKPOINT_BATCH_SIZE));
+    }
+}
@@ -0,0 +1,123 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AccountBalanceDelta;
+import com.kerem.phinance.dto.BalanceReconciliationReport;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.BalanceLedgerEntry;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceReconciliationServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private BalanceLedgerService balanceLedgerService;
+
+    @Mock
+    private DashboardCacheService dashboardCacheService;
+
+    @InjectMocks
+    private BalanceReconciliationService balanceReconciliationService;
+
+    private Account healthy;
+    private Account drifted;
+    private Account busy;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceReconciliationService, "partitionSize", 2);
+
+        healthy = account("a1", "100", "150");
+        drifted = account("a2", "0", "75");
+        busy = account("a3", "0", "999");
+        busy.setUpdatedAt(LocalDateTime.now());
+
+        when(accountRepository.findBatchAfterId(isNull(), eq(2))).thenReturn(List.of(healthy, drifted));
+        when(accountRepository.findBatchAfterId(eq("a2"), eq(2))).thenReturn(List.of(busy));
+        when(transactionRepository.sumBalanceDeltasForAccounts(List.of("a1", "a2"))).thenReturn(List.of(
+                new AccountBalanceDelta("a1", null, new BigDecimal("50")),
+                new AccountBalanceDelta("a2", null, new BigDecimal("60"))));
+        when(transactionRepository.sumBalanceDeltasForAccounts(List.of("a3"))).thenReturn(List.of());
+        when(balanceLedgerService.getLedgerBalances(anyList())).thenAnswer(invocation -> {
+            List<Account> accounts = invocation.getArgument(0);
+            return accounts.size() == 2
+                    ? Map.of("a1", new BigDecimal("150"), "a2", new BigDecimal("70"))
+                    : Map.of("a3", BigDecimal.ZERO);
+        });
+    }
+
+    @Test
+    void reconcile_ReportsDriftAcrossPartitionsWithoutRepairing() {
+        BalanceReconciliationReport report = balanceReconciliationService.reconcile(false);
+
+        assertEquals(2, report.getPartitions());
+        assertEquals(3, report.getAccountsChecked());
+        assertEquals(1, report.getAccountsSkipped());
+        assertEquals(1, report.getBalanceDrifts());
+        assertEquals(1, report.getLedgerDrifts());
+        assertEquals(0, report.getRepaired());
+        assertEquals(1, report.getDrifts().size());
+        assertEquals(new BigDecimal("60"), report.getDrifts().get(0).getExpectedBalance());
+        verify(accountRepository, never()).compareAndSetBalance(any(), any(), any());
+        verify(balanceLedgerService, never()).record(any(), any(), any());
+    }
+
+    @Test
+    void reconcile_RepairsBalanceAndAppendsLedgerCorrection() {
+        when(accountRepository.compareAndSetBalance("a2", new BigDecimal("75"), new BigDecimal("60"))).thenReturn(true);
+
+        BalanceReconciliationReport report = balanceReconciliationService.reconcile(true);
+
+        assertEquals(1, report.getRepaired());
+        verify(dashboardCacheService).invalidate("user123");
+        verify(balanceLedgerService).record(drifted, new BigDecimal("-10"), BalanceLedgerEntry.EntrySource.RECONCILIATION);
+        verify(accountRepository, never()).compareAndSetBalance(eq("a1"), any(), any());
+    }
+
+    @Test
+    void reconcile_ConcurrentUpdateLeavesAccountUnrepaired() {
+        when(accountRepository.compareAndSetBalance(eq("a2"), any(), any())).thenReturn(false);
+
+        BalanceReconciliationReport report = balanceReconciliationService.reconcile(true);
+
+        assertEquals(0, report.getRepaired());
+        verify(balanceLedgerService, never()).record(any(), any(), any());
+        verify(accountRepository, times(2)).findBatchAfterId(any(), anyInt());
+    }
+
+    private Account account(String id, String initialBalance, String currentBalance) {
+        Account account = new Account();
+        account.setId(id);
+        account.setUserId("user123");
+        account.setInitialBalance(new BigDecimal(initialBalance));
+        account.setCurrentBalance(new BigDecimal(currentBalance));
+        account.setUpdatedAt(LocalDateTime.now().minusHours(1));
+        return account;
+    }
+}
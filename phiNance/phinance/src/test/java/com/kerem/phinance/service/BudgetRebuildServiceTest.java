@@ -0,0 +1,100 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.BudgetRebuildReport;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Budget;
+import com.kerem.phinance.repository.BudgetRepository;
+import com.kerem.phinance.repository.BudgetRepositoryCustom.SpentAmountCorrection;
+import com.kerem.phinance.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BudgetRebuildServiceTest {
+
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserWriteVersionService userWriteVersionService;
+
+    @InjectMocks
+    private BudgetRebuildService budgetRebuildService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_CorrectsDriftedBudgetsInParallelPartitions() {
+        ReflectionTestUtils.setField(budgetRebuildService, "partitionSize", 2);
+        Budget accurate = budget("b1", "user1", "groceries", "120");
+        Budget drifted = budget("b2", "user2", "groceries", "999");
+        Budget recent = budget("b3", "user1", "rent", "0");
+        recent.setUpdatedAt(LocalDateTime.now());
+
+        when(budgetRepository.findBatchByPeriodAfterId(eq(2024), eq(3), isNull(), eq(2)))
+                .thenReturn(List.of(accurate, drifted));
+        when(budgetRepository.findBatchByPeriodAfterId(eq(2024), eq(3), eq("b2"), eq(2)))
+                .thenReturn(List.of(recent));
+        when(transactionRepository.sumExpensesByCategory(
+                Set.of("user1", "user2"), Set.of("groceries"), LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)))
+                .thenReturn(List.of(
+                        new CategoryExpenseTotal("user1", "groceries", new BigDecimal("120.00")),
+                        new CategoryExpenseTotal("user2", "groceries", new BigDecimal("80"))));
+        when(transactionRepository.sumExpensesByCategory(
+                Set.of("user1"), Set.of("rent"), LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)))
+                .thenReturn(List.of());
+        when(budgetRepository.bulkUpdateSpentAmounts(anyList()))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        BudgetRebuildReport report = budgetRebuildService.rebuild(2024, 3);
+
+        ArgumentCaptor<List<SpentAmountCorrection>> captor = ArgumentCaptor.forClass(List.class);
+        verify(budgetRepository, times(2)).bulkUpdateSpentAmounts(captor.capture());
+        List<SpentAmountCorrection> corrections = captor.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(List.of(new SpentAmountCorrection(
+                "b2", new BigDecimal("500"), new BigDecimal("999"), new BigDecimal("80"))), corrections);
+        assertEquals(2, report.getPartitions());
+        assertEquals(3, report.getBudgetsChecked());
+        assertEquals(1, report.getBudgetsCorrected());
+        assertEquals(1, report.getBudgetsSkipped());
+    }
+
+    @Test
+    void rebuild_InvalidMonth_ThrowsException() {
+        assertThrows(BadRequestException.class, () -> budgetRebuildService.rebuild(2024, 13));
+        verifyNoInteractions(budgetRepository);
+    }
+
+    private Budget budget(String id, String userId, String categoryId, String spentAmount) {
+        Budget budget = new Budget();
+        budget.setId(id);
+        budget.setUserId(userId);
+        budget.setCategoryId(categoryId);
+        budget.setAllocatedAmount(new BigDecimal("500"));
+        budget.setSpentAmount(new BigDecimal(spentAmount));
+        budget.setYear(2024);
+        budget.setMonth(3);
+        budget.setUpdatedAt(LocalDateTime.now().minusHours(1));
+        return budget;
+    }
+}
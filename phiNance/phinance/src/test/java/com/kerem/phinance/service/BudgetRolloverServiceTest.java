@@ -0,0 +1,97 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.BudgetRolloverReport;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.model.Budget;
+import com.kerem.phinance.repository.BudgetRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BudgetRolloverServiceTest {
+
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private UserWriteVersionService userWriteVersionService;
+
+    @InjectMocks
+    private BudgetRolloverService budgetRolloverService;
+
+    @BeforeEach
+    void setUp() {
+        Budget underspent = budget("b1", "user1", "groceries", "500", "350");
+        Budget overspent = budget("b2", "user2", "groceries", "200", "260");
+
+        when(budgetRepository.findBatchByPeriodAfterId(eq(2024), eq(12), isNull(), eq(500)))
+                .thenReturn(List.of(underspent, overspent));
+        when(transactionRepository.sumExpensesByCategory(
+                Set.of("user1", "user2"), Set.of("groceries"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)))
+                .thenReturn(List.of(new CategoryExpenseTotal("user2", "groceries", new BigDecimal("40"))));
+        when(budgetRepository.insertMissing(anyList())).thenReturn(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollover_CopiesBudgetsIntoNextYearWithSeededSpent() {
+        BudgetRolloverReport report = budgetRolloverService.rollover(2024, 12, false);
+
+        ArgumentCaptor<List<Budget>> captor = ArgumentCaptor.forClass(List.class);
+        verify(budgetRepository).insertMissing(captor.capture());
+        List<Budget> created = captor.getValue();
+        assertEquals(2025, created.get(0).getYear());
+        assertEquals(1, created.get(0).getMonth());
+        assertEquals(new BigDecimal("500"), created.get(0).getAllocatedAmount());
+        assertEquals(BigDecimal.ZERO, created.get(0).getSpentAmount());
+        assertEquals(new BigDecimal("40"), created.get(1).getSpentAmount());
+
+        assertEquals("2025-01", report.getTargetPeriod());
+        assertEquals(2, report.getBudgetsRead());
+        assertEquals(1, report.getBudgetsCreated());
+        assertEquals(1, report.getBudgetsExisting());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollover_CarryForwardAddsOnlyUnspentAmounts() {
+        budgetRolloverService.rollover(2024, 12, true);
+
+        ArgumentCaptor<List<Budget>> captor = ArgumentCaptor.forClass(List.class);
+        verify(budgetRepository).insertMissing(captor.capture());
+        assertEquals(new BigDecimal("650"), captor.getValue().get(0).getAllocatedAmount());
+        assertEquals(new BigDecimal("200"), captor.getValue().get(1).getAllocatedAmount());
+    }
+
+    private Budget budget(String id, String userId, String categoryId, String allocated, String spent) {
+        Budget budget = new Budget();
+        budget.setId(id);
+        budget.setUserId(userId);
+        budget.setCategoryId(categoryId);
+        budget.setAllocatedAmount(new BigDecimal(allocated));
+        budget.setSpentAmount(new BigDecimal(spent));
+        budget.setYear(2024);
+        budget.setMonth(12);
+        return budget;
+    }
+}
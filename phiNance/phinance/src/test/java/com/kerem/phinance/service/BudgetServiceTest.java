@@ -1,12 +1,19 @@
 package com.kerem.phinance.service;
 
+import com.kerem.phinance.dto.BudgetCategoryPeriods;
+import com.kerem.phinance.dto.BudgetComparisonDto;
 import com.kerem.phinance.dto.BudgetDto;
+import com.kerem.phinance.dto.BudgetFilterDto;
+import com.kerem.phinance.dto.CategoryExpenseTotal;
+import com.kerem.phinance.exception.BadRequestException;
 import com.kerem.phinance.model.Budget;
 import com.kerem.phinance.model.User;
 import com.kerem.phinance.repository.BudgetRepository;
 import com.kerem.phinance.repository.TransactionRepository;
 import com.kerem.phinance.repository.UserRepository;
 import com.kerem.phinance.security.SecurityUtils;
+import com.kerem.phinance.util.FieldSelection;
+import com.kerem.phinance.util.PageTotal;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,10 +22,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,6 +53,12 @@ class BudgetServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private PageCountCacheService pageCountCacheService;
+
+    @Mock
+    private UserWriteVersionService userWriteVersionService;
+
     @InjectMocks
     private BudgetService budgetService;
 
@@ -65,12 +87,29 @@ class BudgetServiceTest {
         budgetDto.setMonth(1);
     }
 
+    @Test
+    void getBudgetsByMonthPaginated_PassesRangeFilterAndSortToRepository() {
+        budget.setSpentAmount(new BigDecimal("950.00"));
+        BudgetFilterDto filter = new BudgetFilterDto(90.0, null, null, null);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "spentPercentage"));
+        PageTotal total = PageTotal.counted();
+        when(pageCountCacheService.totalFor(userId, true, "budgets", 2024, 1, filter)).thenReturn(total);
+        when(budgetRepository.findByUserIdAndYearAndMonthCaseInsensitive(userId, 2024, 1, filter, pageable, total, FieldSelection.all()))
+                .thenReturn(new PageImpl<>(List.of(budget), pageable, 1));
+
+        Slice<BudgetDto> result = budgetService.getBudgetsByMonthPaginated(2024, 1, filter, pageable, true,
+                FieldSelection.all());
+
+        assertEquals(1, ((Page<BudgetDto>) result).getTotalElements());
+        assertEquals(95.0, result.getContent().get(0).getSpentPercentage());
+    }
+
     @Test
     void createBudget_Success() {
         when(budgetRepository.findByUserIdAndCategoryIdAndYearAndMonth(
                 userId, "category123", 2024, 1)).thenReturn(Optional.empty());
-        when(transactionRepository.findByUserIdAndCategoryIdAndDateBetween(
-                eq(userId), eq("category123"), any(LocalDate.class), any(LocalDate.class)))
+        when(transactionRepository.sumExpensesByCategory(
+                List.of(userId), List.of("category123"), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)))
                 .thenReturn(Collections.emptyList());
         when(budgetRepository.save(any(Budget.class))).thenReturn(budget);
 
@@ -81,6 +120,40 @@ class BudgetServiceTest {
         verify(budgetRepository).save(any(Budget.class));
     }
 
+    @Test
+    void createBudget_SeedsSpentAmountFromExpenseTotal() {
+        when(budgetRepository.findByUserIdAndCategoryIdAndYearAndMonth(
+                userId, "category123", 2024, 1)).thenReturn(Optional.empty());
+        when(transactionRepository.sumExpensesByCategory(
+                List.of(userId), List.of("category123"), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)))
+                .thenReturn(List.of(new CategoryExpenseTotal(userId, "category123", new BigDecimal("245.50"))));
+        when(budgetRepository.save(any(Budget.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BudgetDto result = budgetService.createBudget(budgetDto);
+
+        assertEquals(new BigDecimal("245.50"), result.getSpentAmount());
+        verify(transactionRepository, never()).findByUserIdAndCategoryIdAndDateBetween(any(), any(), any(), any());
+    }
+
+    @Test
+    void createBudget_UpdatesBudgetCreatedConcurrently() {
+        when(budgetRepository.findByUserIdAndCategoryIdAndYearAndMonth(userId, "category123", 2024, 1))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(budget));
+        when(transactionRepository.sumExpensesByCategory(
+                List.of(userId), List.of("category123"), LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)))
+                .thenReturn(Collections.emptyList());
+        when(budgetRepository.save(any(Budget.class)))
+                .thenThrow(new DuplicateKeyException("user_category_period_uniq_idx"))
+                .thenReturn(budget);
+        when(budgetRepository.findByIdAndUserId("budget123", userId)).thenReturn(Optional.of(budget));
+
+        BudgetDto result = budgetService.createBudget(budgetDto);
+
+        assertEquals("budget123", result.getId());
+        verify(budgetRepository).save(budget);
+    }
+
     @AfterEach
     void tearDown() {
         securityUtilsMock.close();
@@ -133,4 +206,36 @@ class BudgetServiceTest {
 
         assertEquals(25.0, percentage, 0.01);
     }
+
+    @Test
+    void comparePeriods_PivotsCategoriesIntoPeriodColumns() {
+        when(budgetRepository.findByUserIdGroupedByCategory(userId,
+                List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2), YearMonth.of(2024, 3))))
+                .thenReturn(List.of(
+                        new BudgetCategoryPeriods("category123", "Groceries", "#10B981", "cart", List.of(
+                                new BudgetCategoryPeriods.PeriodAmounts(2024, 3, new BigDecimal("500"), new BigDecimal("450")),
+                                new BudgetCategoryPeriods.PeriodAmounts(2024, 1, new BigDecimal("400"), new BigDecimal("300")))),
+                        new BudgetCategoryPeriods("deleted", null, null, null, List.of(
+                                new BudgetCategoryPeriods.PeriodAmounts(2024, 2, new BigDecimal("100"), new BigDecimal("20"))))));
+
+        BudgetComparisonDto result = budgetService.comparePeriods(List.of("2024-01", "2024-02", "2024-03", "2024-01"));
+
+        assertEquals(List.of("2024-01", "2024-02", "2024-03"), result.getPeriods());
+        BudgetComparisonDto.Row groceries = result.getRows().get(0);
+        assertTrue(groceries.getCells().get(0).isBudgeted());
+        assertFalse(groceries.getCells().get(1).isBudgeted());
+        assertEquals(new BigDecimal("100"), groceries.getCells().get(0).getRemainingAmount());
+        assertNull(groceries.getCells().get(0).getSpentDelta());
+        assertEquals(new BigDecimal("-300"), groceries.getCells().get(1).getSpentDelta());
+        assertEquals(new BigDecimal("450"), groceries.getCells().get(2).getSpentDelta());
+        assertEquals("Category Deleted", result.getRows().get(1).getCategoryName());
+        assertEquals(new BigDecimal("20"), result.getTotals().get(1).getSpentAmount());
+        assertEquals(new BigDecimal("500"), result.getTotals().get(2).getAllocatedAmount());
+    }
+
+    @Test
+    void comparePeriods_InvalidPeriod_ThrowsException() {
+        assertThrows(BadRequestException.class, () -> budgetService.comparePeriods(List.of("2024-13")));
+        verifyNoInteractions(budgetRepository);
+    }
 }
@@ -0,0 +1,114 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.DashboardDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardCacheServiceTest {
+
+    private DashboardCacheService dashboardCacheService;
+    private SimpleMeterRegistry meterRegistry;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dashboardCacheService = new DashboardCacheService(meterRegistry, new UserWriteVersionService(1_000, Duration.ofHours(1)), 1_000_000, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void get_SecondCallServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        dashboardCacheService.get(userId, () -> dashboard(loads.incrementAndGet()));
+        DashboardDto result = dashboardCacheService.get(userId, () -> dashboard(loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(new BigDecimal("1"), result.getTotalNetWorth());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "dashboard").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void invalidate_NextCallReloads() {
+        AtomicInteger loads = new AtomicInteger();
+
+        dashboardCacheService.get(userId, () -> dashboard(loads.incrementAndGet()));
+        dashboardCacheService.invalidate(userId);
+        DashboardDto result = dashboardCacheService.get(userId, () -> dashboard(loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+        assertEquals(new BigDecimal("2"), result.getTotalNetWorth());
+    }
+
+    @Test
+    void invalidate_DuringLoadDiscardsStaleResult() {
+        AtomicInteger loads = new AtomicInteger();
+
+        // A write lands while the first load is still running
+        dashboardCacheService.get(userId, () -> {
+            dashboardCacheService.invalidate(userId);
+            return dashboard(loads.incrementAndGet());
+        });
+        DashboardDto result = dashboardCacheService.get(userId, () -> dashboard(loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+        assertEquals(new BigDecimal("2"), result.getTotalNetWorth());
+    }
+
+    @Test
+    void get_ConcurrentMissesAreCoalesced() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<DashboardDto> first = executor.submit(() -> dashboardCacheService.get(userId, () -> {
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return dashboard(loads.incrementAndGet());
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            Future<DashboardDto> second = executor.submit(
+                    () -> dashboardCacheService.get(userId, () -> dashboard(loads.incrementAndGet())));
+            Future<DashboardDto> third = executor.submit(
+                    () -> dashboardCacheService.get(userId, () -> dashboard(loads.incrementAndGet())));
+
+            releaseLoader.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertSame(first.get(5, TimeUnit.SECONDS), third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DashboardDto dashboard(int marker) {
+        return DashboardDto.builder()
+                .totalNetWorth(BigDecimal.valueOf(marker))
+                .build();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
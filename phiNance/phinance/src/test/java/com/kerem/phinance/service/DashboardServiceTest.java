@@ -0,0 +1,136 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.DashboardDto;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.Category;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.CategoryRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.SecurityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private DashboardCacheService dashboardCacheService;
+
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    private final String userId = "user123";
+    private MockedStatic<SecurityUtils> securityUtilsMock;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        securityUtilsMock = mockStatic(SecurityUtils.class);
+        securityUtilsMock.when(SecurityUtils::getCurrentUserId).thenReturn(userId);
+        when(dashboardCacheService.get(eq(userId), any()))
+                .thenAnswer(invocation -> ((Supplier<DashboardDto>) invocation.getArgument(1)).get());
+        ReflectionTestUtils.setField(dashboardService, "parallelTimeout", Duration.ofSeconds(5));
+
+        Account account = new Account();
+        account.setId("account123");
+        account.setUserId(userId);
+        account.setName("Checking");
+        account.setType(Account.AccountType.BANK_ACCOUNT);
+        account.setCurrentBalance(new BigDecimal("1500.00"));
+
+        Category category = new Category();
+        category.setId("category123");
+        category.setName("Groceries");
+        category.setColor("#10B981");
+
+        Transaction expense = new Transaction();
+        expense.setId("transaction123");
+        expense.setUserId(userId);
+        expense.setAccountId("account123");
+        expense.setType(Transaction.TransactionType.EXPENSE);
+        expense.setAmount(new BigDecimal("100.00"));
+        expense.setCategoryId("category123");
+        expense.setDate(LocalDate.now());
+
+        when(accountRepository.findByUserIdAndArchivedFalse(userId)).thenReturn(List.of(account));
+        when(categoryRepository.findByUserIdOrIsDefaultTrue(userId)).thenReturn(List.of(category));
+        when(transactionRepository.findByUserIdAndDateBetween(eq(userId), any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> {
+                    LocalDate start = invocation.getArgument(1);
+                    return start.getMonth() == LocalDate.now().getMonth()
+                            ? List.of(expense) : Collections.emptyList();
+                });
+        lenient().when(transactionRepository.findByUserId(eq(userId), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(expense)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtilsMock.close();
+    }
+
+    @Test
+    void getDashboard_SequentialAndParallelModesMatch() {
+        ReflectionTestUtils.setField(dashboardService, "parallelEnabled", false);
+        DashboardDto sequential = dashboardService.getDashboard();
+
+        ReflectionTestUtils.setField(dashboardService, "parallelEnabled", true);
+        DashboardDto parallel = dashboardService.getDashboard();
+
+        assertEquals(sequential, parallel);
+        assertFalse(parallel.isPartial());
+        assertEquals(new BigDecimal("1500.00"), parallel.getTotalNetWorth());
+        assertEquals(new BigDecimal("100.00"), parallel.getTotalExpenses());
+        assertEquals(6, parallel.getMonthlyData().size());
+        assertEquals("Groceries", parallel.getCategoryExpenses().get(0).getCategoryName());
+    }
+
+    @Test
+    void getDashboard_ParallelTimeoutReturnsPartialDashboard() {
+        ReflectionTestUtils.setField(dashboardService, "parallelEnabled", true);
+        ReflectionTestUtils.setField(dashboardService, "parallelTimeout", Duration.ofMillis(200));
+        when(transactionRepository.findByUserId(eq(userId), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(5_000);
+                    return new PageImpl<>(Collections.emptyList());
+                });
+
+        DashboardDto result = dashboardService.getDashboard();
+
+        assertTrue(result.isPartial());
+        assertEquals(List.of(DashboardService.SECTION_RECENT_TRANSACTIONS), result.getUnavailableSections());
+        assertTrue(result.getRecentTransactions().isEmpty());
+        assertEquals(new BigDecimal("1500.00"), result.getTotalNetWorth());
+    }
+}
@@ -0,0 +1,158 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.Category;
+import com.kerem.phinance.model.DisplayPropagation;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.CategoryRepository;
+import com.kerem.phinance.repository.DisplayPropagationRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DisplaySnapshotServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private DisplayPropagationRepository displayPropagationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DisplaySnapshotService displaySnapshotService;
+    private Account account;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        displaySnapshotService = new DisplaySnapshotService(accountRepository, categoryRepository,
+                transactionRepository, displayPropagationRepository, meterRegistry);
+
+        account = new Account();
+        account.setId("account123");
+        account.setName("Checking");
+        account.setColor("#3B82F6");
+
+        category = new Category();
+        category.setId("category123");
+        category.setName("Groceries");
+        category.setColor("#10B981");
+        category.setIcon("cart");
+    }
+
+    @Test
+    void snapshot_CopiesAccountAndCategoryDisplayFields() {
+        Account savings = new Account();
+        savings.setName("Savings");
+        Transaction transaction = new Transaction();
+        transaction.setAccountId("account123");
+        transaction.setTransferToAccountId("savings123");
+        transaction.setCategoryId("category123");
+        when(accountRepository.findById("account123")).thenReturn(Optional.of(account));
+        when(accountRepository.findById("savings123")).thenReturn(Optional.of(savings));
+        when(categoryRepository.findById("category123")).thenReturn(Optional.of(category));
+
+        displaySnapshotService.snapshot(transaction);
+
+        assertEquals("Checking", transaction.getAccountName());
+        assertEquals("#3B82F6", transaction.getAccountColor());
+        assertEquals("Savings", transaction.getTransferToAccountName());
+        assertEquals("Groceries", transaction.getCategoryName());
+        assertEquals("cart", transaction.getCategoryIcon());
+    }
+
+    @Test
+    void categoryChanged_RequestsPropagationOnlyWhenDisplayFieldsChanged() {
+        displaySnapshotService.categoryChanged("Groceries", "#10B981", "cart", category);
+        verifyNoInteractions(displayPropagationRepository);
+
+        displaySnapshotService.categoryChanged("Food", "#10B981", "cart", category);
+        verify(displayPropagationRepository).request(DisplayPropagation.Source.CATEGORY, "category123");
+    }
+
+    @Test
+    void requestBackfillIfNeeded_RequestsEverySourceOnce() {
+        when(displayPropagationRepository.isBackfillRequested()).thenReturn(false).thenReturn(true);
+        when(transactionRepository.existsWithoutDisplaySnapshot()).thenReturn(true);
+        when(accountRepository.findBatchAfterId(null, 500)).thenReturn(List.of(account));
+        when(accountRepository.findBatchAfterId("account123", 500)).thenReturn(List.of());
+        when(categoryRepository.findBatchAfterId(null, 500)).thenReturn(List.of(category));
+        when(categoryRepository.findBatchAfterId("category123", 500)).thenReturn(List.of());
+
+        assertEquals(2, displaySnapshotService.requestBackfillIfNeeded());
+        verify(displayPropagationRepository).request(DisplayPropagation.Source.ACCOUNT, "account123");
+        verify(displayPropagationRepository).request(DisplayPropagation.Source.CATEGORY, "category123");
+        verify(displayPropagationRepository).markBackfillRequested();
+
+        // Snapshots of deleted sources stay missing, yet nothing is requested again
+        assertEquals(0, displaySnapshotService.requestBackfillIfNeeded());
+        verify(transactionRepository, times(1)).existsWithoutDisplaySnapshot();
+    }
+
+    @Test
+    void requestBackfillIfNeeded_OnlyMarksWhenNoSnapshotIsMissing() {
+        when(transactionRepository.existsWithoutDisplaySnapshot()).thenReturn(false);
+
+        assertEquals(0, displaySnapshotService.requestBackfillIfNeeded());
+
+        verify(displayPropagationRepository, never()).request(any(), any());
+        verify(displayPropagationRepository).markBackfillRequested();
+    }
+
+    @Test
+    void propagatePending_CopiesCurrentFieldsAndRecordsOutcome() {
+        DisplayPropagation renamed = propagation(DisplayPropagation.Source.CATEGORY, "category123");
+        DisplayPropagation broken = propagation(DisplayPropagation.Source.ACCOUNT, "account123");
+        when(displayPropagationRepository.claimNext(any(), any(), anyInt()))
+                .thenReturn(Optional.of(renamed))
+                .thenReturn(Optional.of(broken))
+                .thenReturn(Optional.empty());
+        when(categoryRepository.findById("category123")).thenReturn(Optional.of(category));
+        when(accountRepository.findById("account123")).thenReturn(Optional.of(account));
+        when(transactionRepository.updateCategoryDisplay("category123", "Groceries", "#10B981", "cart"))
+                .thenReturn(42L);
+        when(transactionRepository.updateAccountDisplay("account123", "Checking", "#3B82F6"))
+                .thenThrow(new IllegalStateException("write conflict"));
+
+        int runs = displaySnapshotService.propagatePending();
+
+        assertEquals(2, runs);
+        verify(displayPropagationRepository).complete(renamed, 42L);
+        verify(displayPropagationRepository).fail(broken, "write conflict");
+        assertEquals(42.0, meterRegistry.get("display.propagation.updated").tag("source", "category")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("display.propagation").tag("source", "account")
+                .tag("outcome", "failure").timer().count());
+    }
+
+    private DisplayPropagation propagation(DisplayPropagation.Source source, String sourceId) {
+        DisplayPropagation propagation = new DisplayPropagation();
+        propagation.setId(DisplayPropagation.idOf(source, sourceId));
+        propagation.setSource(source);
+        propagation.setSourceId(sourceId);
+        propagation.setStatus(DisplayPropagation.Status.RUNNING);
+        propagation.setAttempts(1);
+        return propagation;
+    }
+}
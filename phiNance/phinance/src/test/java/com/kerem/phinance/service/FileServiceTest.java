@@ -0,0 +1,288 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AttachmentFile;
+import com.kerem.phinance.dto.FileUploadResult;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Attachment;
+import com.kerem.phinance.repository.AttachmentRepository;
+import com.kerem.phinance.security.FileUrlSigner;
+import com.kerem.phinance.security.SecurityUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileServiceTest {
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    @Mock
+    private AttachmentService attachmentService;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    private FileUrlSigner fileUrlSigner;
+    private FileService fileService;
+
+    @TempDir
+    Path uploadDir;
+
+    private MockedStatic<SecurityUtils> securityUtilsMock;
+
+    @BeforeEach
+    void setUp() {
+        securityUtilsMock = mockStatic(SecurityUtils.class);
+        securityUtilsMock.when(SecurityUtils::getCurrentUserId).thenReturn("user123");
+        fileUrlSigner = new FileUrlSigner("test-secret", Duration.ofHours(12));
+        fileService = new FileService(fileUrlSigner, attachmentRepository, attachmentService, thumbnailService,
+                new LocalAttachmentStorage(uploadDir.toString()),
+                new ImageNormalizationService(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtilsMock.close();
+    }
+
+    @Test
+    void uploadFiles_StoresRepeatedContentOnceUnderItsHash() throws Exception {
+        byte[] content = "receipt".getBytes();
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        when(attachmentRepository.addReference(eq("user123"), eq(hash), anyString(), eq(7L), eq("image/jpeg")))
+                .thenReturn(attachment(hash + ".jpg", 1), attachment(hash + ".jpg", 2));
+
+        List<String> urls = fileService.uploadFiles(new MultipartFile[]{
+                new MockMultipartFile("files", "first.jpg", "image/jpeg", content),
+                new MockMultipartFile("files", "second.JPG", "image/jpeg", content)});
+
+        verify(attachmentService).checkQuota("user123", 14L);
+        verify(thumbnailService, times(1)).requestThumbnail(any());
+        String expected = fileUrlSigner.sign("/api/files/user123/" + hash + ".jpg");
+        assertEquals(List.of(expected, expected), urls);
+        try (var stored = Files.list(uploadDir.resolve("user123"))) {
+            assertEquals(List.of(uploadDir.resolve("user123").resolve(hash + ".jpg")), stored.toList());
+        }
+    }
+
+    @Test
+    void deleteFile_RemovesFileWithItsLastReference() throws Exception {
+        Path stored = Files.createDirectories(uploadDir.resolve("user123")).resolve("abc.pdf");
+        Files.write(stored, new byte[10]);
+        Attachment remaining = attachment("abc.pdf", 1);
+        Attachment released = attachment("abc.pdf", 0);
+        when(attachmentRepository.releaseReference("user123", "abc.pdf"))
+                .thenReturn(Optional.of(remaining))
+                .thenReturn(Optional.of(released));
+        when(attachmentRepository.removeIfUnreferenced(released)).thenReturn(true);
+
+        fileService.deleteFile("abc.pdf");
+        assertTrue(Files.exists(stored));
+
+        fileService.deleteFile("abc.pdf");
+        assertFalse(Files.exists(stored));
+        assertFalse(Files.exists(stored.resolveSibling("abc.pdf" + AttachmentStorage.TOMBSTONE_SUFFIX)));
+    }
+
+    @Test
+    void deleteFile_KeepsFileUploadedAgainWhileItsRecordIsRemoved() throws Exception {
+        Path stored = Files.createDirectories(uploadDir.resolve("user123")).resolve("abc.pdf");
+        Files.write(stored, new byte[10]);
+        Attachment released = attachment("abc.pdf", 0);
+        when(attachmentRepository.releaseReference("user123", "abc.pdf")).thenReturn(Optional.of(released));
+        // A concurrent upload referenced the content again
+        when(attachmentRepository.removeIfUnreferenced(released)).thenReturn(false);
+
+        fileService.deleteFile("abc.pdf");
+
+        assertTrue(Files.exists(stored));
+        assertFalse(Files.exists(stored.resolveSibling("abc.pdf" + AttachmentStorage.TOMBSTONE_SUFFIX)));
+    }
+
+    @Test
+    void streamUploads_ReportsEachFileAndKeepsTheValidOnes() throws Exception {
+        byte[] receipt = "receipt".getBytes();
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(receipt));
+        when(attachmentRepository.addReference(eq("user123"), eq(hash), eq(hash + ".png"), eq(7L), eq("image/png")))
+                .thenReturn(attachment(hash + ".png", 1));
+        when(attachmentService.remainingQuota("user123")).thenReturn(1_000_000L);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        part(body, "notes.exe", new byte[3]);
+        part(body, "scan.pdf", new byte[5 * 1024 * 1024 + 1]);
+        part(body, "", new byte[0]);
+        part(body, "photo.PNG", receipt);
+        body.write("--boundary--\r\n".getBytes(StandardCharsets.US_ASCII));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/files/upload/stream");
+        request.setContentType("multipart/form-data; boundary=boundary");
+        request.setContent(body.toByteArray());
+
+        List<FileUploadResult> results = fileService.streamUploads(request);
+
+        assertEquals(List.of("notes.exe", "scan.pdf", "photo.PNG"),
+                results.stream().map(FileUploadResult::getOriginalFilename).toList());
+        assertTrue(results.get(0).getError().startsWith("File type not allowed"));
+        assertEquals("File size exceeds maximum limit of 5MB", results.get(1).getError());
+        assertNull(results.get(2).getError());
+        assertEquals(fileUrlSigner.sign("/api/files/user123/" + hash + ".png"), results.get(2).getUrl());
+        verify(attachmentService).checkQuota("user123", body.size());
+        verify(thumbnailService).requestThumbnail(any());
+        try (var stored = Files.list(uploadDir.resolve("user123"))) {
+            assertEquals(List.of(uploadDir.resolve("user123").resolve(hash + ".png")), stored.toList());
+        }
+    }
+
+    @Test
+    void streamUploads_ChecksChunkedUploadsAgainstTheQuotaPerFile() throws Exception {
+        byte[] receipt = "receipt".getBytes();
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(receipt));
+        when(attachmentRepository.addReference(eq("user123"), eq(hash), eq(hash + ".pdf"), eq(7L),
+                eq("application/pdf"))).thenReturn(attachment(hash + ".pdf", 1));
+        when(attachmentService.remainingQuota("user123")).thenReturn(10L);
+        when(attachmentService.quotaExceededMessage()).thenReturn("Attachment storage quota of 1MB exceeded");
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        part(body, "receipt.pdf", receipt);
+        part(body, "invoice.pdf", "invoice".getBytes());
+        body.write("--boundary--\r\n".getBytes(StandardCharsets.US_ASCII));
+        // Sent with chunked transfer encoding, so without a content length
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/files/upload/stream") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=boundary");
+        request.setContent(body.toByteArray());
+
+        List<FileUploadResult> results = fileService.streamUploads(request);
+
+        assertNull(results.get(0).getError());
+        assertEquals("Attachment storage quota of 1MB exceeded", results.get(1).getError());
+        verify(attachmentService, never()).checkQuota(any(), anyLong());
+        try (var stored = Files.list(uploadDir.resolve("user123"))) {
+            assertEquals(List.of(uploadDir.resolve("user123").resolve(hash + ".pdf")), stored.toList());
+        }
+    }
+
+    @Test
+    void getFileWithAuth_ServesFromRecordWithoutReadingTheFile() {
+        Attachment stored = attachment("abc.pdf", 1);
+        stored.setHash("abc");
+        stored.setSize(300);
+        stored.setContentType("application/pdf");
+        stored.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0));
+        when(attachmentRepository.findByUserIdAndFilename("user123", "abc.pdf")).thenReturn(Optional.of(stored));
+
+        AttachmentFile file = fileService.getFileWithAuth("user123", "abc.pdf", null, null, "user123", false);
+
+        assertEquals("\"abc\"", file.getEtag());
+        assertEquals("application/pdf", file.getContentType());
+        assertEquals(300, file.getSize());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 0).atZone(ZoneId.systemDefault()).toInstant(),
+                file.getLastModified());
+    }
+
+    @Test
+    void getFileWithAuth_ServesOriginalUncachedWhileThumbnailIsPending() {
+        Attachment stored = attachment("abc.jpg", 1);
+        stored.setHash("abc");
+        stored.setContentType("image/jpeg");
+        stored.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0));
+        stored.setThumbnailStatus(Attachment.ThumbnailStatus.PENDING);
+        when(attachmentRepository.findByUserIdAndFilename("user123", "abc.jpg")).thenReturn(Optional.of(stored));
+
+        AttachmentFile pending = fileService.getFileWithAuth("user123", "abc.jpg", null, null, "user123", true);
+        assertEquals("abc.jpg", pending.getFilename());
+        assertFalse(pending.isImmutable());
+
+        stored.setThumbnailStatus(Attachment.ThumbnailStatus.READY);
+        stored.setThumbnailFilename("abc.thumb.jpg");
+        AttachmentFile ready = fileService.getFileWithAuth("user123", "abc.jpg", null, null, "user123", true);
+        assertEquals("abc.thumb.jpg", ready.getFilename());
+        assertEquals("\"abc-thumb\"", ready.getEtag());
+        assertTrue(ready.isImmutable());
+    }
+
+    @Test
+    void getFileWithAuth_ReturnsValidatorsFromFileAttributes() throws Exception {
+        Path stored = Files.createDirectories(uploadDir.resolve("user123")).resolve("receipt.pdf");
+        Files.write(stored, new byte[300]);
+
+        AttachmentFile file = fileService.getFileWithAuth("user123", "receipt.pdf", null, null, "user123", false);
+
+        assertEquals(300, file.getSize());
+        assertEquals("\"receipt.pdf-12c\"", file.getEtag());
+        assertEquals(Files.getLastModifiedTime(stored).toInstant(), file.getLastModified());
+        assertEquals(300, file.getResource().contentLength());
+    }
+
+    @Test
+    void getFileWithAuth_AcceptsSignedLinksToExactlyTheSignedFile() throws Exception {
+        Files.write(Files.createDirectories(uploadDir.resolve("user123")).resolve("receipt.pdf"), new byte[3]);
+        String url = fileUrlSigner.sign("/api/files/user123/receipt.pdf");
+        String expires = url.substring(url.indexOf("expires=") + 8, url.indexOf('&'));
+        String signature = url.substring(url.indexOf("signature=") + 10);
+
+        assertNotNull(fileService.getFileWithAuth("user123", "receipt.pdf", expires, signature, null, false));
+        assertThrows(BadRequestException.class,
+                () -> fileService.getFileWithAuth("user123", "other.pdf", expires, signature, null, false));
+        assertThrows(BadRequestException.class,
+                () -> fileService.getFileWithAuth("user123", "receipt.pdf", null, null, null, false));
+    }
+
+    @Test
+    void getFileWithAuth_ReturnsNullForMissingFile() {
+        assertNull(fileService.getFileWithAuth("user123", "missing.pdf", null, null, "user123", false));
+    }
+
+    @Test
+    void getFileWithAuth_RejectsOtherUsersFiles() {
+        assertThrows(BadRequestException.class,
+                () -> fileService.getFileWithAuth("user456", "receipt.pdf", null, null, "user123", false));
+    }
+
+    private static void part(ByteArrayOutputStream body, String filename, byte[] content) throws Exception {
+        body.write(("--boundary\r\nContent-Disposition: form-data; name=\"files\"; filename=\"" + filename
+                + "\"\r\nContent-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Attachment attachment(String filename, int refCount) {
+        Attachment attachment = new Attachment();
+        attachment.setId("user123:" + filename);
+        attachment.setUserId("user123");
+        attachment.setFilename(filename);
+        attachment.setRefCount(refCount);
+        return attachment;
+    }
+}
@@ -4,8 +4,10 @@ import com.kerem.phinance.dto.GoalContributionDto;
 import com.kerem.phinance.dto.GoalDto;
 import com.kerem.phinance.dto.TransactionDto;
 import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Account;
 import com.kerem.phinance.model.Goal;
 import com.kerem.phinance.model.GoalContribution;
+import com.kerem.phinance.repository.AccountRepository;
 import com.kerem.phinance.repository.GoalContributionRepository;
 import com.kerem.phinance.repository.GoalRepository;
 import com.kerem.phinance.security.SecurityUtils;
@@ -44,6 +46,18 @@ class GoalServiceTest {
     @Mock
     private TransactionService transactionService;
 
+    @Mock
+    private UserWriteVersionService userWriteVersionService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private DashboardCacheService dashboardCacheService;
+
+    @Mock
+    private DisplaySnapshotService displaySnapshotService;
+
     @InjectMocks
     private GoalService goalService;
 
@@ -140,6 +154,26 @@ class GoalServiceTest {
         assertTrue(goal.isCompleted());
     }
 
+    @Test
+    void updateGoal_PropagatesRenamedSavingsAccountToTransactions() {
+        goal.setSavingsAccountId("account123");
+        Account account = new Account();
+        account.setId("account123");
+        account.setName("Emergency Fund");
+        account.setColor("#10B981");
+        goalDto.setName("Rainy Day Fund");
+        when(goalRepository.findByIdAndUserId("goal123", userId)).thenReturn(Optional.of(goal));
+        when(accountRepository.findById("account123")).thenReturn(Optional.of(account));
+        when(accountRepository.save(account)).thenReturn(account);
+        when(goalRepository.save(goal)).thenReturn(goal);
+
+        goalService.updateGoal("goal123", goalDto);
+
+        assertEquals("Rainy Day Fund", account.getName());
+        verify(displaySnapshotService).accountChanged("Emergency Fund", "#10B981", account);
+        verify(dashboardCacheService).invalidate(userId);
+    }
+
     @Test
     void deleteGoal_WithDependentGoals_ThrowsException() {
         Goal dependentGoal = new Goal();
@@ -0,0 +1,75 @@
+package com.kerem.phinance.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assumptions.abort;
+
+/**
+ * Runs against an embedded mongod started once for the class, or the server
+ * given with e.g. {@code mvn test -Dmongo.uri=mongodb://localhost:27017}.
+ * Without either, e.g. offline before the mongod binary was downloaded once,
+ * the tests are aborted rather than passed. A small chunk size makes every
+ * test file span several chunks.
+ */
+class GridFsAttachmentStorageTest extends AttachmentStorageContractTest {
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> embedded;
+    private static MongoClient client;
+    private static String unavailable;
+
+    private GridFsAttachmentStorage storage;
+
+    @BeforeAll
+    static void startServer() {
+        String uri = System.getProperty("mongo.uri");
+        if (uri == null || uri.isBlank()) {
+            try {
+                embedded = Mongod.instance().start(Version.Main.V6_0);
+            } catch (RuntimeException e) {
+                // Aborted per test, so each is reported as skipped
+                unavailable = "Embedded MongoDB could not be started: " + e.getMessage();
+                return;
+            }
+            ServerAddress address = embedded.current().getServerAddress();
+            uri = "mongodb://" + address.getHost() + ":" + address.getPort();
+        }
+        client = MongoClients.create(uri);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        if (client != null) {
+            client.close();
+        }
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        if (unavailable != null) {
+            abort(unavailable);
+        }
+        SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, "phinance_gridfs_test");
+        factory.getMongoDatabase().drop();
+        storage = new GridFsAttachmentStorage(factory, "attachment_files");
+        ReflectionTestUtils.setField(storage, "chunkSizeBytes", 1024);
+    }
+
+    @Override
+    protected AttachmentStorage storage() {
+        return storage;
+    }
+}
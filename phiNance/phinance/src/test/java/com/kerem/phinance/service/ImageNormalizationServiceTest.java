@@ -0,0 +1,149 @@
+package com.kerem.phinance.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageNormalizationServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImageNormalizationService imageNormalizationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        imageNormalizationService = new ImageNormalizationService(meterRegistry);
+        ReflectionTestUtils.setField(imageNormalizationService, "enabled", true);
+        ReflectionTestUtils.setField(imageNormalizationService, "maxDimension", 400);
+        ReflectionTestUtils.setField(imageNormalizationService, "minBytes", 10_000L);
+    }
+
+    @Test
+    void normalize_DownscalesLargePhotosUprightWithoutMetadata() throws Exception {
+        // Stored sideways with orientation 6, as phones do in portrait
+        byte[] photo = withExifOrientation(jpeg(1600, 1200), 6);
+        assertEquals(6, ImageNormalizationService.exifOrientation(photo));
+
+        byte[] stored = imageNormalizationService.normalize(new ByteArrayInputStream(photo), "jpg").readAllBytes();
+
+        assertTrue(stored.length < photo.length);
+        assertEquals(1, ImageNormalizationService.exifOrientation(stored));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(stored));
+        assertEquals(300, image.getWidth());
+        assertEquals(400, image.getHeight());
+        assertEquals(photo.length,
+                meterRegistry.get("attachments.normalization.original").tag("outcome", "normalized").summary().totalAmount());
+        assertEquals(stored.length,
+                meterRegistry.get("attachments.normalization.stored").tag("outcome", "normalized").summary().totalAmount());
+    }
+
+    @Test
+    void normalize_StripsMetadataFromPhotosKeptAsUploaded() throws Exception {
+        // At full quality the re-encoded photo is never smaller
+        ReflectionTestUtils.setField(imageNormalizationService, "jpegQuality", 1.0f);
+        byte[] jpeg = jpeg(300, 200);
+        byte[] photo = withExifOrientation(withSegment(jpeg, 0xE1, "http://ns.adobe.com/xap/1.0/\0GPS 52.37N"), 3);
+
+        byte[] stored = imageNormalizationService.normalize(new ByteArrayInputStream(photo), "jpg").readAllBytes();
+
+        assertFalse(new String(stored, StandardCharsets.ISO_8859_1).contains("GPS"));
+        assertEquals(3, ImageNormalizationService.exifOrientation(stored));
+        // Only the segments before the image data changed
+        assertArrayEquals(Arrays.copyOfRange(jpeg, 2, jpeg.length),
+                Arrays.copyOfRange(stored, stored.length - jpeg.length + 2, stored.length));
+        assertEquals(1, meterRegistry.get("attachments.normalization.stored").tag("outcome", "stripped").summary().count());
+    }
+
+    @Test
+    void stripMetadata_ReturnsPhotosWithoutMetadataUnchanged() throws Exception {
+        byte[] jpeg = jpeg(40, 30);
+
+        assertSame(jpeg, ImageNormalizationService.stripMetadata(jpeg));
+    }
+
+    @Test
+    void normalize_PassesDocumentsAndSmallImagesThrough() throws Exception {
+        InputStream pdf = new ByteArrayInputStream(new byte[50_000]);
+        assertSame(pdf, imageNormalizationService.normalize(pdf, "pdf"));
+
+        byte[] small = jpeg(40, 30);
+        assertArrayEquals(small, imageNormalizationService.normalize(new ByteArrayInputStream(small), "jpeg").readAllBytes());
+        assertEquals(1, meterRegistry.get("attachments.normalization.stored").tag("outcome", "unchanged").summary().count());
+    }
+
+    @Test
+    void normalize_StoresUndecodableImagesUnchanged() throws Exception {
+        byte[] corrupt = new byte[20_000];
+        new Random(7).nextBytes(corrupt);
+
+        assertArrayEquals(corrupt, imageNormalizationService.normalize(new ByteArrayInputStream(corrupt), "png").readAllBytes());
+    }
+
+    private static byte[] jpeg(int width, int height) throws Exception {
+        // Noise does not compress, like the detail of a real photo
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Insert a segment with the marker and payload right after the start of
+     * image marker.
+     */
+    private static byte[] withSegment(byte[] jpeg, int marker, String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(marker);
+        out.write((data.length + 2) >> 8);
+        out.write((data.length + 2) & 0xFF);
+        out.writeBytes(data);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    /**
+     * Insert an APP1 segment holding a big-endian TIFF header with a single
+     * orientation entry right after the start of image marker.
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] tiff = {
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0};
+        byte[] exif = {'E', 'x', 'i', 'f', 0, 0};
+        int length = 2 + exif.length + tiff.length;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.writeBytes(exif);
+        out.writeBytes(tiff);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
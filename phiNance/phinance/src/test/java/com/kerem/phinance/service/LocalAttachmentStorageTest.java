@@ -0,0 +1,24 @@
+package com.kerem.phinance.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+class LocalAttachmentStorageTest extends AttachmentStorageContractTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalAttachmentStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalAttachmentStorage(uploadDir.toString());
+    }
+
+    @Override
+    protected AttachmentStorage storage() {
+        return storage;
+    }
+}
@@ -0,0 +1,220 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.dto.AccountBalanceDelta;
+import com.kerem.phinance.dto.NetWorthHistoryDto;
+import com.kerem.phinance.exception.BadRequestException;
+import com.kerem.phinance.model.Account;
+import com.kerem.phinance.model.AccountBalanceSnapshot;
+import com.kerem.phinance.model.Transaction;
+import com.kerem.phinance.repository.AccountBalanceSnapshotRepository;
+import com.kerem.phinance.repository.AccountRepository;
+import com.kerem.phinance.repository.TransactionRepository;
+import com.kerem.phinance.security.SecurityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NetWorthHistoryServiceTest {
+
+    @Mock
+    private AccountBalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @InjectMocks
+    private NetWorthHistoryService netWorthHistoryService;
+
+    private final String userId = "user123";
+    private final LocalDate start = LocalDate.of(2024, 3, 1);
+    private final LocalDate end = LocalDate.of(2024, 3, 4);
+    private MockedStatic<SecurityUtils> securityUtilsMock;
+    private Account checking;
+    private Account savings;
+
+    @BeforeEach
+    void setUp() {
+        securityUtilsMock = mockStatic(SecurityUtils.class);
+        securityUtilsMock.when(SecurityUtils::getCurrentUserId).thenReturn(userId);
+
+        checking = new Account();
+        checking.setId("checking");
+        checking.setUserId(userId);
+        checking.setName("Checking");
+        checking.setInitialBalance(new BigDecimal("100"));
+        checking.setCurrentBalance(new BigDecimal("1000"));
+
+        savings = new Account();
+        savings.setId("savings");
+        savings.setUserId(userId);
+        savings.setName("Savings");
+        savings.setInitialBalance(new BigDecimal("500"));
+        savings.setCurrentBalance(new BigDecimal("700"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtilsMock.close();
+    }
+
+    @Test
+    void getNetWorthHistory_AnchorsOnSnapshotAndFillsGapsFromDeltas() {
+        when(accountRepository.findByUserId(userId)).thenReturn(List.of(checking));
+        when(snapshotRepository.findLatestByUserIdOnOrBefore(userId, start.minusDays(1)))
+                .thenReturn(List.of(snapshot("checking", LocalDate.of(2024, 2, 27), "800")));
+        when(transactionRepository.sumBalanceDeltas(userId, LocalDate.of(2024, 2, 27), end, true))
+                .thenReturn(List.of(
+                        new AccountBalanceDelta("checking", LocalDate.of(2024, 2, 28), new BigDecimal("50")),
+                        new AccountBalanceDelta("checking", LocalDate.of(2024, 3, 2), new BigDecimal("-30")),
+                        new AccountBalanceDelta("checking", LocalDate.of(2024, 3, 4), new BigDecimal("10"))));
+        when(snapshotRepository.findByUserIdAndDateBetween(userId, start, end))
+                .thenReturn(List.of(snapshot("checking", LocalDate.of(2024, 3, 3), "820")));
+
+        NetWorthHistoryDto result = netWorthHistoryService.getNetWorthHistory(start, end);
+
+        assertEquals(4, result.getDates().size());
+        assertEquals(List.of(new BigDecimal("850"), new BigDecimal("820"), new BigDecimal("820"), new BigDecimal("830")),
+                result.getAccounts().get(0).getBalances());
+        assertEquals(result.getAccounts().get(0).getBalances(), result.getNetWorth());
+    }
+
+    @Test
+    void getNetWorthHistory_WithoutSnapshotReplaysFromInitialBalance() {
+        when(accountRepository.findByUserId(userId)).thenReturn(List.of(checking, savings));
+        when(snapshotRepository.findLatestByUserIdOnOrBefore(userId, start.minusDays(1)))
+                .thenReturn(List.of(snapshot("checking", LocalDate.of(2024, 2, 29), "1000")));
+        when(transactionRepository.sumBalanceDeltas(eq(userId), isNull(), eq(end), eq(true)))
+                .thenReturn(List.of(
+                        new AccountBalanceDelta("checking", LocalDate.of(2024, 1, 10), new BigDecimal("900")),
+                        new AccountBalanceDelta("savings", LocalDate.of(2024, 1, 10), new BigDecimal("200")),
+                        new AccountBalanceDelta("savings", LocalDate.of(2024, 3, 2), new BigDecimal("-50"))));
+        when(snapshotRepository.findByUserIdAndDateBetween(userId, start, end)).thenReturn(List.of());
+
+        NetWorthHistoryDto result = netWorthHistoryService.getNetWorthHistory(start, end);
+
+        // The checking delta before its snapshot is already part of the snapshot
+        assertEquals(List.of(new BigDecimal("1000"), new BigDecimal("1000"), new BigDecimal("1000"), new BigDecimal("1000")),
+                result.getAccounts().get(0).getBalances());
+        assertEquals(List.of(new BigDecimal("700"), new BigDecimal("650"), new BigDecimal("650"), new BigDecimal("650")),
+                result.getAccounts().get(1).getBalances());
+        assertEquals(new BigDecimal("1650"), result.getNetWorth().get(3));
+    }
+
+    @Test
+    void getNetWorthHistory_CountsArchivedAccountsUntilTheyWereArchived() {
+        savings.setArchived(true);
+        savings.setArchivedAt(LocalDateTime.of(2024, 3, 3, 9, 0));
+        Account closedEarlier = new Account();
+        closedEarlier.setId("closed");
+        closedEarlier.setArchived(true);
+        closedEarlier.setArchivedAt(LocalDateTime.of(2024, 2, 1, 9, 0));
+        when(accountRepository.findByUserId(userId)).thenReturn(List.of(checking, savings, closedEarlier));
+        // The account archived before the range is left out even though it has an older snapshot
+        when(snapshotRepository.findLatestByUserIdOnOrBefore(userId, start.minusDays(1)))
+                .thenReturn(List.of(
+                        snapshot("checking", LocalDate.of(2024, 2, 29), "1000"),
+                        snapshot("savings", LocalDate.of(2024, 2, 29), "500"),
+                        snapshot("closed", LocalDate.of(2024, 1, 31), "300")));
+        when(transactionRepository.sumBalanceDeltas(userId, LocalDate.of(2024, 2, 29), end, true)).thenReturn(List.of());
+        when(snapshotRepository.findByUserIdAndDateBetween(userId, start, end)).thenReturn(List.of());
+
+        NetWorthHistoryDto result = netWorthHistoryService.getNetWorthHistory(start, end);
+
+        assertEquals(2, result.getAccounts().size());
+        assertEquals(List.of(new BigDecimal("500"), new BigDecimal("500"), BigDecimal.ZERO, BigDecimal.ZERO),
+                result.getAccounts().get(1).getBalances());
+        assertEquals(List.of(new BigDecimal("1500"), new BigDecimal("1500"), new BigDecimal("1000"), new BigDecimal("1000")),
+                result.getNetWorth());
+    }
+
+    @Test
+    void getNetWorthHistory_RejectsInvertedRange() {
+        assertThrows(BadRequestException.class, () -> netWorthHistoryService.getNetWorthHistory(end, start));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshotBalances_SubtractsTransactionsDatedAfterTheDay() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        when(transactionRepository.sumBalanceDeltas(null, date, null, false))
+                .thenReturn(List.of(new AccountBalanceDelta("checking", null, new BigDecimal("200"))));
+        when(accountRepository.findActiveBatchAfterId(null, NetWorthHistoryService.SNAPSHOT_BATCH_SIZE))
+                .thenReturn(List.of(checking, savings));
+        when(snapshotRepository.upsertAll(anyList())).thenReturn(2);
+
+        int written = netWorthHistoryService.snapshotBalances(date);
+
+        ArgumentCaptor<List<AccountBalanceSnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepository).upsertAll(captor.capture());
+        assertEquals(2, written);
+        assertEquals(new BigDecimal("800"), captor.getValue().get(0).getBalance());
+        assertEquals(new BigDecimal("700"), captor.getValue().get(1).getBalance());
+        assertEquals(date, captor.getValue().get(1).getDate());
+    }
+
+    @Test
+    void snapshotBalances_ContinuesAfterTheLastIdOfAFullBatch() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        List<Account> full = IntStream.range(0, NetWorthHistoryService.SNAPSHOT_BATCH_SIZE)
+                .mapToObj(i -> i == NetWorthHistoryService.SNAPSHOT_BATCH_SIZE - 1 ? checking : savings)
+                .toList();
+        when(transactionRepository.sumBalanceDeltas(null, date, null, false)).thenReturn(List.of());
+        when(accountRepository.findActiveBatchAfterId(null, NetWorthHistoryService.SNAPSHOT_BATCH_SIZE))
+                .thenReturn(full);
+        when(accountRepository.findActiveBatchAfterId("checking", NetWorthHistoryService.SNAPSHOT_BATCH_SIZE))
+                .thenReturn(List.of(savings));
+        when(snapshotRepository.upsertAll(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        assertEquals(NetWorthHistoryService.SNAPSHOT_BATCH_SIZE + 1, netWorthHistoryService.snapshotBalances(date));
+        verify(accountRepository, times(2)).findActiveBatchAfterId(any(), anyInt());
+    }
+
+    @Test
+    void revertTransaction_ShiftsBothTransferAccounts() {
+        Transaction transfer = new Transaction();
+        transfer.setType(Transaction.TransactionType.TRANSFER);
+        transfer.setAccountId("checking");
+        transfer.setTransferToAccountId("savings");
+        transfer.setAmount(new BigDecimal("75"));
+        transfer.setDate(start);
+
+        netWorthHistoryService.revertTransaction(transfer);
+
+        verify(snapshotRepository).shiftBalances("checking", start, new BigDecimal("75"));
+        verify(snapshotRepository).shiftBalances("savings", start, new BigDecimal("-75"));
+    }
+
+    private AccountBalanceSnapshot snapshot(String accountId, LocalDate date, String balance) {
+        AccountBalanceSnapshot snapshot = new AccountBalanceSnapshot();
+        snapshot.setUserId(userId);
+        snapshot.setAccountId(accountId);
+        snapshot.setDate(date);
+        snapshot.setBalance(new BigDecimal(balance));
+        return snapshot;
+    }
+}
@@ -0,0 +1,72 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.util.PageTotal;
+import com.kerem.phinance.util.PagedQueries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCountCacheServiceTest {
+
+    private PageCountCacheService pageCountCacheService;
+    private UserWriteVersionService writeVersions;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        writeVersions = new UserWriteVersionService(1_000, Duration.ofHours(1));
+        pageCountCacheService = new PageCountCacheService(new SimpleMeterRegistry(), writeVersions,
+                1_000, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void totalFor_CountIsCachedPerFilterUntilUserWrites() {
+        AtomicInteger counts = new AtomicInteger();
+
+        long first = pageCountCacheService.totalFor(userId, true, "transactions", "acc1")
+                .resolve(() -> counts.incrementAndGet() * 100L);
+        long cached = pageCountCacheService.totalFor(userId, true, "transactions", "acc1")
+                .resolve(() -> counts.incrementAndGet() * 100L);
+        long otherFilter = pageCountCacheService.totalFor(userId, true, "transactions", "acc2")
+                .resolve(() -> counts.incrementAndGet() * 100L);
+        writeVersions.bump(userId);
+        long afterWrite = pageCountCacheService.totalFor(userId, true, "transactions", "acc1")
+                .resolve(() -> counts.incrementAndGet() * 100L);
+
+        assertEquals(100L, first);
+        assertEquals(100L, cached);
+        assertEquals(200L, otherFilter);
+        assertEquals(300L, afterWrite);
+    }
+
+    @Test
+    void toSlice_WithoutTotalUsesLookaheadRowAndNeverCounts() {
+        PageTotal total = pageCountCacheService.totalFor(userId, false, "transactions");
+
+        Slice<Integer> slice = PagedQueries.toSlice(List.of(1, 2, 3), PageRequest.of(2, 2), total,
+                () -> fail("must not count"));
+
+        assertNull(total);
+        assertFalse(slice instanceof Page);
+        assertTrue(slice.hasNext());
+        assertEquals(List.of(1, 2), slice.getContent());
+    }
+
+    @Test
+    void toSlice_LastPageTellsTotalWithoutCounting() {
+        Slice<Integer> slice = PagedQueries.toSlice(List.of(1), PageRequest.of(2, 2), PageTotal.counted(),
+                () -> fail("must not count"));
+
+        assertEquals(5L, ((Page<Integer>) slice).getTotalElements());
+        assertFalse(slice.hasNext());
+    }
+}
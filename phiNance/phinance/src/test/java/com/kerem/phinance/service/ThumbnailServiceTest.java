@@ -0,0 +1,94 @@
+package com.kerem.phinance.service;
+
+import com.kerem.phinance.model.Attachment;
+import com.kerem.phinance.repository.AttachmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    @Mock
+    private AttachmentRepository attachmentRepository;
+
+    private ThumbnailService thumbnailService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        thumbnailService = new ThumbnailService(attachmentRepository, new LocalAttachmentStorage(uploadDir.toString()));
+    }
+
+    @Test
+    void generate_StoresDownscaledCopyNextToOriginal() throws Exception {
+        Path userDir = Files.createDirectories(uploadDir.resolve("user123"));
+        ImageIO.write(new BufferedImage(1600, 800, BufferedImage.TYPE_INT_RGB), "jpg",
+                userDir.resolve("abc.jpg").toFile());
+        Attachment attachment = attachment("abc.jpg", "image/jpeg");
+        when(attachmentRepository.updateThumbnail("user123:abc", Attachment.ThumbnailStatus.READY, "abc.thumb.jpg"))
+                .thenReturn(true);
+
+        thumbnailService.generate(attachment);
+
+        BufferedImage thumbnail = ImageIO.read(userDir.resolve("abc.thumb.jpg").toFile());
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(160, thumbnail.getHeight());
+        verify(attachmentRepository).updateThumbnail("user123:abc", Attachment.ThumbnailStatus.READY, "abc.thumb.jpg");
+    }
+
+    @Test
+    void generate_DeletesThumbnailOfOriginalDeletedMeanwhile() throws Exception {
+        Path userDir = Files.createDirectories(uploadDir.resolve("user123"));
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), "jpg",
+                userDir.resolve("abc.jpg").toFile());
+        when(attachmentRepository.existsById("user123:abc")).thenReturn(false);
+
+        thumbnailService.generate(attachment("abc.jpg", "image/jpeg"));
+
+        try (var stored = Files.list(userDir)) {
+            assertEquals(List.of(userDir.resolve("abc.jpg")), stored.toList());
+        }
+    }
+
+    @Test
+    void generate_MarksUnreadableImagesFailed() throws Exception {
+        Path userDir = Files.createDirectories(uploadDir.resolve("user123"));
+        Files.write(userDir.resolve("abc.png"), new byte[]{1, 2, 3});
+
+        thumbnailService.generate(attachment("abc.png", "image/png"));
+
+        verify(attachmentRepository).updateThumbnail("user123:abc", Attachment.ThumbnailStatus.FAILED, null);
+    }
+
+    @Test
+    void requestThumbnail_SkipsDocuments() {
+        thumbnailService.requestThumbnail(attachment("abc.pdf", "application/pdf"));
+
+        verifyNoInteractions(attachmentRepository);
+    }
+
+    private Attachment attachment(String filename, String contentType) {
+        Attachment attachment = new Attachment();
+        attachment.setId("user123:abc");
+        attachment.setUserId("user123");
+        attachment.setHash("abc");
+        attachment.setFilename(filename);
+        attachment.setContentType(contentType);
+        return attachment;
+    }
+}
@@ -9,6 +9,7 @@ import com.kerem.phinance.repository.GoalContributionRepository;
 import com.kerem.phinance.repository.GoalRepository;
 import com.kerem.phinance.repository.TransactionRepository;
 import com.kerem.phinance.security.SecurityUtils;
+import com.kerem.phinance.util.FieldSelection;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,9 +18,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +52,18 @@ class TransactionServiceTest {
     @Mock
     private GoalRepository goalRepository;
 
+    @Mock
+    private DashboardCacheService dashboardCacheService;
+
+    @Mock
+    private NetWorthHistoryService netWorthHistoryService;
+
+    @Mock
+    private PageCountCacheService pageCountCacheService;
+
+    @Mock
+    private AttachmentService attachmentService;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -92,6 +111,49 @@ class TransactionServiceTest {
         verify(budgetService).updateSpentAmount(eq(userId), eq("category123"), any(BigDecimal.class), any(LocalDate.class));
     }
 
+    @Test
+    void getTransactions_SortsByAccountNameAndReturnsDisplaySnapshot() {
+        transaction.setAccountName("Checking");
+        transaction.setCategoryName("Groceries");
+        TransactionFilterDto filter = new TransactionFilterDto();
+        filter.setSortBy("account");
+        filter.setSortDirection("asc");
+        filter.setIncludeTotal(false);
+        Pageable pageable = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "accountName"));
+        when(transactionRepository.findByFilters(userId, null, null, null, null, null, null, null, null,
+                pageable, null, FieldSelection.all()))
+                .thenReturn(new SliceImpl<>(List.of(transaction), pageable, false));
+
+        Slice<TransactionDto> result = transactionService.getTransactions(filter, FieldSelection.all());
+
+        assertEquals("Checking", result.getContent().get(0).getAccountName());
+        assertEquals("Groceries", result.getContent().get(0).getCategoryName());
+    }
+
+    @Test
+    void getTransactions_SignsAttachmentsOfProjectedRowsWithoutOwner() {
+        // Only the selected fields are read, so the owner is not loaded
+        Transaction projected = new Transaction();
+        projected.setId("transaction123");
+        projected.setAttachmentUrls(List.of("/api/files/user123/abc.jpg"));
+        TransactionFilterDto filter = new TransactionFilterDto();
+        filter.setSortBy("account");
+        filter.setSortDirection("asc");
+        filter.setIncludeTotal(false);
+        Pageable pageable = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "accountName"));
+        FieldSelection fields = FieldSelection.parse("attachmentUrls", TransactionService.LIST_FIELDS);
+        when(transactionRepository.findByFilters(userId, null, null, null, null, null, null, null, null,
+                pageable, null, fields))
+                .thenReturn(new SliceImpl<>(List.of(projected), pageable, false));
+        when(attachmentService.signedUrls(userId, List.of("/api/files/user123/abc.jpg")))
+                .thenReturn(List.of("/api/files/user123/abc.jpg?expires=1&signature=s"));
+
+        Slice<TransactionDto> result = transactionService.getTransactions(filter, fields);
+
+        assertEquals(List.of("/api/files/user123/abc.jpg?expires=1&signature=s"),
+                result.getContent().get(0).getAttachmentUrls());
+    }
+
     @Test
     void createTransaction_AccountNotOwned_ThrowsException() {
         when(accountService.accountBelongsToUser(accountId, userId)).thenReturn(false);
@@ -101,6 +163,17 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
+    @Test
+    void createTransaction_RejectsLinksToOtherUsersFiles() {
+        transactionDto.setAttachmentUrls(List.of("/api/files/" + userId + "/abc.jpg",
+                "/api/files/user456/def.jpg"));
+        when(accountService.accountBelongsToUser(accountId, userId)).thenReturn(true);
+
+        assertThrows(BadRequestException.class,
+                () -> transactionService.createTransaction(transactionDto));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
     @Test
     void createTransaction_IncomeUpdatesBalanceCorrectly() {
         transactionDto.setType(Transaction.TransactionType.INCOME);
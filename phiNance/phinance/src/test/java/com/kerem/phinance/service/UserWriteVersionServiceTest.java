@@ -0,0 +1,26 @@
+package com.kerem.phinance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserWriteVersionServiceTest {
+
+    @Test
+    void current_ChangesOnBumpAndNeverRepeatsAfterEviction() {
+        UserWriteVersionService kept = new UserWriteVersionService(1_000, Duration.ofHours(1));
+        long before = kept.current("user123");
+        assertEquals(before, kept.current("user123"));
+        kept.bump("user123");
+        assertTrue(kept.current("user123") > before);
+
+        // Every read finds the version evicted
+        UserWriteVersionService evicting = new UserWriteVersionService(1_000, Duration.ZERO);
+        long stamped = evicting.current("user123");
+        evicting.bump("user123");
+        assertTrue(evicting.current("user123") > stamped);
+        assertNotEquals(evicting.current("user123"), evicting.current("user123"));
+    }
+}